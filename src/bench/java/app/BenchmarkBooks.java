@@ -0,0 +1,49 @@
+package app;
+
+import entities.Chef;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the recipe books the benchmarks run against: names, ingredient lines, labels and times drawn from
+ * small vocabularies, so the books repeat words the way real ones do.
+ */
+public final class BenchmarkBooks {
+
+    private static final String[] WORDS = {"chickpea", "curry", "lentil", "soup", "garlic", "mushroom", "pasta",
+            "tofu", "stir", "fry", "roasted", "veggie", "bowl", "avocado", "toast", "vegan", "chili", "tomato",
+            "basil", "lemon", "ginger", "rice", "bean", "salad", "spicy", "sweet", "potato", "coconut"};
+    private static final String[] UNITS = {"g", "ml", "cup", "tbsp", "tsp", ""};
+    private static final String[] LABELS = {"", "Vegan", "Vegetarian", "Gluten-free", "Vegan, Gluten-free", "Halal"};
+
+    private BenchmarkBooks() {
+    }
+
+    public static List<Recipe> recipes(int count, long seed) {
+        Random random = new Random(seed);
+        List<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<String> ingredients = new ArrayList<>();
+            for (int j = 2 + random.nextInt(6); j > 0; j--) {
+                ingredients.add((1 + random.nextInt(500)) + " " + UNITS[random.nextInt(UNITS.length)] + " "
+                        + word(random));
+            }
+            List<String> steps = List.of("Prepare the " + word(random), "Cook for " + random.nextInt(60) + " minutes");
+            recipes.add(new Recipe(word(random) + " " + word(random) + " " + i, ingredients, steps,
+                    random.nextInt(60), random.nextInt(120), 1 + random.nextInt(8),
+                    LABELS[random.nextInt(LABELS.length)]));
+        }
+        return recipes;
+    }
+
+    public static Chef chef(int count, long seed) {
+        return new Chef("Bench", recipes(count, seed));
+    }
+
+    public static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
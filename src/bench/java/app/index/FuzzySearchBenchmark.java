@@ -0,0 +1,52 @@
+package app.index;
+
+import app.BenchmarkBooks;
+import entities.Chef;
+import entities.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a misspelled query, which finds nothing in the exact index and falls back to fuzzy search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FuzzySearchBenchmark {
+
+    private static final int LIMIT = 50;
+
+    @Param({"10000", "100000"})
+    private int recipes;
+
+    @Param({"chikpea cury", "lentl", "garlc mushrom pasta"})
+    private String query;
+
+    private FuzzySearch fuzzySearch;
+
+    @Setup
+    public void setUp() {
+        Chef chef = BenchmarkBooks.chef(recipes, 1);
+        fuzzySearch = new FuzzySearch(new InvertedIndex(chef));
+    }
+
+    @Benchmark
+    public List<Recipe> search() {
+        return fuzzySearch.search(query, LIMIT);
+    }
+}
@@ -0,0 +1,74 @@
+package app.index;
+
+import app.BenchmarkBooks;
+import app.index.RangeFilter.Field;
+import app.index.SortedViews.SortKey;
+import entities.Chef;
+import entities.DietaryFlag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering and sorting the table on the calling thread against splitting the work across a fork-join
+ * pool with one worker per core, including taking the copy the workers read. The per-row cost and the
+ * parallel path's fixed cost it measures are the ones {@code RecipeQueryEngine.PARALLEL_THRESHOLD} is
+ * derived from; on a machine with more than one core, the two also cross near that threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecipeTableBenchmark {
+
+    @Param({"10000", "100000", "200000", "1000000"})
+    private int recipes;
+
+    private final RangeFilter range = new RangeFilter().setAtMost(Field.TOTAL_TIME, 90);
+    private final int flags = DietaryFlag.VEGETARIAN.mask();
+    private RecipeTable table;
+    private ForkJoinPool pool;
+    private int[] rows;
+
+    @Setup
+    public void setUp() {
+        Chef chef = BenchmarkBooks.chef(recipes, 1);
+        table = new RecipeTable(chef);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        rows = new int[table.rowLimit()];
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int sequential() {
+        int count = table.select(range, flags, rows);
+        table.sort(rows, count, SortKey.PREP_TIME, false);
+        return count;
+    }
+
+    @Benchmark
+    public int parallel() {
+        RecipeTable copy = table.copy();
+        int count = copy.parallelSelect(range, flags, rows, pool, () -> false);
+        copy.parallelSort(rows, count, SortKey.PREP_TIME, false, pool, () -> false);
+        return count;
+    }
+}
@@ -0,0 +1,67 @@
+package app.index;
+
+import app.BenchmarkBooks;
+import app.index.RangeFilter.Field;
+import entities.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Picking the five quickest vegan recipes with {@link TopK} against filtering and sorting the whole book
+ * and keeping the first five.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopKBenchmark {
+
+    private static final int PICKS = 5;
+    private static final Predicate<Recipe> VEGAN = recipe -> recipe.getDietaryRestrictions().contains("Vegan");
+
+    @Param({"10000", "100000", "1000000"})
+    private int recipes;
+
+    private List<Recipe> book;
+    private final TopK topK = new TopK(PICKS);
+    private final Recipe[] out = new Recipe[PICKS];
+
+    @Setup
+    public void setUp() {
+        book = BenchmarkBooks.recipes(recipes, 1);
+    }
+
+    @Benchmark
+    public int topK() {
+        return topK.select(book, Field.TOTAL_TIME, false, VEGAN, out);
+    }
+
+    @Benchmark
+    public List<Recipe> fullSort() {
+        List<Recipe> matching = new ArrayList<>();
+        for (Recipe recipe : book) {
+            if (VEGAN.test(recipe)) {
+                matching.add(recipe);
+            }
+        }
+        matching.sort(Comparator.comparingInt(Field.TOTAL_TIME::valueOf));
+        return matching.subList(0, Math.min(PICKS, matching.size()));
+    }
+}
@@ -0,0 +1,78 @@
+package app.storage;
+
+import app.BenchmarkBooks;
+import entities.Chef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saving and streaming back a whole book with each codec, through {@link ChefRepository} so file I/O is
+ * included. The largest size needs a few gigabytes of heap for the JSON run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CodecBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int recipes;
+
+    @Param({"json", "binary"})
+    private String codec;
+
+    private Path directory;
+    private Chef chef;
+    private ChefRepository repository;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("codec-bench");
+        chef = BenchmarkBooks.chef(recipes, 1);
+        StorageOptions options = new StorageOptions();
+        if (codec.equals("binary")) {
+            options.setCodec(new BinaryChefCodec());
+        }
+        repository = new ChefRepository(directory.resolve("chef.json"), options);
+        repository.saveChef(chef);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        repository.saveChef(chef);
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) throws IOException {
+        blackhole.consume(repository.streamChef(blackhole::consume, null));
+    }
+}
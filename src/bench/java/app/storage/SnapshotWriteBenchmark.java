@@ -0,0 +1,71 @@
+package app.storage;
+
+import app.BenchmarkBooks;
+import entities.Chef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saving a book by writing over the file against an atomic snapshot: temp file, checksum, fsync, move and
+ * rotated generations. Point {@code java.io.tmpdir} at the disk to measure, such as a tmpfs or an SSD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotWriteBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int recipes;
+
+    private Path directory;
+    private Chef chef;
+    private ChefRepository plain;
+    private ChefRepository atomic;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-bench");
+        chef = BenchmarkBooks.chef(recipes, 1);
+        plain = new ChefRepository(directory.resolve("plain.json"));
+        atomic = new ChefRepository(directory.resolve("atomic.json"), new StorageOptions().setAtomicSnapshots(true));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void overwrite() throws IOException {
+        plain.saveChef(chef);
+    }
+
+    @Benchmark
+    public void atomicSnapshot() throws IOException {
+        atomic.saveChef(chef);
+    }
+}
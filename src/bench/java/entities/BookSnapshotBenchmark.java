@@ -0,0 +1,61 @@
+package entities;
+
+import app.BenchmarkBooks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edits that publish a new {@link BookSnapshot}, made {@code percent} of the way into the book: renaming a
+ * recipe, and removing one and adding it back at the end so the book keeps its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BookSnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int recipes;
+
+    @Param({"1", "50", "99"})
+    private int percent;
+
+    private Chef chef;
+    private int position;
+    private int edits;
+
+    @Setup
+    public void setUp() {
+        chef = BenchmarkBooks.chef(recipes, 1);
+        position = (int) ((long) recipes * percent / 100);
+    }
+
+    @Benchmark
+    public BookSnapshot rename() {
+        chef.getRecipes().get(position).setName("renamed " + edits++);
+        return chef.snapshot();
+    }
+
+    @Benchmark
+    public BookSnapshot removeAndAdd() {
+        List<Recipe> book = chef.getRecipes();
+        Recipe recipe = book.get(position);
+        chef.removeRecipe(recipe);
+        chef.addRecipe(recipe);
+        return chef.snapshot();
+    }
+}
@@ -0,0 +1,67 @@
+package entities;
+
+import app.BenchmarkBooks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A case-insensitive duplicate-name check, by scanning the book as the controller used to and through
+ * {@link Chef}'s name index. Names are looked up in a different case from the stored one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NameLookupBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int recipes;
+
+    private Chef chef;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        chef = BenchmarkBooks.chef(recipes, 1);
+        List<Recipe> book = chef.getRecipes();
+        Random random = new Random(2);
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = book.get(random.nextInt(book.size())).getName().toUpperCase();
+        }
+    }
+
+    @Benchmark
+    public boolean scan() {
+        String name = nextName();
+        return chef.getRecipes().stream().anyMatch(recipe -> recipe.getName().equalsIgnoreCase(name));
+    }
+
+    @Benchmark
+    public boolean index() {
+        return chef.hasRecipeNamed(nextName());
+    }
+
+    private String nextName() {
+        next = (next + 1) & (LOOKUPS - 1);
+        return names[next];
+    }
+}
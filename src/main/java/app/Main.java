@@ -1,16 +1,27 @@
 package app;
 
+import app.storage.BinaryChefCodec;
 import app.storage.ChefRepository;
+import app.storage.StorageOptions;
 import entities.Chef;
+import entities.Recipe;
 import frameworks.swing.HomeView;
 
 
 import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class Main {
 
+    private static final int FIRST_PAGE_SIZE = 64;
+    private static final int LOAD_BATCH_SIZE = 1024;
+
     private JFrame frame;
     private HomeView homeView;
     private RecipeViewController recipeViewController;
@@ -25,11 +36,14 @@ public class Main {
         frame = new JFrame("Recipe Book");
         frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
 
-        chefRepository = new ChefRepository(resolveStoragePath());
-        chef = loadChef();
+        chefRepository = new ChefRepository(resolveStoragePath(), new StorageOptions()
+                .setJournaled(true)
+                .setAtomicSnapshots(true)
+                .setCodec(new BinaryChefCodec())
+                .setMemoryMapped(true));
+        chef = new Chef();
 
         homeView = new HomeView();
-        refreshRecipeList();
 
         recipeViewController = new RecipeViewController(frame, homeView, chef, chefRepository, null);
         recipeViewController.showHome();
@@ -52,27 +66,85 @@ public class Main {
             }
         });
 
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    recipeViewController.flushSaves();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
         frame.pack();
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+
+        loadChefInBackground();
     }
 
-    private Chef loadChef() {
-        try {
-            return chefRepository.loadChef();
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(null,
-                    "Unable to load recipes: " + e.getMessage(),
-                    "Startup Error",
-                    JOptionPane.ERROR_MESSAGE);
-            throw new IllegalStateException("Failed to load chef data", e);
-        }
+    /**
+     * Streams the stored book in on a worker thread so the first recipes show up while the rest load.
+     */
+    private void loadChefInBackground() {
+        recipeViewController.suspendPersistence();
+        homeView.setStatusText("Loading recipes...");
+
+        new SwingWorker<String, Void>() {
+            private List<Recipe> batch = new ArrayList<>();
+            private int batchSize = FIRST_PAGE_SIZE;
+
+            @Override
+            protected String doInBackground() throws IOException {
+                String name = chefRepository.streamChef(this::collect, (loaded, bytesRead, totalBytes) ->
+                        SwingUtilities.invokeLater(() -> homeView.setStatusText(
+                                formatLoadProgress(loaded, bytesRead, totalBytes))));
+                handOff();
+                return name;
+            }
+
+            private void collect(Recipe recipe) {
+                batch.add(recipe);
+                if (batch.size() >= batchSize) {
+                    handOff();
+                    batchSize = LOAD_BATCH_SIZE;
+                }
+            }
+
+            // invokeLater keeps batches in order and ahead of done(), which is queued after doInBackground returns
+            private void handOff() {
+                List<Recipe> loaded = batch;
+                batch = new ArrayList<>();
+                SwingUtilities.invokeLater(() -> recipeViewController.appendLoadedRecipes(loaded));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    chef.setName(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    JOptionPane.showMessageDialog(frame,
+                            "Unable to load recipes: " + cause.getMessage(),
+                            "Startup Error",
+                            JOptionPane.ERROR_MESSAGE);
+                    frame.dispose();
+                    return;
+                }
+                homeView.setStatusText("");
+                recipeViewController.resumePersistence();
+                chefRepository.attach(chef);
+            }
+        }.execute();
     }
 
-    private void refreshRecipeList() {
-        if (homeView != null && chef != null) {
-            homeView.setRecipes(chef.getRecipes());
+    private String formatLoadProgress(int loaded, long bytesRead, long totalBytes) {
+        if (totalBytes <= 0) {
+            return String.format("Loading recipes... %,d loaded", loaded);
         }
+        long percent = Math.min(100, bytesRead * 100 / totalBytes);
+        return String.format("Loading recipes... %,d loaded (%d%%)", loaded, percent);
     }
 
     private Path resolveStoragePath() {
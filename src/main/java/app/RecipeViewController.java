@@ -1,19 +1,39 @@
 package app;
 
+import app.index.DuplicateIndex;
+import app.index.FacetCounts;
+import app.index.NameTrie;
+import app.index.PantryIndex;
+import app.index.RangeFilter;
+import app.index.SortedViews.SortKey;
+import app.index.TopK;
+import app.query.RecipeQuery;
+import app.query.RecipeQueryEngine;
 import app.storage.ChefRepository;
+import app.storage.WriteBehindPersister;
 import entities.Chef;
+import entities.ChefListener;
+import entities.DietaryFlag;
 import entities.Recipe;
 import frameworks.SpoonacularAPI;
 import frameworks.swing.HomeView;
+import frameworks.swing.PantryView;
 import frameworks.swing.RecipeDetailView;
 import frameworks.swing.RecipeFormView;
 
 import javax.swing.*;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.Insets;
 import java.io.IOException;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -21,13 +41,42 @@ import java.util.stream.Collectors;
  */
 public class RecipeViewController {
 
+    private static final int QUICK_PICKS = 5;
+    // a report of thousands of groups is unreadable anyway; the count of the rest is shown instead
+    private static final int DUPLICATE_REPORT_LIMIT = 500;
+
     private final JFrame frame;
     private final HomeView homeView;
     private final Chef chef;
-    private final ChefRepository chefRepository;
+    private final WriteBehindPersister persister;
     private final Runnable onRecipesChanged;
-    private String dietaryFilter = "Any";
+    private final RecipeQueryEngine queryEngine;
+    private final PantryIndex pantryIndex;
+    private final NameTrie nameTrie;
+    private final DuplicateIndex duplicateIndex;
+    private final FacetCounts facetCounts;
+    private final Recipe[] suggestions = new Recipe[8];
+    private final TopK quickPickSelector = new TopK(QUICK_PICKS);
+    private final Recipe[] quickPicks = new Recipe[QUICK_PICKS];
+    private String searchQuery = "";
+    // DietaryFlag mask every listed recipe must have; zero lists all
+    private int requiredDietaryFlags;
     private SortOption sortOption = SortOption.NONE;
+    private RangeFilter rangeFilter = new RangeFilter();
+    // reads the current filter settings on every call, so the quick picks need no predicate per refresh
+    private final Predicate<Recipe> homeFilter =
+            recipe -> recipe.hasDietaryFlags(requiredDietaryFlags) && rangeFilter.test(recipe);
+    // what the quick picks on screen were chosen from; they are chosen again only once one of these changes
+    private long pickedGeneration = -1;
+    private RangeFilter pickedRange;
+    private int pickedDietaryFlags;
+    private boolean pickedByServings;
+    private boolean persistenceSuspended;
+    // set when the book changes, so returning to the home screen only rebuilds the list if it has to
+    private boolean homeListStale = true;
+    // a home list query still running on the query engine's workers; replaced or cancelled by the next one
+    private CompletableFuture<List<Recipe>> pendingHomeList;
+    private boolean pendingSave;
 
     public RecipeViewController(JFrame frame,
                                 HomeView homeView,
@@ -37,7 +86,34 @@ public class RecipeViewController {
         this.frame = frame;
         this.homeView = homeView;
         this.chef = chef;
-        this.chefRepository = chefRepository;
+        this.persister = new WriteBehindPersister(chefRepository, chef,
+                ex -> SwingUtilities.invokeLater(() -> showSaveError(ex)));
+        this.queryEngine = new RecipeQueryEngine(chef);
+        this.pantryIndex = new PantryIndex(chef);
+        this.nameTrie = new NameTrie(chef);
+        this.duplicateIndex = new DuplicateIndex(chef);
+        this.facetCounts = new FacetCounts(chef);
+        chef.addListener(new ChefListener() {
+            @Override
+            public void recipeAdded(Recipe recipe) {
+                markHomeListStale();
+            }
+
+            @Override
+            public void recipeUpdated(String previousName, Recipe recipe) {
+                markHomeListStale();
+            }
+
+            @Override
+            public void recipeRemoved(Recipe recipe) {
+                markHomeListStale();
+            }
+
+            @Override
+            public void recipesReplaced() {
+                markHomeListStale();
+            }
+        });
         Runnable refresh = this::refreshHomeList;
         if (onRecipesChanged == null) {
             this.onRecipesChanged = refresh;
@@ -48,11 +124,23 @@ public class RecipeViewController {
             };
         }
         this.homeView.setFilterAction(e -> showFilterDialog());
+        this.homeView.setPantryAction(e -> showPantry());
+        this.homeView.setDuplicatesAction(e -> showDuplicateReport());
+        this.homeView.setSearchListener(query -> {
+            searchQuery = query.trim();
+            refreshHomeList();
+            showNameSuggestions(query.stripLeading());
+        });
+        this.homeView.setSuggestionListener(this::showRecipeDetail);
+        this.homeView.setQuickPickListener(this::showRecipeDetail);
+        this.homeView.setQuickPickOrderAction(e -> refreshQuickPicks());
         refreshHomeList();
     }
 
     public void showHome() {
-        refreshHomeList();
+        if (homeListStale) {
+            refreshHomeList();
+        }
         frame.setContentPane(homeView);
         homeView.clearSelection();
         frame.revalidate();
@@ -84,6 +172,60 @@ public class RecipeViewController {
         setContent(detailView);
     }
 
+    /**
+     * Adds recipes that arrive while the book is still streaming in from storage.
+     */
+    public void appendLoadedRecipes(List<Recipe> recipes) {
+        boolean picksCurrent = quickPicksCurrent();
+        recipes.forEach(chef::addRecipe);
+        if (picksCurrent) {
+            // the batch went on the end of the book, so only it needs offering to the picks on screen
+            int count = quickPickSelector.selectAppended(chef.getRecipes(), quickPicks);
+            pickedGeneration = chef.generation();
+            showQuickPicks(count);
+        }
+        if (isDefaultView()) {
+            homeView.appendRecipes(recipes);
+            refreshQuickPicks();
+        } else {
+            refreshHomeList();
+        }
+    }
+
+    /**
+     * Holds back saves until {@link #resumePersistence()} so a partially loaded book is never written.
+     */
+    public void suspendPersistence() {
+        persistenceSuspended = true;
+    }
+
+    public void resumePersistence() {
+        persistenceSuspended = false;
+        if (pendingSave) {
+            pendingSave = false;
+            persistChanges();
+        }
+    }
+
+    public void showPantry() {
+        PantryView pantryView = new PantryView();
+        pantryView.setFindAction(e -> {
+            List<PantryIndex.Match> matches = pantryIndex.match(pantryView.getPantryItems(),
+                    pantryView.getAllowedMissing());
+            pantryView.setResults(
+                    matches.stream().map(PantryIndex.Match::getRecipe).collect(Collectors.toList()),
+                    matches.stream().map(PantryIndex.Match::getMissing).collect(Collectors.toList()));
+        });
+        pantryView.setResultSelectionListener(e -> {
+            String selection = pantryView.getSelectedRecipeName();
+            if (!e.getValueIsAdjusting() && selection != null) {
+                showRecipeDetail(selection);
+            }
+        });
+        pantryView.setBackAction(e -> showHome());
+        setContent(pantryView);
+    }
+
     public void showAddRecipeForm() {
         RecipeFormView formView = buildRecipeForm("Add Recipe", null);
         formView.setSaveAction(e -> saveNewRecipe(formView));
@@ -104,6 +246,9 @@ public class RecipeViewController {
 
     public void populate() throws IOException {
         Recipe random = SpoonacularAPI.createRecipeFromJson();
+        if (!confirmDespiteDuplicates(random)) {
+            return;
+        }
         this.chef.addRecipe(random);
         persistChanges();
         this.showHome();
@@ -136,16 +281,16 @@ public class RecipeViewController {
         if (recipe == null) {
             return;
         }
-        boolean exists = chef.getRecipes()
-                .stream()
-                .anyMatch(r -> r.getName().equalsIgnoreCase(recipe.getName()));
-        if (exists) {
+        if (chef.hasRecipeNamed(recipe.getName())) {
             JOptionPane.showMessageDialog(frame,
                     "A recipe with that name already exists. Choose a different name.",
                     "Duplicate Recipe",
                     JOptionPane.WARNING_MESSAGE);
             return;
         }
+        if (!confirmDespiteDuplicates(recipe)) {
+            return;
+        }
 
         handleMutation(c -> c.addRecipe(recipe), () -> showRecipeDetail(recipe.getName()));
     }
@@ -156,9 +301,9 @@ public class RecipeViewController {
             return;
         }
 
-        boolean duplicate = chef.getRecipes()
+        boolean duplicate = chef.findRecipesByName(updated.getName())
                 .stream()
-                .anyMatch(r -> r != existing && r.getName().equalsIgnoreCase(updated.getName()));
+                .anyMatch(r -> r != existing);
         if (duplicate) {
             JOptionPane.showMessageDialog(frame,
                     "A recipe with that name already exists. Choose a different name.",
@@ -167,16 +312,48 @@ public class RecipeViewController {
             return;
         }
 
-        existing.setName(updated.getName());
-        existing.setIngredients(updated.getIngredients());
-        existing.setSteps(updated.getSteps());
-        existing.setDietaryRestrictions(updated.getDietaryRestrictions());
-        existing.setPrepTime(updated.getPrepTime());
-        existing.setCookTime(updated.getCookTime());
-        existing.setServings(updated.getServings());
+        handleMutation(c -> c.updateRecipe(existing, updated), () -> showRecipeDetail(updated.getName()));
+    }
 
-        String targetName = existing.getName();
-        handleMutation(c -> { }, () -> showRecipeDetail(targetName));
+    // true when the recipe has no near-duplicates in the book or the user wants it added anyway
+    private boolean confirmDespiteDuplicates(Recipe recipe) {
+        List<Recipe> similar = duplicateIndex.similarTo(recipe);
+        if (similar.isEmpty()) {
+            return true;
+        }
+        String names = similar.stream()
+                .limit(5)
+                .map(Recipe::getName)
+                .collect(Collectors.joining("\n  ", "  ", similar.size() > 5 ? "\n  ..." : ""));
+        int choice = JOptionPane.showConfirmDialog(frame,
+                "\"" + recipe.getName() + "\" has nearly the same ingredients as:\n" + names + "\n\nAdd it anyway?",
+                "Possible Duplicate",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE);
+        return choice == JOptionPane.YES_OPTION;
+    }
+
+    private void showDuplicateReport() {
+        List<List<Recipe>> groups = duplicateIndex.duplicateGroups();
+        if (groups.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No possible duplicates found.", "Possible Duplicates",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        for (int i = 0; i < Math.min(groups.size(), DUPLICATE_REPORT_LIMIT); i++) {
+            report.append(i + 1).append(". ")
+                    .append(groups.get(i).stream().map(Recipe::getName).collect(Collectors.joining("; ")))
+                    .append('\n');
+        }
+        if (groups.size() > DUPLICATE_REPORT_LIMIT) {
+            report.append("... and ").append(groups.size() - DUPLICATE_REPORT_LIMIT).append(" more groups\n");
+        }
+        JTextArea text = new JTextArea(report.toString(), 16, 60);
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(frame, new JScrollPane(text),
+                groups.size() + " groups of recipes with nearly the same ingredients",
+                JOptionPane.PLAIN_MESSAGE);
     }
 
     private Recipe buildRecipeFromForm(RecipeFormView formView) {
@@ -328,14 +505,25 @@ public class RecipeViewController {
     }
 
     private void persistChanges() {
-        try {
-            chefRepository.saveChef(chef);
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(frame,
-                    "Failed to save recipes: " + ex.getMessage(),
-                    "Save Error",
-                    JOptionPane.ERROR_MESSAGE);
+        if (persistenceSuspended) {
+            pendingSave = true;
+            return;
         }
+        persister.markDirty();
+    }
+
+    /**
+     * Blocks until every save started so far has reached disk; used on shutdown.
+     */
+    public void flushSaves() throws InterruptedException {
+        persister.flush();
+    }
+
+    private void showSaveError(IOException ex) {
+        JOptionPane.showMessageDialog(frame,
+                "Failed to save recipes: " + ex.getMessage(),
+                "Save Error",
+                JOptionPane.ERROR_MESSAGE);
     }
 
     private void setContent(JComponent component) {
@@ -345,19 +533,58 @@ public class RecipeViewController {
     }
 
     private Optional<Recipe> findRecipeByName(String recipeName) {
-        return chef.getRecipes()
+        return chef.findRecipesByName(recipeName)
                 .stream()
                 .filter(recipe -> recipe.getName().equals(recipeName))
                 .findFirst();
     }
 
     private void showFilterDialog() {
-        String[] dietaryOptions = new String[]{
-                "Any", "None", "Vegetarian", "Vegan", "Halal", "Kosher",
-                "Gluten-free", "Dairy-free", "Nut-free", "Pescatarian", "Keto", "Other"
-        };
-        JComboBox<String> dietaryCombo = new JComboBox<>(dietaryOptions);
-        dietaryCombo.setSelectedItem(dietaryFilter);
+        // every option ticked must hold, so "Vegan" and "Gluten-free" together lists recipes that are both
+        JPanel dietaryPanel = new JPanel(new GridLayout(0, 2, 8, 2));
+        List<JCheckBox> dietaryBoxes = new ArrayList<>();
+        for (DietaryFlag flag : DietaryFlag.values()) {
+            int count = facetCounts.dietaryCount(flag);
+            JCheckBox box = new JCheckBox(flag.getLabel() + " (" + count + ")", (requiredDietaryFlags & flag.mask()) != 0);
+            // an option no recipe has would only empty the list, unless it is already ticked and needs unticking
+            box.setEnabled(count > 0 || box.isSelected());
+            dietaryBoxes.add(box);
+            dietaryPanel.add(box);
+        }
+
+        // blank bounds are open, so "Total time" with only a maximum of 30 means "30 minutes or less"
+        JPanel rangePanel = new JPanel(new GridLayout(0, 3, 8, 2));
+        rangePanel.add(new JLabel(""));
+        rangePanel.add(new JLabel("At least"));
+        rangePanel.add(new JLabel("At most"));
+        Map<RangeFilter.Field, JTextField[]> rangeFields = new EnumMap<>(RangeFilter.Field.class);
+        for (RangeFilter.Field field : RangeFilter.Field.values()) {
+            JTextField minimum = new JTextField(boundText(rangeFilter.getMinimum(field), Integer.MIN_VALUE), 4);
+            JTextField maximum = new JTextField(boundText(rangeFilter.getMaximum(field), Integer.MAX_VALUE), 4);
+            rangeFields.put(field, new JTextField[]{minimum, maximum});
+            rangePanel.add(new JLabel(rangeLabel(field)));
+            rangePanel.add(minimum);
+            rangePanel.add(maximum);
+        }
+
+        // each bucket shows how many recipes it holds and fills in its bounds when clicked
+        JPanel bucketPanel = new JPanel(new GridLayout(0, 1, 0, 2));
+        for (RangeFilter.Field field : FacetCounts.bucketedFields()) {
+            JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+            row.add(new JLabel(rangeLabel(field) + ":"));
+            JTextField[] bounds = rangeFields.get(field);
+            for (FacetCounts.Bucket bucket : facetCounts.buckets(field)) {
+                JButton button = new JButton(bucket.getLabel() + " (" + bucket.getCount() + ")");
+                button.setMargin(new Insets(1, 4, 1, 4));
+                button.setEnabled(bucket.getCount() > 0);
+                button.addActionListener(e -> {
+                    bounds[0].setText(boundText(bucket.getMinimum(), Integer.MIN_VALUE));
+                    bounds[1].setText(boundText(bucket.getMaximum(), Integer.MAX_VALUE));
+                });
+                row.add(button);
+            }
+            bucketPanel.add(row);
+        }
 
         JComboBox<SortOption> sortCombo = new JComboBox<>(SortOption.values());
         sortCombo.setRenderer((list, value, index, isSelected, cellHasFocus) -> {
@@ -373,77 +600,218 @@ public class RecipeViewController {
 
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.add(new JLabel("Dietary restriction"));
-        panel.add(dietaryCombo);
+        panel.add(new JLabel("Dietary restrictions"));
+        panel.add(dietaryPanel);
+        panel.add(Box.createVerticalStrut(8));
+        panel.add(new JLabel("Time (minutes) and servings"));
+        panel.add(rangePanel);
+        panel.add(bucketPanel);
         panel.add(Box.createVerticalStrut(8));
         panel.add(new JLabel("Sort by"));
         panel.add(sortCombo);
 
-        int result = JOptionPane.showConfirmDialog(frame, panel, "Filter & Sort",
-                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-        if (result == JOptionPane.OK_OPTION) {
-            dietaryFilter = dietaryCombo.getSelectedItem().toString();
-            sortOption = (SortOption) sortCombo.getSelectedItem();
-            refreshHomeList();
+        // the same panel is shown again after a bad bound, so nothing the user picked is lost
+        RangeFilter ranges = null;
+        while (ranges == null) {
+            int result = JOptionPane.showConfirmDialog(frame, panel, "Filter & Sort",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            if (result != JOptionPane.OK_OPTION) {
+                return;
+            }
+            ranges = parseRanges(rangeFields);
+        }
+        rangeFilter = ranges;
+        int required = 0;
+        for (int i = 0; i < dietaryBoxes.size(); i++) {
+            if (dietaryBoxes.get(i).isSelected()) {
+                required |= DietaryFlag.values()[i].mask();
+            }
+        }
+        requiredDietaryFlags = required;
+        sortOption = (SortOption) sortCombo.getSelectedItem();
+        refreshHomeList();
+    }
+
+    // returns null after telling the user about the first bound that is not a number or is out of order
+    private RangeFilter parseRanges(Map<RangeFilter.Field, JTextField[]> rangeFields) {
+        RangeFilter ranges = new RangeFilter();
+        for (RangeFilter.Field field : RangeFilter.Field.values()) {
+            JTextField[] bounds = rangeFields.get(field);
+            Integer minimum = parseBound(bounds[0].getText(), rangeLabel(field), Integer.MIN_VALUE);
+            if (minimum == null) {
+                return null;
+            }
+            Integer maximum = parseBound(bounds[1].getText(), rangeLabel(field), Integer.MAX_VALUE);
+            if (maximum == null) {
+                return null;
+            }
+            if (minimum > maximum) {
+                showValidationError(rangeLabel(field) + ": \"At least\" cannot be more than \"At most\".");
+                return null;
+            }
+            ranges.setAtLeast(field, minimum).setAtMost(field, maximum);
         }
+        return ranges;
+    }
+
+    private static String rangeLabel(RangeFilter.Field field) {
+        switch (field) {
+            case PREP_TIME:
+                return "Prep time";
+            case COOK_TIME:
+                return "Cook time";
+            case TOTAL_TIME:
+                return "Total time";
+            case SERVINGS:
+            default:
+                return "Servings";
+        }
+    }
+
+    private static String boundText(int bound, int open) {
+        return bound == open ? "" : Integer.toString(bound);
     }
 
+    // a blank bound is {@code open}; returns null after telling the user when the text is not a number
+    private Integer parseBound(String text, String label, int open) {
+        String trimmed = text == null ? "" : text.trim();
+        if (trimmed.isEmpty()) {
+            return open;
+        }
+        try {
+            return Integer.parseInt(trimmed);
+        } catch (NumberFormatException ex) {
+            showValidationError(label + " must be a number.");
+            return null;
+        }
+    }
+
+    /**
+     * Lists the recipes passing the current search, filters and sort. On a large book the query runs off
+     * this thread and the list is filled in when it finishes, unless the filters or the book change first.
+     */
     public void refreshHomeList() {
-        List<Recipe> filtered = chef.getRecipes().stream()
-                .filter(this::matchesDietary)
-                .sorted(buildComparator())
-                .collect(Collectors.toList());
-        homeView.setRecipes(filtered);
+        homeListStale = false;
+        if (pendingHomeList != null) {
+            pendingHomeList.cancel(false);
+        }
+        RecipeQuery query = buildQuery();
+        CompletableFuture<List<Recipe>> listing = queryEngine.submit(query);
+        if (listing.isDone()) {
+            pendingHomeList = null;
+            homeView.setRecipes(listing.join());
+        } else {
+            pendingHomeList = listing;
+            listing.whenComplete((recipes, failure) -> SwingUtilities.invokeLater(() -> {
+                if (pendingHomeList != listing) {
+                    return;
+                }
+                pendingHomeList = null;
+                // a query that failed on a worker is run again here, where it can fail visibly
+                homeView.setRecipes(failure == null ? recipes : queryEngine.execute(query));
+            }));
+        }
+        refreshQuickPicks();
     }
 
-    private boolean matchesDietary(Recipe recipe) {
-        if (dietaryFilter == null || dietaryFilter.equalsIgnoreCase("Any")) {
-            return true;
+    private void markHomeListStale() {
+        homeListStale = true;
+        if (pendingHomeList != null) {
+            pendingHomeList.cancel(false);
+            pendingHomeList = null;
         }
-        String dietary = recipe.getDietaryRestrictions();
-        String target = dietaryFilter.trim();
-        if (target.equalsIgnoreCase("None")) {
-            return dietary == null || dietary.isBlank() || dietary.equalsIgnoreCase("None");
-        }
-        return dietary != null && dietary.equalsIgnoreCase(target);
-    }
-
-    private Comparator<Recipe> buildComparator() {
-        switch (sortOption) {
-            case PREP_ASC:
-                return Comparator.comparingInt(Recipe::getPrepTime);
-            case PREP_DESC:
-                return Comparator.comparingInt(Recipe::getPrepTime).reversed();
-            case COOK_ASC:
-                return Comparator.comparingInt(Recipe::getCookTime);
-            case COOK_DESC:
-                return Comparator.comparingInt(Recipe::getCookTime).reversed();
-            case SERVES_ASC:
-                return Comparator.comparingInt(Recipe::getServings);
-            case SERVES_DESC:
-                return Comparator.comparingInt(Recipe::getServings).reversed();
-            case NAME_ASC:
-                return Comparator.comparing(Recipe::getName, String.CASE_INSENSITIVE_ORDER);
-            case NONE:
-            default:
-                return (a, b) -> 0;
+    }
+
+    /**
+     * The five or fewer recipes passing the dietary and range filters with the smallest
+     * {@code field}, or the largest when {@code largest} is set, best first.
+     */
+    public List<Recipe> topRecipes(RangeFilter.Field field, boolean largest) {
+        int count = quickPickSelector.select(chef.getRecipes(), field, largest, homeFilter, quickPicks);
+        // the selector now holds this selection, which need not be the one on screen
+        pickedGeneration = -1;
+        List<Recipe> top = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            top.add(quickPicks[i]);
         }
+        return top;
+    }
+
+    /**
+     * Chooses the quick picks again if the book, the dietary and range filters or the pick order changed
+     * since they were last chosen; the search text does not affect them.
+     */
+    private void refreshQuickPicks() {
+        if (quickPicksCurrent()) {
+            return;
+        }
+        boolean byServings = homeView.isQuickPickByServings();
+        RangeFilter.Field field = byServings ? RangeFilter.Field.SERVINGS : RangeFilter.Field.TOTAL_TIME;
+        int count = quickPickSelector.select(chef.getRecipes(), field, byServings, homeFilter, quickPicks);
+        pickedGeneration = chef.generation();
+        pickedRange = rangeFilter;
+        pickedDietaryFlags = requiredDietaryFlags;
+        pickedByServings = byServings;
+        showQuickPicks(count);
+    }
+
+    // the filter dialog replaces rangeFilter rather than changing it, so comparing identity is enough
+    private boolean quickPicksCurrent() {
+        return pickedGeneration == chef.generation()
+                && pickedRange == rangeFilter
+                && pickedDietaryFlags == requiredDietaryFlags
+                && pickedByServings == homeView.isQuickPickByServings();
+    }
+
+    private void showQuickPicks(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(quickPicks[i].getName());
+        }
+        homeView.setQuickPicks(names);
+    }
+
+    private RecipeQuery buildQuery() {
+        return new RecipeQuery()
+                .setText(searchQuery)
+                .setDietaryFlags(requiredDietaryFlags)
+                .setRange(rangeFilter)
+                .setSort(sortOption.key, sortOption.descending)
+                // nothing matching as typed is more likely a spelling mistake than a missing recipe
+                .setTypoTolerant(true);
+    }
+
+    private void showNameSuggestions(String prefix) {
+        int count = prefix.isEmpty() ? 0 : nameTrie.complete(prefix, suggestions);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(suggestions[i].getName());
+        }
+        homeView.showSuggestions(names);
+    }
+
+    private boolean isDefaultView() {
+        return searchQuery.isEmpty() && rangeFilter.isEmpty() && requiredDietaryFlags == 0 && sortOption == SortOption.NONE;
     }
 
     private enum SortOption {
-        NONE("Default order"),
-        NAME_ASC("Name A-Z"),
-        PREP_ASC("Prep time (low-high)"),
-        PREP_DESC("Prep time (high-low)"),
-        COOK_ASC("Cook time (low-high)"),
-        COOK_DESC("Cook time (high-low)"),
-        SERVES_ASC("Servings (low-high)"),
-        SERVES_DESC("Servings (high-low)");
+        NONE("Default order", null, false),
+        NAME_ASC("Name A-Z", SortKey.NAME, false),
+        PREP_ASC("Prep time (low-high)", SortKey.PREP_TIME, false),
+        PREP_DESC("Prep time (high-low)", SortKey.PREP_TIME, true),
+        COOK_ASC("Cook time (low-high)", SortKey.COOK_TIME, false),
+        COOK_DESC("Cook time (high-low)", SortKey.COOK_TIME, true),
+        SERVES_ASC("Servings (low-high)", SortKey.SERVINGS, false),
+        SERVES_DESC("Servings (high-low)", SortKey.SERVINGS, true);
 
         private final String label;
+        private final SortKey key;
+        private final boolean descending;
 
-        SortOption(String label) {
+        SortOption(String label, SortKey key, boolean descending) {
             this.label = label;
+            this.key = key;
+            this.descending = descending;
         }
 
         public String getLabel() {
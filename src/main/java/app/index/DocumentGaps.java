@@ -0,0 +1,23 @@
+package app.index;
+
+/**
+ * When an index renumbers its documents. The indexes in this package give each recipe the next unused id,
+ * so ids follow book order, and never reuse the id of a removed recipe; the gaps are closed by indexing the
+ * book again from scratch. Doing that once the gaps outnumber the live ids keeps renumbering O(1) amortized
+ * per removal, and the floor keeps a small book from being renumbered on every delete.
+ */
+final class DocumentGaps {
+
+    static final int MIN_GAPS = 1024;
+
+    private DocumentGaps() {
+    }
+
+    /**
+     * Whether an index that has handed out {@code ids} ids, {@code live} of them still in use, should
+     * renumber.
+     */
+    static boolean worthClosing(int ids, int live) {
+        return ids - live > Math.max(MIN_GAPS, live);
+    }
+}
@@ -0,0 +1,378 @@
+package app.index;
+
+import entities.Chef;
+import entities.ChefListener;
+import entities.Ingredient;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Finds recipes whose ingredients are nearly the same, such as one imported twice with a different name or
+ * an extra garnish. Each recipe's ingredient words, normalized as
+ * {@link PantryIndex#ingredientKey(Ingredient)} does, get a MinHash signature; the signature is cut into
+ * bands and every band is filed in a {@link SortedColumn} of (band hash, document id) pairs, so recipes
+ * sharing any band are candidates without comparing every pair. Candidates count as duplicates when their
+ * ingredient word sets have a Jaccard similarity of at least {@link #SIMILARITY}.
+ *
+ * <p>With {@value #BANDS} bands of {@value #ROWS} rows, pairs at that similarity share a band with
+ * probability above 0.999 and pairs at 0.5 about 0.64 of the time, which the exact check then
+ * rejects.
+ */
+public class DuplicateIndex implements ChefListener {
+
+    /**
+     * Lowest Jaccard similarity of two recipes' ingredient words for them to count as duplicates.
+     */
+    public static final double SIMILARITY = 0.8;
+
+    static final int BANDS = 16;
+    static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    // odd, so multiplying by one is a bijection on 64-bit words
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    // each bucket compares a member against at most this many groups, so a crowded bucket stays linear
+    private static final int MAX_GROUPS_PER_BUCKET = 64;
+    private static final int[] NO_WORDS = new int[0];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            MULTIPLIERS[i] = seed | 1;
+        }
+    }
+
+    private final Chef chef;
+    private final Map<Recipe, Integer> docIds = new IdentityHashMap<>();
+    private Recipe[] docs = new Recipe[16];
+    // sorted distinct hashes of each document's ingredient words, for the exact similarity check
+    private int[][] docWords = new int[16][];
+    private final SortedColumn[] bands = new SortedColumn[BANDS];
+    private int nextDoc;
+
+    public DuplicateIndex(Chef chef) {
+        this.chef = chef;
+        for (int b = 0; b < BANDS; b++) {
+            bands[b] = new SortedColumn();
+        }
+        chef.getRecipes().forEach(this::addDocument);
+        chef.addListener(this);
+    }
+
+    /**
+     * Recipes in the book, other than {@code recipe} itself, whose ingredients are near-duplicates of its
+     * own, in book order. {@code recipe} need not be in the book, so a new recipe can be checked before it
+     * is saved.
+     */
+    public List<Recipe> similarTo(Recipe recipe) {
+        int[] words = wordsOf(recipe);
+        if (words.length == 0) {
+            return List.of();
+        }
+        int[] signature = signature(words);
+        int[] candidates = new int[16];
+        int count = 0;
+        for (int b = 0; b < BANDS; b++) {
+            SortedColumn band = bands[b];
+            int bandHash = bandHash(signature, b);
+            int needed = count + band.count(bandHash, bandHash);
+            if (needed > candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(needed, candidates.length * 2));
+            }
+            count += band.docs(bandHash, bandHash, candidates, count);
+        }
+        // document ids follow book order
+        Arrays.sort(candidates, 0, count);
+        List<Recipe> similar = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int doc = candidates[i];
+            if ((i > 0 && candidates[i - 1] == doc) || docs[doc] == null || docs[doc] == recipe) {
+                continue;
+            }
+            if (similarity(words, docWords[doc]) >= SIMILARITY) {
+                similar.add(docs[doc]);
+            }
+        }
+        return similar;
+    }
+
+    /**
+     * Every group of two or more recipes that are near-duplicates of one another, each in book order and
+     * the groups ordered by their first recipe. A recipe joins a group when it is similar to the group's
+     * first member found in a shared band, so a chain of small differences can still end up together.
+     */
+    public List<List<Recipe>> duplicateGroups() {
+        int[] parent = new int[nextDoc];
+        for (int doc = 0; doc < nextDoc; doc++) {
+            parent[doc] = doc;
+        }
+        int[] groups = new int[MAX_GROUPS_PER_BUCKET];
+        for (SortedColumn band : bands) {
+            int size = band.size();
+            long[] entries = band.sortedEntries();
+            int start = 0;
+            while (start < size) {
+                int bandHash = SortedColumn.key(entries[start]);
+                int end = start + 1;
+                while (end < size && SortedColumn.key(entries[end]) == bandHash) {
+                    end++;
+                }
+                if (end - start > 1) {
+                    groupBucket(entries, start, end, parent, groups);
+                }
+                start = end;
+            }
+        }
+        int[] groupSizes = new int[nextDoc];
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (docs[doc] != null) {
+                groupSizes[find(parent, doc)]++;
+            }
+        }
+        // roots are the earliest member of their group, so first-seen order is the order of first recipes
+        Map<Integer, List<Recipe>> byRoot = new LinkedHashMap<>();
+        for (int doc = 0; doc < nextDoc; doc++) {
+            int root = find(parent, doc);
+            if (docs[doc] != null && groupSizes[root] > 1) {
+                byRoot.computeIfAbsent(root, key -> new ArrayList<>(groupSizes[key])).add(docs[doc]);
+            }
+        }
+        return new ArrayList<>(byRoot.values());
+    }
+
+    public void detach() {
+        chef.removeListener(this);
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        addDocument(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        Integer doc = docIds.get(recipe);
+        if (doc == null) {
+            addDocument(recipe);
+            return;
+        }
+        int[] words = wordsOf(recipe);
+        if (Arrays.equals(words, docWords[doc])) {
+            return;
+        }
+        unfile(doc, docWords[doc]);
+        docWords[doc] = words;
+        file(doc, words);
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        Integer doc = docIds.remove(recipe);
+        if (doc == null) {
+            return;
+        }
+        unfile(doc, docWords[doc]);
+        docs[doc] = null;
+        docWords[doc] = null;
+        if (DocumentGaps.worthClosing(nextDoc, docIds.size())) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void recipesReplaced() {
+        rebuild();
+    }
+
+    private void groupBucket(long[] entries, int start, int end, int[] parent, int[] groups) {
+        int groupCount = 0;
+        for (int i = start; i < end; i++) {
+            int doc = SortedColumn.doc(entries[i]);
+            if (docs[doc] == null) {
+                continue;
+            }
+            boolean grouped = false;
+            for (int g = 0; g < groupCount; g++) {
+                int first = groups[g];
+                if (find(parent, first) == find(parent, doc)) {
+                    grouped = true;
+                } else if (similarity(docWords[first], docWords[doc]) >= SIMILARITY) {
+                    union(parent, first, doc);
+                    grouped = true;
+                }
+            }
+            if (!grouped && groupCount < groups.length) {
+                groups[groupCount++] = doc;
+            }
+        }
+    }
+
+    private void rebuild() {
+        docIds.clear();
+        docs = new Recipe[16];
+        docWords = new int[16][];
+        for (int b = 0; b < BANDS; b++) {
+            bands[b] = new SortedColumn();
+        }
+        nextDoc = 0;
+        chef.getRecipes().forEach(this::addDocument);
+    }
+
+    private void addDocument(Recipe recipe) {
+        if (docIds.containsKey(recipe)) {
+            return;
+        }
+        int doc = nextDoc++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, doc * 2);
+            docWords = Arrays.copyOf(docWords, doc * 2);
+        }
+        docs[doc] = recipe;
+        docIds.put(recipe, doc);
+        int[] words = wordsOf(recipe);
+        docWords[doc] = words;
+        file(doc, words);
+    }
+
+    private void file(int doc, int[] words) {
+        if (words.length == 0) {
+            // recipes without ingredients say nothing about being copies
+            return;
+        }
+        int[] signature = signature(words);
+        for (int b = 0; b < BANDS; b++) {
+            bands[b].add(bandHash(signature, b), doc);
+        }
+    }
+
+    private void unfile(int doc, int[] words) {
+        if (words.length == 0) {
+            return;
+        }
+        int[] signature = signature(words);
+        for (int b = 0; b < BANDS; b++) {
+            bands[b].remove(bandHash(signature, b), doc);
+        }
+    }
+
+    static int[] wordsOf(Recipe recipe) {
+        WordHashes hashes = new WordHashes();
+        for (Ingredient ingredient : recipe.parsedIngredients()) {
+            Tokenizer.tokenize(ingredient.getItem(), hashes);
+        }
+        return hashes.sortedDistinct();
+    }
+
+    private static int[] signature(int[] words) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int word : words) {
+            // one strong mix per word, then a cheap multiply-shift per hash function
+            long mixed = mix(word);
+            for (int h = 0; h < HASHES; h++) {
+                signature[h] = Math.min(signature[h], (int) ((mixed * MULTIPLIERS[h]) >>> 32));
+            }
+        }
+        return signature;
+    }
+
+    private static int bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int r = band * ROWS; r < (band + 1) * ROWS; r++) {
+            hash = mix(hash * 31 + signature[r]);
+        }
+        return (int) (hash >>> 32);
+    }
+
+    /**
+     * Jaccard similarity of two sorted, distinct word hash arrays.
+     */
+    static double similarity(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    // SplitMix64 finalizer: spreads every input bit across the whole word
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static int find(int[] parent, int doc) {
+        while (parent[doc] != doc) {
+            parent[doc] = parent[parent[doc]];
+            doc = parent[doc];
+        }
+        return doc;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        // the earlier document stays the root, which keeps a group's first recipe stable
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Collects the hashes of the ingredient-naming words handed to it, as {@link PantryIndex#ingredientKey(Ingredient)}
+     * would keep them, without building the keys themselves.
+     */
+    private static final class WordHashes implements Consumer<String> {
+
+        private int[] hashes = new int[16];
+        private int count;
+
+        @Override
+        public void accept(String word) {
+            if (!PantryIndex.namesIngredient(word)) {
+                return;
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+            }
+            hashes[count++] = word.hashCode();
+        }
+
+        int[] sortedDistinct() {
+            if (count == 0) {
+                return NO_WORDS;
+            }
+            Arrays.sort(hashes, 0, count);
+            int distinct = 1;
+            for (int i = 1; i < count; i++) {
+                if (hashes[i] != hashes[distinct - 1]) {
+                    hashes[distinct++] = hashes[i];
+                }
+            }
+            return Arrays.copyOf(hashes, distinct);
+        }
+    }
+}
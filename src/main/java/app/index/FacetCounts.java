@@ -0,0 +1,205 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import entities.Chef;
+import entities.ChefListener;
+import entities.DietaryFlag;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How many recipes each filter option would list: one count per {@link DietaryFlag} and per bucket of
+ * total time and servings. Every added, edited or removed recipe adjusts the counts it falls under, so
+ * reading them costs the number of options rather than a pass over the book. Use it on the thread that
+ * mutates the chef.
+ */
+public class FacetCounts implements ChefListener {
+
+    // upper bounds of every bucket but the last, which is open
+    private static final Map<Field, int[]> BUCKET_LIMITS = new EnumMap<>(Field.class);
+
+    static {
+        BUCKET_LIMITS.put(Field.TOTAL_TIME, new int[]{15, 30, 60, 120});
+        BUCKET_LIMITS.put(Field.SERVINGS, new int[]{2, 4, 6});
+    }
+
+    private static final Field[] BUCKETED = BUCKET_LIMITS.keySet().toArray(new Field[0]);
+
+    private final Chef chef;
+    // what each recipe was counted under: its dietary mask, then its bucket for each bucketed field
+    private final Map<Recipe, int[]> counted = new IdentityHashMap<>();
+    private final int[] dietaryCounts = new int[DietaryFlag.values().length];
+    private final int[][] bucketCounts = new int[BUCKETED.length][];
+
+    public FacetCounts(Chef chef) {
+        this.chef = chef;
+        for (int f = 0; f < BUCKETED.length; f++) {
+            bucketCounts[f] = new int[BUCKET_LIMITS.get(BUCKETED[f]).length + 1];
+        }
+        chef.getRecipes().forEach(this::count);
+        chef.addListener(this);
+    }
+
+    /**
+     * Number of recipes with {@code flag}.
+     */
+    public int dietaryCount(DietaryFlag flag) {
+        return dietaryCounts[flag.ordinal()];
+    }
+
+    /**
+     * The fields {@link #buckets} can be asked for.
+     */
+    public static List<Field> bucketedFields() {
+        return List.of(BUCKETED);
+    }
+
+    /**
+     * {@code field}'s buckets in ascending order, each with the number of recipes in it.
+     */
+    public List<Bucket> buckets(Field field) {
+        int[] limits = BUCKET_LIMITS.get(field);
+        if (limits == null) {
+            throw new IllegalArgumentException("no buckets for " + field);
+        }
+        int[] counts = bucketCounts[indexOf(field)];
+        List<Bucket> buckets = new ArrayList<>(counts.length);
+        for (int b = 0; b < counts.length; b++) {
+            int minimum = b == 0 ? Integer.MIN_VALUE : limits[b - 1] + 1;
+            int maximum = b == limits.length ? Integer.MAX_VALUE : limits[b];
+            buckets.add(new Bucket(minimum, maximum, counts[b]));
+        }
+        return buckets;
+    }
+
+    /**
+     * Number of recipes counted, which is the number of distinct recipe objects in the book.
+     */
+    public int size() {
+        return counted.size();
+    }
+
+    public void detach() {
+        chef.removeListener(this);
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        count(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        uncount(recipe);
+        count(recipe);
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        uncount(recipe);
+    }
+
+    @Override
+    public void recipesReplaced() {
+        counted.clear();
+        Arrays.fill(dietaryCounts, 0);
+        for (int[] counts : bucketCounts) {
+            Arrays.fill(counts, 0);
+        }
+        chef.getRecipes().forEach(this::count);
+    }
+
+    private void count(Recipe recipe) {
+        if (counted.containsKey(recipe)) {
+            return;
+        }
+        int[] filed = new int[1 + BUCKETED.length];
+        filed[0] = DietaryFlag.mask(recipe.dietaryFlags());
+        for (int f = 0; f < BUCKETED.length; f++) {
+            filed[f + 1] = bucketOf(BUCKET_LIMITS.get(BUCKETED[f]), BUCKETED[f].valueOf(recipe));
+        }
+        counted.put(recipe, filed);
+        adjust(filed, 1);
+    }
+
+    private void uncount(Recipe recipe) {
+        int[] filed = counted.remove(recipe);
+        if (filed != null) {
+            adjust(filed, -1);
+        }
+    }
+
+    private void adjust(int[] filed, int delta) {
+        for (int mask = filed[0]; mask != 0; mask &= mask - 1) {
+            dietaryCounts[Integer.numberOfTrailingZeros(mask)] += delta;
+        }
+        for (int f = 0; f < BUCKETED.length; f++) {
+            bucketCounts[f][filed[f + 1]] += delta;
+        }
+    }
+
+    private static int bucketOf(int[] limits, int value) {
+        int b = 0;
+        while (b < limits.length && value > limits[b]) {
+            b++;
+        }
+        return b;
+    }
+
+    private static int indexOf(Field field) {
+        for (int f = 0; f < BUCKETED.length; f++) {
+            if (BUCKETED[f] == field) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One range of a field's values and how many recipes fall in it. Open ends are
+     * {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE}, as in {@link RangeFilter}.
+     */
+    public static final class Bucket {
+
+        private final int minimum;
+        private final int maximum;
+        private final int count;
+
+        Bucket(int minimum, int maximum, int count) {
+            this.minimum = minimum;
+            this.maximum = maximum;
+            this.count = count;
+        }
+
+        public int getMinimum() {
+            return minimum;
+        }
+
+        public int getMaximum() {
+            return maximum;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * "15 or less", "16-30" or "121 or more".
+         */
+        public String getLabel() {
+            if (minimum == Integer.MIN_VALUE) {
+                return maximum + " or less";
+            }
+            if (maximum == Integer.MAX_VALUE) {
+                return minimum + " or more";
+            }
+            return minimum + "-" + maximum;
+        }
+    }
+}
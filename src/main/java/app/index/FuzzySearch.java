@@ -0,0 +1,265 @@
+package app.index;
+
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant search on top of an {@link InvertedIndex}. Each query word is matched against the index's
+ * vocabulary rather than against recipes: words sharing enough trigrams with it become candidates, and a
+ * Levenshtein check with a small edit budget confirms them. Recipes then need a match for every query word
+ * and are ranked by their total number of edits.
+ *
+ * <p>The trigram index covers the vocabulary, which only grows, so it catches up on new words at the start
+ * of each query instead of listening to the chef itself; it is read on the same thread as that index.
+ */
+public class FuzzySearch {
+
+    private final InvertedIndex index;
+    // trigram -> ids of the vocabulary words containing it
+    private final Map<String, PostingList> gramTerms = new HashMap<>();
+    private int indexedTerms;
+    private int indexedGeneration;
+    private int[] gramCounts = new int[0];
+    // the vocabulary words similarTerms accepted, with their edit distances
+    private int[] matchedTerms = new int[16];
+    private int[] matchedEdits = new int[16];
+    private int matchedCount;
+    private int[] previousRow = new int[0];
+    private int[] currentRow = new int[0];
+    // per-query scratch, kept between queries; only the touched documents' entries are non-zero afterwards,
+    // and search clears those before it returns
+    private int[] hits = new int[0];
+    private int[] edits = new int[0];
+    private int[] best = new int[0];
+    private int[] touched = new int[16];
+    private int touchedCount;
+    private long[] ranked = new long[0];
+    private int[] candidates = new int[16];
+
+    public FuzzySearch(InvertedIndex index) {
+        this.index = index;
+        this.indexedGeneration = index.generation();
+    }
+
+    /**
+     * How many typing mistakes a word of this length may contain and still match: none for one or two
+     * letters, one up to five letters, two beyond that.
+     */
+    public static int allowedEdits(int wordLength) {
+        if (wordLength <= 2) {
+            return 0;
+        }
+        return wordLength <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Up to {@code limit} recipes matching every word of {@code query} within {@link #allowedEdits}, fewest
+     * total edits first and in book order among equals.
+     */
+    public List<Recipe> search(String query, int limit) {
+        Set<String> words = Tokenizer.distinctTokens(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        catchUp();
+        int documents = index.documentLimit();
+        if (hits.length < documents) {
+            hits = new int[documents];
+            edits = new int[documents];
+            best = new int[documents];
+        }
+        try {
+            return rank(words, limit);
+        } finally {
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                hits[doc] = 0;
+                edits[doc] = 0;
+                best[doc] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    private List<Recipe> rank(Set<String> words, int limit) {
+        int word = 0;
+        for (String text : words) {
+            word++;
+            similarTerms(text);
+            boolean matchedAny = false;
+            for (int m = 0; m < matchedCount; m++) {
+                int distance = matchedEdits[m];
+                PostingList postings = index.postings(matchedTerms[m]);
+                for (int p = 0; p < postings.size(); p++) {
+                    int doc = postings.get(p);
+                    if (hits[doc] == word - 1) {
+                        // first match for this word; only documents that matched every earlier word count
+                        hits[doc] = word;
+                        edits[doc] += distance;
+                        best[doc] = distance;
+                        matchedAny = true;
+                        if (word == 1) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = doc;
+                        }
+                    } else if (hits[doc] == word && distance < best[doc]) {
+                        edits[doc] -= best[doc] - distance;
+                        best[doc] = distance;
+                    }
+                }
+            }
+            if (!matchedAny) {
+                return List.of();
+            }
+        }
+        int matchedWords = word;
+        if (ranked.length < touchedCount) {
+            ranked = new long[touched.length];
+        }
+        int kept = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (hits[doc] == matchedWords) {
+                // fewest edits first, then document order, which is book order
+                ranked[kept++] = (long) edits[doc] << 32 | doc;
+            }
+        }
+        Arrays.sort(ranked, 0, kept);
+        List<Recipe> results = new ArrayList<>(Math.min(kept, limit));
+        for (int i = 0; i < kept && results.size() < limit; i++) {
+            results.add(index.document((int) ranked[i]));
+        }
+        return results;
+    }
+
+    private void similarTerms(String word) {
+        matchedCount = 0;
+        int budget = allowedEdits(word.length());
+        if (budget == 0) {
+            int termId = index.termId(word);
+            if (termId >= 0) {
+                addMatch(termId, 0);
+            }
+            return;
+        }
+        if (gramCounts.length < index.termCount()) {
+            gramCounts = new int[index.termCount()];
+        }
+        List<String> grams = trigrams(word);
+        // each edit can break at most three of the word's trigrams
+        int needed = grams.size() - 3 * budget;
+        int candidateCount = 0;
+        for (String gram : grams) {
+            PostingList terms = gramTerms.get(gram);
+            if (terms == null) {
+                continue;
+            }
+            for (int i = 0; i < terms.size(); i++) {
+                int termId = terms.get(i);
+                if (gramCounts[termId]++ == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = termId;
+                }
+            }
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            int termId = candidates[i];
+            if (gramCounts[termId] >= needed) {
+                int distance = boundedDistance(word, index.term(termId), budget);
+                if (distance <= budget) {
+                    addMatch(termId, distance);
+                }
+            }
+            gramCounts[termId] = 0;
+        }
+    }
+
+    private void addMatch(int termId, int distance) {
+        if (matchedCount == matchedTerms.length) {
+            matchedTerms = Arrays.copyOf(matchedTerms, matchedCount * 2);
+            matchedEdits = Arrays.copyOf(matchedEdits, matchedCount * 2);
+        }
+        matchedTerms[matchedCount] = termId;
+        matchedEdits[matchedCount++] = distance;
+    }
+
+    /**
+     * Levenshtein distance between {@code a} and {@code b}, or {@code budget + 1} as soon as it is known to
+     * exceed {@code budget}. Only the diagonal band of width {@code 2 * budget + 1} is filled in.
+     */
+    int boundedDistance(String a, String b, int budget) {
+        if (Math.abs(a.length() - b.length()) > budget) {
+            return budget + 1;
+        }
+        int width = b.length() + 1;
+        if (previousRow.length < width) {
+            previousRow = new int[width];
+            currentRow = new int[width];
+        }
+        int outside = budget + 1;
+        for (int j = 0; j < width; j++) {
+            previousRow[j] = Math.min(j, outside);
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - budget);
+            int to = Math.min(b.length(), i + budget);
+            currentRow[0] = Math.min(i, outside);
+            if (from > 1) {
+                currentRow[from - 1] = outside;
+            }
+            int rowMinimum = currentRow[0] <= budget && from == 1 ? currentRow[0] : outside;
+            for (int j = from; j <= to; j++) {
+                int substitution = previousRow[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                int deletion = previousRow[j] + 1;
+                int insertion = currentRow[j - 1] + 1;
+                int cell = Math.min(outside, Math.min(substitution, Math.min(deletion, insertion)));
+                currentRow[j] = cell;
+                rowMinimum = Math.min(rowMinimum, cell);
+            }
+            if (to < b.length()) {
+                currentRow[to + 1] = outside;
+            }
+            if (rowMinimum > budget) {
+                return outside;
+            }
+            int[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+        return previousRow[b.length()];
+    }
+
+    private void catchUp() {
+        if (indexedGeneration != index.generation()) {
+            gramTerms.clear();
+            indexedTerms = 0;
+            indexedGeneration = index.generation();
+        }
+        for (; indexedTerms < index.termCount(); indexedTerms++) {
+            for (String gram : trigrams(index.term(indexedTerms))) {
+                gramTerms.computeIfAbsent(gram, g -> new PostingList()).add(indexedTerms);
+            }
+        }
+    }
+
+    // padded so that the start and end of a word count as trigrams of their own: "soup" gives
+    // "  s", " so", "sou", "oup" and "up "
+    private static List<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
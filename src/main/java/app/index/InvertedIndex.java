@@ -0,0 +1,243 @@
+package app.index;
+
+import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Full-text index over recipe names, ingredients and steps. Every recipe gets a document id in the order
+ * it joined the book, and every word maps to the sorted ids of the recipes containing it, so a query
+ * intersects a few int arrays instead of scanning recipe text. It follows the chef's mutations as a
+ * {@link ChefListener}.
+ */
+public class InvertedIndex implements ChefListener {
+
+    private static final int[] NO_TERMS = new int[0];
+
+    private final Chef chef;
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private final Map<Recipe, Integer> docIds = new IdentityHashMap<>();
+    private Recipe[] docs = new Recipe[16];
+    // the term ids each document was indexed under, so an edit can take it out of exactly those lists
+    private int[][] docTerms = new int[16][];
+    private int nextDoc;
+    // bumped whenever term and document ids are reassigned, so derived indexes know to start over
+    private int generation;
+
+    /**
+     * Indexes {@code chef}'s current recipes and starts following its changes.
+     */
+    public InvertedIndex(Chef chef) {
+        this.chef = chef;
+        chef.getRecipes().forEach(this::addDocument);
+        chef.addListener(this);
+    }
+
+    /**
+     * Recipes containing every word of {@code query}, in book order. A query without words matches nothing.
+     */
+    public List<Recipe> search(String query) {
+        Set<String> words = Tokenizer.distinctTokens(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        PostingList[] lists = new PostingList[words.size()];
+        int i = 0;
+        for (String word : words) {
+            Integer termId = termIds.get(word);
+            if (termId == null || postings.get(termId).size() == 0) {
+                return List.of();
+            }
+            lists[i++] = postings.get(termId);
+        }
+        // intersecting from the rarest word keeps the candidate set as small as possible throughout
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        int[] candidates = lists[0].toArray();
+        int count = candidates.length;
+        for (int j = 1; j < lists.length && count > 0; j++) {
+            count = lists[j].retainIn(candidates, count);
+        }
+        List<Recipe> matches = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            matches.add(docs[candidates[j]]);
+        }
+        return matches;
+    }
+
+    /**
+     * Whether {@code recipe} contains every word of {@code query}, answered from the words it was indexed
+     * under rather than by reading its text again.
+     */
+    public boolean contains(Recipe recipe, String query) {
+        Integer doc = docIds.get(recipe);
+        if (doc == null) {
+            return false;
+        }
+        int[] indexed = docTerms[doc];
+        for (String word : Tokenizer.distinctTokens(query)) {
+            Integer termId = termIds.get(word);
+            if (termId == null || !containsTerm(indexed, termId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of recipes containing {@code word}.
+     */
+    public int documentFrequency(String word) {
+        Integer termId = termIds.get(word);
+        return termId == null ? 0 : postings.get(termId).size();
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * Number of distinct words seen; word ids run from zero to this, in order of first appearance.
+     */
+    int termCount() {
+        return terms.size();
+    }
+
+    int termId(String word) {
+        Integer termId = termIds.get(word);
+        return termId == null ? -1 : termId;
+    }
+
+    String term(int termId) {
+        return terms.get(termId);
+    }
+
+    PostingList postings(int termId) {
+        return postings.get(termId);
+    }
+
+    int documentLimit() {
+        return nextDoc;
+    }
+
+    Recipe document(int doc) {
+        return docs[doc];
+    }
+
+    public void detach() {
+        chef.removeListener(this);
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        addDocument(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        Integer doc = docIds.get(recipe);
+        if (doc == null) {
+            addDocument(recipe);
+            return;
+        }
+        unpost(doc);
+        docTerms[doc] = post(doc, recipe);
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        Integer doc = docIds.remove(recipe);
+        if (doc == null) {
+            return;
+        }
+        unpost(doc);
+        docs[doc] = null;
+        docTerms[doc] = null;
+        // ids are never reused so results stay in book order; once most ids are gaps, renumber
+        if (DocumentGaps.worthClosing(nextDoc, docIds.size())) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void recipesReplaced() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        generation++;
+        termIds.clear();
+        terms.clear();
+        postings.clear();
+        docIds.clear();
+        docs = new Recipe[16];
+        docTerms = new int[16][];
+        nextDoc = 0;
+        chef.getRecipes().forEach(this::addDocument);
+    }
+
+    private void addDocument(Recipe recipe) {
+        if (docIds.containsKey(recipe)) {
+            // the same recipe object listed twice is indexed once
+            return;
+        }
+        int doc = nextDoc++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, doc * 2);
+            docTerms = Arrays.copyOf(docTerms, doc * 2);
+        }
+        docs[doc] = recipe;
+        docIds.put(recipe, doc);
+        docTerms[doc] = post(doc, recipe);
+    }
+
+    private int[] post(int doc, Recipe recipe) {
+        Set<String> words = new LinkedHashSet<>();
+        Tokenizer.tokenize(recipe.getName(), words::add);
+        recipe.getIngredients().forEach(line -> Tokenizer.tokenize(line, words::add));
+        recipe.getSteps().forEach(line -> Tokenizer.tokenize(line, words::add));
+        if (words.isEmpty()) {
+            return NO_TERMS;
+        }
+        int[] indexed = new int[words.size()];
+        int i = 0;
+        for (String word : words) {
+            Integer termId = termIds.get(word);
+            if (termId == null) {
+                termId = postings.size();
+                termIds.put(word, termId);
+                terms.add(word);
+                postings.add(new PostingList());
+            }
+            postings.get(termId).add(doc);
+            indexed[i++] = termId;
+        }
+        return indexed;
+    }
+
+    // a recipe has a few dozen distinct words, so a scan beats keeping them sorted
+    private static boolean containsTerm(int[] indexed, int termId) {
+        for (int id : indexed) {
+            if (id == termId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unpost(int doc) {
+        for (int termId : docTerms[doc]) {
+            postings.get(termId).remove(doc);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package app.index;
+
+import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
+
+import java.util.Arrays;
+
+/**
+ * Completes recipe names as they are typed. Names are case-folded the way {@link Chef#foldName} does and
+ * stored in a compressed trie, where a chain of single-child nodes collapses into one edge label, so a
+ * lookup walks at most one node per typed character and then reads matches off in alphabetical order.
+ * Lookups write into a caller-supplied array and allocate nothing. Like the other indexes here it follows
+ * the chef's mutations as a {@link ChefListener}.
+ */
+public class NameTrie implements ChefListener {
+
+    private static final Recipe[] NO_RECIPES = new Recipe[0];
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Chef chef;
+    private Node root = new Node("");
+    private int size;
+
+    public NameTrie(Chef chef) {
+        this.chef = chef;
+        chef.getRecipes().forEach(this::insert);
+        chef.addListener(this);
+    }
+
+    /**
+     * Fills {@code out} with up to {@code out.length} recipes whose name starts with {@code prefix}, ignoring
+     * case, in alphabetical order of their case-folded names and book order among equal names.
+     *
+     * @return how many entries of {@code out} were filled
+     */
+    public int complete(CharSequence prefix, Recipe[] out) {
+        if (out.length == 0) {
+            return 0;
+        }
+        Node node = root;
+        int matched = 0;
+        int offset = 0;
+        while (matched < prefix.length()) {
+            if (offset == node.label.length()) {
+                node = node.child(fold(prefix.charAt(matched)));
+                if (node == null) {
+                    return 0;
+                }
+                offset = 0;
+            }
+            if (node.label.charAt(offset) != fold(prefix.charAt(matched))) {
+                return 0;
+            }
+            offset++;
+            matched++;
+        }
+        return collect(node, out, 0);
+    }
+
+    /**
+     * Number of recipes in the trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void detach() {
+        chef.removeListener(this);
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        insert(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        if (previousName == null ? recipe.getName() == null : previousName.equals(recipe.getName())) {
+            return;
+        }
+        if (previousName != null) {
+            remove(Chef.foldName(previousName), recipe);
+        }
+        insert(recipe);
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        if (recipe.getName() != null) {
+            remove(Chef.foldName(recipe.getName()), recipe);
+        }
+    }
+
+    @Override
+    public void recipesReplaced() {
+        root = new Node("");
+        size = 0;
+        chef.getRecipes().forEach(this::insert);
+    }
+
+    private void insert(Recipe recipe) {
+        if (recipe.getName() == null) {
+            return;
+        }
+        String key = Chef.foldName(recipe.getName());
+        Node node = root;
+        int position = 0;
+        while (true) {
+            int common = commonLength(node.label, key, position);
+            if (common < node.label.length()) {
+                node.split(common);
+            }
+            position += common;
+            if (position == key.length()) {
+                node.addRecipe(recipe);
+                size++;
+                return;
+            }
+            Node next = node.child(key.charAt(position));
+            if (next == null) {
+                Node leaf = new Node(key.substring(position));
+                leaf.addRecipe(recipe);
+                node.addChild(leaf);
+                size++;
+                return;
+            }
+            node = next;
+        }
+    }
+
+    private boolean remove(String key, Recipe recipe) {
+        Node parent = null;
+        Node node = root;
+        int position = 0;
+        while (true) {
+            if (!key.startsWith(node.label, position)) {
+                return false;
+            }
+            position += node.label.length();
+            if (position == key.length()) {
+                break;
+            }
+            Node next = node.child(key.charAt(position));
+            if (next == null) {
+                return false;
+            }
+            parent = node;
+            node = next;
+        }
+        if (!node.removeRecipe(recipe)) {
+            return false;
+        }
+        size--;
+        if (parent != null && node.recipes.length == 0) {
+            if (node.childCount == 0) {
+                parent.removeChild(node);
+                if (parent != root && parent.recipes.length == 0 && parent.childCount == 1) {
+                    parent.absorbOnlyChild();
+                }
+            } else if (node.childCount == 1) {
+                node.absorbOnlyChild();
+            }
+        }
+        return true;
+    }
+
+    private static int collect(Node node, Recipe[] out, int filled) {
+        for (int i = 0; i < node.recipes.length && filled < out.length; i++) {
+            out[filled++] = node.recipes[i];
+        }
+        for (int i = 0; i < node.childCount && filled < out.length; i++) {
+            filled = collect(node.children[i], out, filled);
+        }
+        return filled;
+    }
+
+    private static int commonLength(String label, String key, int from) {
+        int limit = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < limit && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // the per-character form of Chef.foldName, so a typed prefix need not be copied to be folded
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static final class Node {
+
+        private String label;
+        private Recipe[] recipes = NO_RECIPES;
+        // children kept sorted by the first character of their label, which is unique among siblings
+        private char[] firstChars = NO_CHARS;
+        private Node[] children = NO_NODES;
+        private int childCount;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int index = Arrays.binarySearch(firstChars, 0, childCount, first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            int index = -Arrays.binarySearch(firstChars, 0, childCount, child.label.charAt(0)) - 1;
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                firstChars = Arrays.copyOf(firstChars, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(firstChars, index, firstChars, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            firstChars[index] = child.label.charAt(0);
+            children[index] = child;
+            childCount++;
+        }
+
+        void removeChild(Node child) {
+            int index = Arrays.binarySearch(firstChars, 0, childCount, child.label.charAt(0));
+            System.arraycopy(firstChars, index + 1, firstChars, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+
+        // keeps the first {@code length} characters here and moves the rest, with everything below, to a child
+        void split(int length) {
+            Node tail = new Node(label.substring(length));
+            tail.recipes = recipes;
+            tail.firstChars = firstChars;
+            tail.children = children;
+            tail.childCount = childCount;
+            label = label.substring(0, length);
+            recipes = NO_RECIPES;
+            firstChars = NO_CHARS;
+            children = NO_NODES;
+            childCount = 0;
+            addChild(tail);
+        }
+
+        // the reverse of split, for a node left with no recipes of its own and a single child
+        void absorbOnlyChild() {
+            Node only = children[0];
+            label = label + only.label;
+            recipes = only.recipes;
+            firstChars = only.firstChars;
+            children = only.children;
+            childCount = only.childCount;
+        }
+
+        void addRecipe(Recipe recipe) {
+            recipes = Arrays.copyOf(recipes, recipes.length + 1);
+            recipes[recipes.length - 1] = recipe;
+        }
+
+        boolean removeRecipe(Recipe recipe) {
+            for (int i = 0; i < recipes.length; i++) {
+                if (recipes[i] == recipe) {
+                    Recipe[] remaining = new Recipe[recipes.length - 1];
+                    System.arraycopy(recipes, 0, remaining, 0, i);
+                    System.arraycopy(recipes, i + 1, remaining, i, recipes.length - i - 1);
+                    recipes = remaining.length == 0 ? NO_RECIPES : remaining;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package app.index;
+
+import entities.Chef;
+import entities.ChefListener;
+import entities.Ingredient;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Answers "what can I cook with this pantry?". Every distinct ingredient in the book gets an integer id and
+ * every recipe keeps its ingredients as a bitset over those ids, so checking a recipe against a pantry is a
+ * handful of AND-NOT and bit-count operations rather than string comparisons. Like {@link InvertedIndex}
+ * it follows the chef's mutations as a {@link ChefListener}.
+ */
+public class PantryIndex implements ChefListener {
+
+    // quantities and measures that say how much of an ingredient, not which one
+    private static final Set<String> MEASURE_WORDS = Set.of(
+            "a", "an", "of", "to", "taste", "cup", "cups", "tbsp", "tablespoon", "tablespoons", "tsp",
+            "teaspoon", "teaspoons", "g", "gram", "grams", "kg", "ml", "l", "litre", "liter", "oz", "ounce",
+            "ounces", "lb", "lbs", "pound", "pounds", "can", "cans", "clove", "cloves", "pinch", "dash",
+            "handful", "slice", "slices", "piece", "pieces", "large", "medium", "small", "fresh", "chopped",
+            "diced", "minced", "sliced");
+
+    private final Chef chef;
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<String> ingredientNames = new ArrayList<>();
+    private final Map<Recipe, Integer> docIds = new IdentityHashMap<>();
+    // book order, with null gaps where recipes were removed; scanned front to back by every query
+    private Recipe[] docs = new Recipe[16];
+    private Bits[] docBits = new Bits[16];
+    private int nextDoc;
+
+    public PantryIndex(Chef chef) {
+        this.chef = chef;
+        chef.getRecipes().forEach(this::addDocument);
+        chef.addListener(this);
+    }
+
+    /**
+     * The part of an ingredient line that names the ingredient: "2 cloves Garlic, minced" becomes "garlic".
+     * Returns an empty string when nothing but measures is left.
+     */
+    public static String ingredientKey(String line) {
+        return ingredientKey(Ingredient.parse(line));
+    }
+
+    /**
+     * {@link #ingredientKey(String)} of a line already parsed: the words of its item, which has lost its
+     * quantity, unit and notes, less any measures left in it.
+     */
+    public static String ingredientKey(Ingredient ingredient) {
+        StringJoiner key = new StringJoiner(" ");
+        Tokenizer.tokenize(ingredient.getItem(), word -> {
+            if (namesIngredient(word)) {
+                key.add(word);
+            }
+        });
+        return key.toString();
+    }
+
+    /**
+     * Whether {@code word}, as split by {@link Tokenizer}, survives into an {@link #ingredientKey} rather
+     * than being a quantity or measure.
+     */
+    static boolean namesIngredient(String word) {
+        return !MEASURE_WORDS.contains(word) && !Character.isDigit(word.charAt(0));
+    }
+
+    /**
+     * Recipes missing at most {@code maxMissing} of their ingredients from {@code pantry}, fewest missing
+     * first and in book order within each count. Pantry entries are matched by {@link #ingredientKey}.
+     */
+    public List<Match> match(Collection<String> pantry, int maxMissing) {
+        if (maxMissing < 0) {
+            throw new IllegalArgumentException("maxMissing must not be negative: " + maxMissing);
+        }
+        long[] have = pantryBits(pantry);
+        List<List<Match>> byMissing = new ArrayList<>();
+        for (int i = 0; i <= maxMissing; i++) {
+            byMissing.add(new ArrayList<>());
+        }
+        for (int doc = 0; doc < nextDoc; doc++) {
+            Bits bits = docBits[doc];
+            if (bits == null) {
+                continue;
+            }
+            int missing = bits.countMissing(have, maxMissing);
+            if (missing <= maxMissing) {
+                byMissing.get(missing).add(new Match(docs[doc], bits, have));
+            }
+        }
+        List<Match> matches = new ArrayList<>();
+        byMissing.forEach(matches::addAll);
+        return matches;
+    }
+
+    /**
+     * Recipes whose every ingredient is in {@code pantry}, in book order.
+     */
+    public List<Recipe> cookable(Collection<String> pantry) {
+        long[] have = pantryBits(pantry);
+        List<Recipe> cookable = new ArrayList<>();
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (docBits[doc] != null && docBits[doc].countMissing(have, 0) == 0) {
+                cookable.add(docs[doc]);
+            }
+        }
+        return cookable;
+    }
+
+    /**
+     * Number of distinct ingredients across the book.
+     */
+    public int vocabularySize() {
+        return ingredientNames.size();
+    }
+
+    public void detach() {
+        chef.removeListener(this);
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        addDocument(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        Integer doc = docIds.get(recipe);
+        if (doc == null) {
+            addDocument(recipe);
+        } else {
+            docBits[doc] = bitsOf(recipe);
+        }
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        Integer doc = docIds.remove(recipe);
+        if (doc == null) {
+            return;
+        }
+        docs[doc] = null;
+        docBits[doc] = null;
+        if (DocumentGaps.worthClosing(nextDoc, docIds.size())) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void recipesReplaced() {
+        rebuild();
+    }
+
+    // ingredient ids already handed out stay valid; only the documents are renumbered
+    private void rebuild() {
+        docIds.clear();
+        docs = new Recipe[16];
+        docBits = new Bits[16];
+        nextDoc = 0;
+        chef.getRecipes().forEach(this::addDocument);
+    }
+
+    private void addDocument(Recipe recipe) {
+        if (docIds.containsKey(recipe)) {
+            return;
+        }
+        int doc = nextDoc++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, doc * 2);
+            docBits = Arrays.copyOf(docBits, doc * 2);
+        }
+        docs[doc] = recipe;
+        docIds.put(recipe, doc);
+        docBits[doc] = bitsOf(recipe);
+    }
+
+    private Bits bitsOf(Recipe recipe) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Ingredient ingredient : recipe.parsedIngredients()) {
+            String key = ingredientKey(ingredient);
+            if (key.isEmpty()) {
+                continue;
+            }
+            Integer id = ingredientIds.get(key);
+            if (id == null) {
+                id = ingredientNames.size();
+                ingredientIds.put(key, id);
+                ingredientNames.add(key);
+            }
+            ids.add(id);
+        }
+        return Bits.of(ids);
+    }
+
+    private long[] pantryBits(Collection<String> pantry) {
+        long[] have = new long[(ingredientNames.size() + 63) >>> 6];
+        for (String item : pantry) {
+            Integer id = ingredientIds.get(ingredientKey(item));
+            if (id != null) {
+                have[id >>> 6] |= 1L << id;
+            }
+        }
+        return have;
+    }
+
+    /**
+     * A recipe that the pantry covers except for {@link #getMissing()}.
+     */
+    public final class Match {
+
+        private final Recipe recipe;
+        private final List<String> missing;
+
+        private Match(Recipe recipe, Bits bits, long[] have) {
+            this.recipe = recipe;
+            this.missing = bits.missingNames(have, ingredientNames);
+        }
+
+        public Recipe getRecipe() {
+            return recipe;
+        }
+
+        /**
+         * Ingredient keys the recipe needs that the pantry lacks.
+         */
+        public List<String> getMissing() {
+            return missing;
+        }
+    }
+
+    /**
+     * A sparse bitset: only the non-zero 64-bit words are stored, alongside their word positions, so a
+     * recipe with eight ingredients costs eight words at most however large the vocabulary grows.
+     */
+    private static final class Bits {
+
+        private static final Bits EMPTY = new Bits(new int[0], new long[0]);
+
+        private final int[] positions;
+        private final long[] words;
+
+        private Bits(int[] positions, long[] words) {
+            this.positions = positions;
+            this.words = words;
+        }
+
+        static Bits of(Set<Integer> ids) {
+            if (ids.isEmpty()) {
+                return EMPTY;
+            }
+            int[] sorted = ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] positions = new int[sorted.length];
+            long[] words = new long[sorted.length];
+            int count = -1;
+            for (int id : sorted) {
+                int position = id >>> 6;
+                if (count < 0 || positions[count] != position) {
+                    positions[++count] = position;
+                }
+                words[count] |= 1L << id;
+            }
+            return new Bits(Arrays.copyOf(positions, count + 1), Arrays.copyOf(words, count + 1));
+        }
+
+        // stops counting as soon as the recipe is out of reach
+        int countMissing(long[] have, int limit) {
+            int missing = 0;
+            for (int i = 0; i < words.length && missing <= limit; i++) {
+                int position = positions[i];
+                long available = position < have.length ? have[position] : 0L;
+                missing += Long.bitCount(words[i] & ~available);
+            }
+            return missing;
+        }
+
+        List<String> missingNames(long[] have, List<String> names) {
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < words.length; i++) {
+                int position = positions[i];
+                long lacking = words[i] & ~(position < have.length ? have[position] : 0L);
+                while (lacking != 0) {
+                    missing.add(names.get((position << 6) + Long.numberOfTrailingZeros(lacking)));
+                    lacking &= lacking - 1;
+                }
+            }
+            return missing;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package app.index;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of document ids backed by an int array. Ids are usually added in increasing order, which
+ * appends; anything else is inserted in place.
+ */
+public final class PostingList {
+
+    private int[] ids = new int[2];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return ids[index];
+    }
+
+    public void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            insertAt(-position - 1, id);
+            return;
+        }
+        insertAt(size, id);
+    }
+
+    public boolean remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Keeps the ids of {@code candidates[0..count)} that are also in this list, in place.
+     *
+     * @return how many candidates remain
+     */
+    public int retainIn(int[] candidates, int count) {
+        if (count > size >> 4) {
+            return mergeInto(candidates, count);
+        }
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < size; i++) {
+            from = seek(candidates[i], from);
+            if (from < size && ids[from] == candidates[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // lists of similar length intersect fastest in one linear pass over both; the pass is written without
+    // data-dependent branches because on dense lists the comparison outcome is close to a coin flip
+    private int mergeInto(int[] candidates, int count) {
+        int kept = 0;
+        int i = 0;
+        int j = 0;
+        while (i < count && j < size) {
+            int candidate = candidates[i];
+            int id = ids[j];
+            candidates[kept] = candidate;
+            kept += candidate == id ? 1 : 0;
+            i += candidate <= id ? 1 : 0;
+            j += candidate >= id ? 1 : 0;
+        }
+        return kept;
+    }
+
+    // galloping search: the first position at or after {@code from} whose id is at least {@code id}
+    private int seek(int id, int from) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && ids[high] < id) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        int position = Arrays.binarySearch(ids, low, Math.min(high + 1, size), id);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private void insertAt(int position, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+}
@@ -0,0 +1,97 @@
+package app.index;
+
+import entities.Recipe;
+
+import java.util.Arrays;
+
+/**
+ * Inclusive bounds on a recipe's numbers, such as "total time at most 30, serves at least 4". Fields without
+ * bounds accept everything.
+ */
+public class RangeFilter {
+
+    /**
+     * A number a recipe can be filtered on.
+     */
+    public enum Field {
+        PREP_TIME,
+        COOK_TIME,
+        TOTAL_TIME,
+        SERVINGS;
+
+        int valueOf(Recipe recipe) {
+            switch (this) {
+                case PREP_TIME:
+                    return recipe.getPrepTime();
+                case COOK_TIME:
+                    return recipe.getCookTime();
+                case TOTAL_TIME:
+                    return recipe.getPrepTime() + recipe.getCookTime();
+                case SERVINGS:
+                default:
+                    return recipe.getServings();
+            }
+        }
+    }
+
+    private final int[] minimums = new int[Field.values().length];
+    private final int[] maximums = new int[Field.values().length];
+
+    public RangeFilter() {
+        Arrays.fill(minimums, Integer.MIN_VALUE);
+        Arrays.fill(maximums, Integer.MAX_VALUE);
+    }
+
+    public RangeFilter setAtLeast(Field field, int minimum) {
+        minimums[field.ordinal()] = minimum;
+        return this;
+    }
+
+    public RangeFilter setAtMost(Field field, int maximum) {
+        maximums[field.ordinal()] = maximum;
+        return this;
+    }
+
+    public RangeFilter clear(Field field) {
+        minimums[field.ordinal()] = Integer.MIN_VALUE;
+        maximums[field.ordinal()] = Integer.MAX_VALUE;
+        return this;
+    }
+
+    public int getMinimum(Field field) {
+        return minimums[field.ordinal()];
+    }
+
+    public int getMaximum(Field field) {
+        return maximums[field.ordinal()];
+    }
+
+    public boolean isBounded(Field field) {
+        return minimums[field.ordinal()] != Integer.MIN_VALUE || maximums[field.ordinal()] != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Whether no field has bounds, so every recipe passes.
+     */
+    public boolean isEmpty() {
+        for (Field field : Field.values()) {
+            if (isBounded(field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean test(Recipe recipe) {
+        for (Field field : Field.values()) {
+            if (isBounded(field) && !accepts(field, field.valueOf(recipe))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean accepts(Field field, int value) {
+        return value >= minimums[field.ordinal()] && value <= maximums[field.ordinal()];
+    }
+}
@@ -0,0 +1,128 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answers {@link RangeFilter} queries over a {@link RecipeTable}'s rows without looking at every row. Each
+ * {@link Field} keeps a {@link SortedColumn} of (value, row id) pairs, so the rows in a range are a binary
+ * search and a contiguous slice. A query walks the narrowest bounded field's slice and checks the other
+ * bounds against the table's columns, which hold each row's numbers; this index keeps only the sorted
+ * order. The table creates it and tells it about every row it adds, changes or drops.
+ */
+public class RangeIndex {
+
+    private static final Field[] ALL_FIELDS = Field.values();
+    private static final int FIELDS = ALL_FIELDS.length;
+
+    private final RecipeTable table;
+    private final SortedColumn[] columns = new SortedColumn[FIELDS];
+    // a row's values from before the update in progress, so only the fields that change are refiled
+    private final int[] previous = new int[FIELDS];
+
+    RangeIndex(RecipeTable table) {
+        this.table = table;
+        clear();
+        for (int row = 0; row < table.rowLimit(); row++) {
+            if (table.isLive(row)) {
+                rowAdded(row);
+            }
+        }
+    }
+
+    /**
+     * Recipes within every bound of {@code filter}, in book order.
+     */
+    public List<Recipe> query(RangeFilter filter) {
+        Field narrowest = null;
+        int narrowestCount = 0;
+        for (Field field : Field.values()) {
+            if (!filter.isBounded(field)) {
+                continue;
+            }
+            int count = count(field, filter.getMinimum(field), filter.getMaximum(field));
+            if (narrowest == null || count < narrowestCount) {
+                narrowest = field;
+                narrowestCount = count;
+            }
+        }
+        if (narrowest == null || narrowestCount > table.size() / 4) {
+            // most of the book is in range: checking the rows in order beats sorting the slice
+            List<Recipe> recipes = new ArrayList<>();
+            for (int row = 0; row < table.rowLimit(); row++) {
+                if (table.isLive(row) && acceptsOthers(filter, null, row)) {
+                    recipes.add(table.recipe(row));
+                }
+            }
+            return recipes;
+        }
+        int[] matched = new int[narrowestCount];
+        int inRange = columns[narrowest.ordinal()].docs(filter.getMinimum(narrowest), filter.getMaximum(narrowest),
+                matched, 0);
+        int count = 0;
+        for (int i = 0; i < inRange; i++) {
+            if (acceptsOthers(filter, narrowest, matched[i])) {
+                matched[count++] = matched[i];
+            }
+        }
+        // row ids follow book order
+        Arrays.sort(matched, 0, count);
+        return table.recipes(matched, 0, count);
+    }
+
+    /**
+     * Number of recipes with {@code field} between {@code minimum} and {@code maximum} inclusive.
+     */
+    public int count(Field field, int minimum, int maximum) {
+        return columns[field.ordinal()].count(minimum, maximum);
+    }
+
+    void rowAdded(int row) {
+        for (int f = 0; f < FIELDS; f++) {
+            columns[f].add(table.value(ALL_FIELDS[f], row), row);
+        }
+    }
+
+    void rowUpdating(int row) {
+        for (int f = 0; f < FIELDS; f++) {
+            previous[f] = table.value(ALL_FIELDS[f], row);
+        }
+    }
+
+    void rowUpdated(int row) {
+        for (int f = 0; f < FIELDS; f++) {
+            int value = table.value(ALL_FIELDS[f], row);
+            if (value != previous[f]) {
+                columns[f].remove(previous[f], row);
+                columns[f].add(value, row);
+            }
+        }
+    }
+
+    // called while the row still holds its values
+    void rowRemoved(int row) {
+        for (int f = 0; f < FIELDS; f++) {
+            columns[f].remove(table.value(ALL_FIELDS[f], row), row);
+        }
+    }
+
+    // called before the table renumbers its rows and adds them again
+    void clear() {
+        for (int f = 0; f < FIELDS; f++) {
+            columns[f] = new SortedColumn();
+        }
+    }
+
+    private boolean acceptsOthers(RangeFilter filter, Field skipped, int row) {
+        for (Field field : ALL_FIELDS) {
+            if (field != skipped && filter.isBounded(field) && !filter.accepts(field, table.value(field, row))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
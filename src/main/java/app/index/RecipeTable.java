@@ -0,0 +1,505 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import app.index.SortedViews.SortKey;
+import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The book's filterable and sortable numbers laid out column by column: parallel int arrays of prep
+ * time, cook time, servings, dietary flags and a name ordinal, one row per recipe in book order. Filtering
+ * the whole book is then one tight loop over a few primitive arrays rather than a pointer chase and getter
+ * calls per recipe, and sorting is a sort of packed longs. Rows are handed around as int ids and turned
+ * into recipes only for the page that is shown.
+ *
+ * <p>Removed rows are marked dead and skipped until enough accumulate to renumber, as in
+ * {@link InvertedIndex}. A {@link #rangeIndex()} adds sorted order over the same rows for selective range
+ * queries, reading their numbers from here rather than keeping its own. {@link #copy()} gives a frozen
+ * table that, unlike the live one, other threads may read, and whose {@link #parallelSelect} and
+ * {@link #parallelSort} split the work across a fork-join pool.
+ */
+public class RecipeTable implements ChefListener {
+
+    // set in every live row's flags column, so a dead row fails any filter without a separate check
+    private static final int LIVE = 1 << 31;
+    // rows one fork-join task filters or sorts on its own; smaller pieces cost more in hand-offs than they save
+    static final int PARALLEL_CHUNK = 1 << 14;
+
+    private final Chef chef;
+    private final Map<Recipe, Integer> rowIds = new IdentityHashMap<>();
+    private Recipe[] recipes = new Recipe[16];
+    private int[] prepTimes = new int[16];
+    private int[] cookTimes = new int[16];
+    private int[] servings = new int[16];
+    private int[] flags = new int[16];
+    // the name ordinal: an index into names, turned into alphabetical order by nameRanks when sorting
+    private int[] nameIds = new int[16];
+    private final Map<String, Integer> nameIdsByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private int[] nameRanks;
+    private int rows;
+    private int live;
+    // rows a copy may still be reading from the arrays; they are copied before any of these rows changes
+    private int sharedRows;
+    // built on first use, so a table that is never range-queried, such as a copy, does not keep one
+    private RangeIndex rangeIndex;
+
+    public RecipeTable(Chef chef) {
+        this.chef = chef;
+        chef.getRecipes().forEach(this::addRow);
+        chef.addListener(this);
+    }
+
+    private RecipeTable(RecipeTable source) {
+        this.chef = null;
+        rows = source.rows;
+        // shared, not copied: the source only appends past these rows until it copies its arrays for itself
+        recipes = source.recipes;
+        prepTimes = source.prepTimes;
+        cookTimes = source.cookTimes;
+        servings = source.servings;
+        flags = source.flags;
+        nameIds = source.nameIds;
+        source.sharedRows = rows;
+        // never written once built, only replaced, so it can be shared; if absent the copy works it out itself
+        nameRanks = source.nameRanks;
+        if (nameRanks == null) {
+            names.addAll(source.names);
+        }
+        live = source.live;
+    }
+
+    /**
+     * A copy of the table as it is now, not attached to the chef, so another thread can filter and sort it
+     * while this one keeps changing. Taking one is cheap: the copy shares this table's columns, and this
+     * table copies them for itself only when it next edits or removes a row the copy can see, which adding
+     * recipes does not. The recipes themselves are shared, not copied.
+     */
+    public RecipeTable copy() {
+        return new RecipeTable(this);
+    }
+
+    /**
+     * The sorted index over this table's rows that answers range queries without a full scan. It is
+     * kept up to date with the table from then on.
+     */
+    public RangeIndex rangeIndex() {
+        if (rangeIndex == null) {
+            rangeIndex = new RangeIndex(this);
+        }
+        return rangeIndex;
+    }
+
+    /**
+     * Writes the rows passing {@code range} and having every flag in {@code requiredDietaryFlags} to
+     * {@code out}, in book order, and returns how many. {@code out} must hold {@link #rowLimit()} ids.
+     */
+    public int select(RangeFilter range, int requiredDietaryFlags, int[] out) {
+        return select(range, requiredDietaryFlags, out, 0, rows);
+    }
+
+    /**
+     * {@link #select} split into chunks filtered on {@code pool} and joined back in book order. Once
+     * {@code cancelled} returns true the remaining chunks are skipped, and the result is not meaningful.
+     */
+    public int parallelSelect(RangeFilter range, int requiredDietaryFlags, int[] out, ForkJoinPool pool,
+                              BooleanSupplier cancelled) {
+        return pool.invoke(new SelectTask(range, requiredDietaryFlags, out, 0, rows, cancelled));
+    }
+
+    // writes the passing rows from fromRow up to toRow to out, starting at out[fromRow]
+    private int select(RangeFilter range, int requiredDietaryFlags, int[] out, int fromRow, int toRow) {
+        for (Field field : Field.values()) {
+            if (range.getMinimum(field) > range.getMaximum(field)) {
+                return 0;
+            }
+        }
+        int required = requiredDietaryFlags | LIVE;
+        // value - min compared unsigned against max - min is one test per bound pair, and open bounds span
+        // the whole int range so they always pass
+        int prepMin = range.getMinimum(Field.PREP_TIME);
+        int prepSpan = range.getMaximum(Field.PREP_TIME) - prepMin + Integer.MIN_VALUE;
+        int cookMin = range.getMinimum(Field.COOK_TIME);
+        int cookSpan = range.getMaximum(Field.COOK_TIME) - cookMin + Integer.MIN_VALUE;
+        int totalMin = range.getMinimum(Field.TOTAL_TIME);
+        int totalSpan = range.getMaximum(Field.TOTAL_TIME) - totalMin + Integer.MIN_VALUE;
+        int servingsMin = range.getMinimum(Field.SERVINGS);
+        int servingsSpan = range.getMaximum(Field.SERVINGS) - servingsMin + Integer.MIN_VALUE;
+        int[] prep = prepTimes;
+        int[] cook = cookTimes;
+        int[] serves = servings;
+        int[] rowFlags = flags;
+        int count = fromRow;
+        for (int row = fromRow; row < toRow; row++) {
+            int p = prep[row];
+            int c = cook[row];
+            // non-short-circuit & keeps the loop free of a branch per condition
+            boolean keep = (rowFlags[row] & required) == required
+                    & p - prepMin + Integer.MIN_VALUE <= prepSpan
+                    & c - cookMin + Integer.MIN_VALUE <= cookSpan
+                    & p + c - totalMin + Integer.MIN_VALUE <= totalSpan
+                    & serves[row] - servingsMin + Integer.MIN_VALUE <= servingsSpan;
+            out[count] = row;
+            count += keep ? 1 : 0;
+        }
+        return count - fromRow;
+    }
+
+    /**
+     * Orders the first {@code count} of {@code rowIds} by {@code key}, keeping book order among equal keys
+     * in either direction.
+     */
+    public void sort(int[] rowIds, int count, SortKey key, boolean descending) {
+        long[] packed = new long[count];
+        pack(rowIds, packed, 0, count, sortColumn(key), sortRanks(key), descending);
+        Arrays.sort(packed);
+        unpack(packed, rowIds, 0, count);
+    }
+
+    /**
+     * {@link #sort} with chunks sorted on {@code pool} and merged. Once {@code cancelled} returns true the
+     * remaining chunks are skipped, and the order of {@code rowIds} is not meaningful.
+     */
+    public void parallelSort(int[] rowIds, int count, SortKey key, boolean descending, ForkJoinPool pool,
+                             BooleanSupplier cancelled) {
+        long[] packed = new long[count];
+        pool.invoke(new SortTask(rowIds, packed, new long[count], 0, count, sortColumn(key), sortRanks(key),
+                descending, cancelled));
+        unpack(packed, rowIds, 0, count);
+    }
+
+    private int[] sortColumn(SortKey key) {
+        return key == SortKey.NAME ? nameIds : column(key);
+    }
+
+    // name ids are in order of first appearance, so a name sort goes through their alphabetical ranks
+    private int[] sortRanks(SortKey key) {
+        return key == SortKey.NAME ? nameRanks() : null;
+    }
+
+    private static void pack(int[] rowIds, long[] packed, int from, int to, int[] column, int[] ranks,
+                             boolean descending) {
+        for (int i = from; i < to; i++) {
+            int value = ranks == null ? column[rowIds[i]] : ranks[column[rowIds[i]]];
+            // complementing reverses int order without overflow; the row id in the low half breaks ties
+            packed[i] = ((long) (descending ? ~value : value) << 32) | rowIds[i];
+        }
+    }
+
+    private static void unpack(long[] packed, int[] rowIds, int from, int to) {
+        for (int i = from; i < to; i++) {
+            rowIds[i] = (int) packed[i];
+        }
+    }
+
+    /**
+     * One more than the highest row id in use, and so the size {@link #select} needs for its output.
+     */
+    public int rowLimit() {
+        return rows;
+    }
+
+    public Recipe recipe(int row) {
+        return recipes[row];
+    }
+
+    boolean isLive(int row) {
+        return (flags[row] & LIVE) != 0;
+    }
+
+    int value(Field field, int row) {
+        switch (field) {
+            case PREP_TIME:
+                return prepTimes[row];
+            case COOK_TIME:
+                return cookTimes[row];
+            case TOTAL_TIME:
+                return prepTimes[row] + cookTimes[row];
+            case SERVINGS:
+            default:
+                return servings[row];
+        }
+    }
+
+    /**
+     * The recipes of {@code rowIds} from {@code from} up to {@code to}, in that order.
+     */
+    public List<Recipe> recipes(int[] rowIds, int from, int to) {
+        List<Recipe> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(recipes[rowIds[i]]);
+        }
+        return page;
+    }
+
+    public int size() {
+        return live;
+    }
+
+    public void detach() {
+        if (chef != null) {
+            chef.removeListener(this);
+        }
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        addRow(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        Integer row = rowIds.get(recipe);
+        if (row == null) {
+            addRow(recipe);
+            return;
+        }
+        if (rangeIndex != null) {
+            rangeIndex.rowUpdating(row);
+        }
+        unshare(row);
+        fill(row, recipe);
+        if (rangeIndex != null) {
+            rangeIndex.rowUpdated(row);
+        }
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        Integer row = rowIds.remove(recipe);
+        if (row == null) {
+            return;
+        }
+        if (rangeIndex != null) {
+            rangeIndex.rowRemoved(row);
+        }
+        unshare(row);
+        recipes[row] = null;
+        flags[row] = 0;
+        live--;
+        if (DocumentGaps.worthClosing(rows, rowIds.size())) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void recipesReplaced() {
+        rebuild();
+    }
+
+    private int[] column(SortKey key) {
+        switch (key) {
+            case PREP_TIME:
+                return prepTimes;
+            case COOK_TIME:
+                return cookTimes;
+            case SERVINGS:
+            default:
+                return servings;
+        }
+    }
+
+    // alphabetical rank of each name id; computed at the first name sort after a new name appears
+    private int[] nameRanks() {
+        if (nameRanks == null) {
+            Integer[] order = new Integer[names.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(names.get(a), names.get(b)));
+            nameRanks = new int[names.size()];
+            int rank = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (i > 0 && String.CASE_INSENSITIVE_ORDER.compare(names.get(order[i - 1]), names.get(order[i])) != 0) {
+                    rank++;
+                }
+                nameRanks[order[i]] = rank;
+            }
+        }
+        return nameRanks;
+    }
+
+    // copy-on-write for the rows a copy can see; rows appended since are never read by it
+    private void unshare(int row) {
+        if (row >= sharedRows) {
+            return;
+        }
+        recipes = recipes.clone();
+        prepTimes = prepTimes.clone();
+        cookTimes = cookTimes.clone();
+        servings = servings.clone();
+        flags = flags.clone();
+        nameIds = nameIds.clone();
+        sharedRows = 0;
+    }
+
+    private void rebuild() {
+        rowIds.clear();
+        recipes = new Recipe[16];
+        prepTimes = new int[16];
+        cookTimes = new int[16];
+        servings = new int[16];
+        flags = new int[16];
+        nameIds = new int[16];
+        nameIdsByName.clear();
+        names.clear();
+        nameRanks = null;
+        rows = 0;
+        live = 0;
+        sharedRows = 0;
+        if (rangeIndex != null) {
+            rangeIndex.clear();
+        }
+        chef.getRecipes().forEach(this::addRow);
+    }
+
+    private void addRow(Recipe recipe) {
+        if (rowIds.containsKey(recipe)) {
+            return;
+        }
+        int row = rows++;
+        if (row == recipes.length) {
+            int capacity = row * 2;
+            recipes = Arrays.copyOf(recipes, capacity);
+            prepTimes = Arrays.copyOf(prepTimes, capacity);
+            cookTimes = Arrays.copyOf(cookTimes, capacity);
+            servings = Arrays.copyOf(servings, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            nameIds = Arrays.copyOf(nameIds, capacity);
+            // the copies taken before keep the old arrays to themselves
+            sharedRows = 0;
+        }
+        recipes[row] = recipe;
+        rowIds.put(recipe, row);
+        live++;
+        fill(row, recipe);
+        if (rangeIndex != null) {
+            rangeIndex.rowAdded(row);
+        }
+    }
+
+    private void fill(int row, Recipe recipe) {
+        prepTimes[row] = recipe.getPrepTime();
+        cookTimes[row] = recipe.getCookTime();
+        servings[row] = recipe.getServings();
+        flags[row] = recipe.dietaryFlagMask() | LIVE;
+        String name = recipe.getName() == null ? "" : recipe.getName();
+        Integer nameId = nameIdsByName.get(name);
+        if (nameId == null) {
+            nameId = names.size();
+            nameIdsByName.put(name, nameId);
+            names.add(name);
+            nameRanks = null;
+        }
+        nameIds[row] = nameId;
+    }
+
+    /**
+     * Filters one range of rows, halving it until it is a chunk, and moves the right half's hits down to
+     * follow the left half's.
+     */
+    private final class SelectTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeFilter range;
+        private final int requiredDietaryFlags;
+        private final int[] out;
+        private final int from;
+        private final int to;
+        private final BooleanSupplier cancelled;
+
+        SelectTask(RangeFilter range, int requiredDietaryFlags, int[] out, int from, int to,
+                   BooleanSupplier cancelled) {
+            this.range = range;
+            this.requiredDietaryFlags = requiredDietaryFlags;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (cancelled.getAsBoolean()) {
+                return 0;
+            }
+            if (to - from <= PARALLEL_CHUNK) {
+                return select(range, requiredDietaryFlags, out, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SelectTask right = new SelectTask(range, requiredDietaryFlags, out, middle, to, cancelled);
+            right.fork();
+            int leftCount = new SelectTask(range, requiredDietaryFlags, out, from, middle, cancelled).compute();
+            int rightCount = right.join();
+            System.arraycopy(out, middle, out, from + leftCount, rightCount);
+            return leftCount + rightCount;
+        }
+    }
+
+    /**
+     * Sorts one range of packed keys, halving it until it is a chunk and merging the sorted halves through
+     * a scratch array.
+     */
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] rowIds;
+        private final long[] packed;
+        private final long[] scratch;
+        private final int from;
+        private final int to;
+        private final int[] column;
+        private final int[] ranks;
+        private final boolean descending;
+        private final BooleanSupplier cancelled;
+
+        SortTask(int[] rowIds, long[] packed, long[] scratch, int from, int to, int[] column, int[] ranks,
+                 boolean descending, BooleanSupplier cancelled) {
+            this.rowIds = rowIds;
+            this.packed = packed;
+            this.scratch = scratch;
+            this.from = from;
+            this.to = to;
+            this.column = column;
+            this.ranks = ranks;
+            this.descending = descending;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            if (to - from <= PARALLEL_CHUNK) {
+                pack(rowIds, packed, from, to, column, ranks, descending);
+                Arrays.sort(packed, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(rowIds, packed, scratch, from, middle, column, ranks, descending, cancelled),
+                    new SortTask(rowIds, packed, scratch, middle, to, column, ranks, descending, cancelled));
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                scratch[i] = right == to || (left < middle && packed[left] <= packed[right])
+                        ? packed[left++] : packed[right++];
+            }
+            System.arraycopy(scratch, from, packed, from, to - from);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package app.index;
+
+import java.util.Arrays;
+
+/**
+ * A sorted array of (key, document id) pairs packed into longs, so the documents filed under a range of
+ * keys are a binary search and a contiguous slice. {@link RangeIndex} keeps one per field, keyed by value,
+ * and {@link DuplicateIndex} one per band, keyed by band hash.
+ *
+ * <p>Books are loaded one recipe at a time, so additions are buffered and merged in one sort before the
+ * next lookup. A removal files a tombstone in a small sorted array of its own rather than shifting the
+ * entries, and once the tombstones outnumber the square root of the entries they are dropped in one pass,
+ * so removing costs O(sqrt n) amortized.
+ */
+final class SortedColumn {
+
+    private static final int MIN_TOMBSTONES = 64;
+
+    private long[] entries = new long[0];
+    private int size;
+    private long[] pending = new long[16];
+    private int pendingSize;
+    // each equal to one of the entries, which no longer counts
+    private long[] removed = new long[16];
+    private int removedSize;
+
+    void add(int key, int doc) {
+        if (pendingSize == pending.length) {
+            pending = Arrays.copyOf(pending, pendingSize * 2);
+        }
+        pending[pendingSize++] = pack(key, doc);
+    }
+
+    void remove(int key, int doc) {
+        long entry = pack(key, doc);
+        if (Arrays.binarySearch(entries, 0, size, entry) >= 0) {
+            int position = Arrays.binarySearch(removed, 0, removedSize, entry);
+            // an entry already removed can only be here again as a pending addition
+            if (position < 0) {
+                position = -position - 1;
+                if (removedSize == removed.length) {
+                    removed = Arrays.copyOf(removed, removedSize * 2);
+                }
+                System.arraycopy(removed, position, removed, position + 1, removedSize - position);
+                removed[position] = entry;
+                removedSize++;
+                if (removedSize > Math.max(MIN_TOMBSTONES, (int) Math.sqrt(size))) {
+                    rewrite();
+                }
+                return;
+            }
+        }
+        for (int i = 0; i < pendingSize; i++) {
+            if (pending[i] == entry) {
+                pending[i] = pending[--pendingSize];
+                return;
+            }
+        }
+    }
+
+    void mergePending() {
+        if (pendingSize > 0) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Number of entries with keys from {@code minimum} to {@code maximum} inclusive.
+     */
+    int count(int minimum, int maximum) {
+        mergePending();
+        int entriesIn = upperBound(entries, size, maximum) - lowerBound(entries, size, minimum);
+        int removedIn = upperBound(removed, removedSize, maximum) - lowerBound(removed, removedSize, minimum);
+        return Math.max(0, entriesIn - removedIn);
+    }
+
+    /**
+     * Writes the document ids of the entries with keys from {@code minimum} to {@code maximum} inclusive to
+     * {@code out} from {@code offset} on, in key order, and returns how many. {@code out} must have room
+     * for {@link #count} of them.
+     */
+    int docs(int minimum, int maximum, int[] out, int offset) {
+        mergePending();
+        int to = upperBound(entries, size, maximum);
+        // tombstones are a subset of the entries, so both arrays can be walked in step
+        int tombstone = lowerBound(removed, removedSize, minimum);
+        int count = offset;
+        for (int i = lowerBound(entries, size, minimum); i < to; i++) {
+            if (tombstone < removedSize && removed[tombstone] == entries[i]) {
+                tombstone++;
+            } else {
+                out[count++] = (int) entries[i];
+            }
+        }
+        return count - offset;
+    }
+
+    /**
+     * Every entry, sorted, for a caller that walks the whole column: the first {@link #size()} of the
+     * returned array, which is only good until the column next changes and must not be written to.
+     */
+    long[] sortedEntries() {
+        if (pendingSize > 0 || removedSize > 0) {
+            rewrite();
+        }
+        return entries;
+    }
+
+    /**
+     * Number of entries in {@link #sortedEntries()}.
+     */
+    int size() {
+        sortedEntries();
+        return size;
+    }
+
+    static int key(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    static int doc(long entry) {
+        return (int) entry;
+    }
+
+    // key in the high half so signed long order is key order, document id in the low half to break ties
+    private static long pack(int key, int doc) {
+        return ((long) key << 32) | (doc & 0xFFFFFFFFL);
+    }
+
+    // merges the pending additions in and drops the tombstoned entries, in one pass
+    private void rewrite() {
+        Arrays.sort(pending, 0, pendingSize);
+        long[] merged = new long[size - removedSize + pendingSize];
+        int i = 0;
+        int j = 0;
+        int tombstone = 0;
+        int k = 0;
+        while (i < size || j < pendingSize) {
+            if (j == pendingSize || (i < size && entries[i] <= pending[j])) {
+                long entry = entries[i++];
+                if (tombstone < removedSize && removed[tombstone] == entry) {
+                    tombstone++;
+                } else {
+                    merged[k++] = entry;
+                }
+            } else {
+                merged[k++] = pending[j++];
+            }
+        }
+        entries = merged;
+        size = k;
+        pendingSize = 0;
+        removedSize = 0;
+        if (pending.length > 1024) {
+            pending = new long[16];
+        }
+        if (removed.length > 1024) {
+            removed = new long[16];
+        }
+    }
+
+    // first position in the sorted array whose key is at least {@code minimum}
+    private static int lowerBound(long[] sorted, int size, int minimum) {
+        if (minimum == Integer.MIN_VALUE) {
+            return 0;
+        }
+        int position = Arrays.binarySearch(sorted, 0, size, pack(minimum, 0) - 1);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    // first position in the sorted array whose key is above {@code maximum}
+    private static int upperBound(long[] sorted, int size, int maximum) {
+        int position = Arrays.binarySearch(sorted, 0, size, pack(maximum, -1));
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+}
@@ -0,0 +1,194 @@
+package app.index;
+
+import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the book sorted by each {@link SortKey}, in both directions, so listing it in another order costs a
+ * walk rather than a sort. Each order is a balanced tree built the first time it is asked for and then
+ * updated in O(log n) per added, edited or removed recipe. Equal keys stay in book order either way, as a
+ * stable sort of the book would leave them.
+ */
+public class SortedViews implements ChefListener {
+
+    /**
+     * What a list can be sorted by.
+     */
+    public enum SortKey {
+        NAME(Comparator.comparing((Entry entry) -> entry.name, String.CASE_INSENSITIVE_ORDER)),
+        PREP_TIME(Comparator.comparingInt((Entry entry) -> entry.prepTime)),
+        COOK_TIME(Comparator.comparingInt((Entry entry) -> entry.cookTime)),
+        SERVINGS(Comparator.comparingInt((Entry entry) -> entry.servings));
+
+        private final Comparator<Entry> ascending;
+
+        SortKey(Comparator<Entry> ascending) {
+            this.ascending = ascending;
+        }
+
+        /**
+         * The same ascending order applied to recipes directly, for sorting a handful without a view.
+         */
+        public Comparator<Recipe> recipeOrder() {
+            switch (this) {
+                case NAME:
+                    return Comparator.comparing(recipe -> recipe.getName() == null ? "" : recipe.getName(),
+                            String.CASE_INSENSITIVE_ORDER);
+                case PREP_TIME:
+                    return Comparator.comparingInt(Recipe::getPrepTime);
+                case COOK_TIME:
+                    return Comparator.comparingInt(Recipe::getCookTime);
+                case SERVINGS:
+                default:
+                    return Comparator.comparingInt(Recipe::getServings);
+            }
+        }
+    }
+
+    private static final Comparator<Entry> BOOK_ORDER = Comparator.comparingLong(entry -> entry.sequence);
+
+    private final Chef chef;
+    // the sort keys each recipe is filed under, captured when it was filed so it can be found again after edits
+    private final Map<Recipe, Entry> entries = new IdentityHashMap<>();
+    private final Map<SortKey, TreeSet<Entry>> ascending = new EnumMap<>(SortKey.class);
+    private final Map<SortKey, TreeSet<Entry>> descending = new EnumMap<>(SortKey.class);
+    private long nextSequence;
+
+    public SortedViews(Chef chef) {
+        this.chef = chef;
+        chef.getRecipes().forEach(this::addEntry);
+        chef.addListener(this);
+    }
+
+    /**
+     * The recipes accepted by {@code filter}, ordered by {@code key}.
+     */
+    public List<Recipe> sorted(SortKey key, boolean descendingOrder, Predicate<Recipe> filter) {
+        return sorted(key, descendingOrder, filter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first {@code limit} recipes accepted by {@code filter}, ordered by {@code key}. The walk stops as
+     * soon as it has them, so a short page of a large book is cheap.
+     */
+    public List<Recipe> sorted(SortKey key, boolean descendingOrder, Predicate<Recipe> filter, int limit) {
+        List<Recipe> recipes = new ArrayList<>();
+        if (limit <= 0) {
+            return recipes;
+        }
+        for (Entry entry : view(key, descendingOrder)) {
+            if (filter.test(entry.recipe)) {
+                recipes.add(entry.recipe);
+                if (recipes.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * How many orders are currently being maintained.
+     */
+    public int maintainedViews() {
+        return ascending.size() + descending.size();
+    }
+
+    public void detach() {
+        chef.removeListener(this);
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        addEntry(recipe);
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        Entry previous = entries.get(recipe);
+        if (previous == null) {
+            addEntry(recipe);
+            return;
+        }
+        Entry updated = new Entry(recipe, previous.sequence);
+        entries.put(recipe, updated);
+        forEachView(view -> {
+            view.remove(previous);
+            view.add(updated);
+        });
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        Entry removed = entries.remove(recipe);
+        if (removed != null) {
+            forEachView(view -> view.remove(removed));
+        }
+    }
+
+    @Override
+    public void recipesReplaced() {
+        entries.clear();
+        ascending.clear();
+        descending.clear();
+        chef.getRecipes().forEach(this::addEntry);
+    }
+
+    private TreeSet<Entry> view(SortKey key, boolean descendingOrder) {
+        Map<SortKey, TreeSet<Entry>> views = descendingOrder ? descending : ascending;
+        TreeSet<Entry> view = views.get(key);
+        if (view == null) {
+            Comparator<Entry> order = descendingOrder ? key.ascending.reversed() : key.ascending;
+            view = new TreeSet<>(order.thenComparing(BOOK_ORDER));
+            view.addAll(entries.values());
+            views.put(key, view);
+        }
+        return view;
+    }
+
+    private void addEntry(Recipe recipe) {
+        if (entries.containsKey(recipe)) {
+            // the same recipe object listed twice is shown once
+            return;
+        }
+        Entry entry = new Entry(recipe, nextSequence++);
+        entries.put(recipe, entry);
+        forEachView(view -> view.add(entry));
+    }
+
+    private void forEachView(Consumer<TreeSet<Entry>> action) {
+        ascending.values().forEach(action);
+        descending.values().forEach(action);
+    }
+
+    private static final class Entry {
+
+        private final Recipe recipe;
+        // book position; later additions sort after earlier ones among equal keys
+        private final long sequence;
+        private final String name;
+        private final int prepTime;
+        private final int cookTime;
+        private final int servings;
+
+        Entry(Recipe recipe, long sequence) {
+            this.recipe = recipe;
+            this.sequence = sequence;
+            this.name = recipe.getName() == null ? "" : recipe.getName();
+            this.prepTime = recipe.getPrepTime();
+            this.cookTime = recipe.getCookTime();
+            this.servings = recipe.getServings();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package app.index;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Splits recipe text into lower-case words. A word is a run of letters and digits, so "Stir-fry, 2 mins"
+ * becomes "stir", "fry", "2" and "mins".
+ */
+public final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Hands every word in {@code text} to {@code sink}, in order and with repeats.
+     */
+    public static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                sink.accept(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * The distinct words of {@code text}, in order of first appearance.
+     */
+    public static Set<String> distinctTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
+}
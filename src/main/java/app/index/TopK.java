@@ -0,0 +1,135 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import entities.Recipe;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Picks the few recipes with the smallest or largest value of a {@link Field}, such as the five quickest,
+ * without sorting the book. The best candidates so far sit in a bounded max-heap of longs packing the value
+ * with the recipe's book position, so each recipe costs a comparison and at worst O(log k) sifts, nothing is
+ * boxed, and the heap is reused between calls so a selection allocates nothing. The heap is kept after a
+ * selection, so recipes appended to the book since can be folded in with {@link #selectAppended} instead of
+ * selecting again from the start. Not thread-safe.
+ */
+public class TopK {
+
+    private final long[] heap;
+    // the heap copied out and sorted best first, so the heap itself survives to take more recipes
+    private final long[] ordered;
+    private int size;
+    private int k;
+    // how many recipes of the list the heap has seen, and how it chose among them
+    private int seen;
+    private Field field;
+    private boolean largest;
+    private Predicate<Recipe> filter;
+
+    public TopK(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.heap = new long[capacity];
+        this.ordered = new long[capacity];
+    }
+
+    public int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Writes the recipes of {@code recipes} accepted by {@code filter} with the smallest {@code field}, or the
+     * largest when {@code largest} is set, into {@code out}, best first; equal values keep their order in
+     * {@code recipes}. Fills at most {@code out.length} and {@link #capacity()} slots and returns how many it
+     * filled. {@code recipes} should be random access, as a chef's book is.
+     */
+    public int select(List<Recipe> recipes, Field field, boolean largest, Predicate<Recipe> filter, Recipe[] out) {
+        this.field = field;
+        this.largest = largest;
+        this.filter = filter;
+        k = Math.min(heap.length, out.length);
+        size = 0;
+        seen = 0;
+        return selectAppended(recipes, out);
+    }
+
+    /**
+     * Continues the last {@link #select} over the recipes added to the end of {@code recipes} since, with the
+     * same field, direction and filter, and writes the picks of the whole list into {@code out} as
+     * {@code select} would. Costs only the new recipes, so a book streaming in batch by batch is picked from
+     * in one pass overall. The recipes seen before must be unchanged and in place, and {@code filter} must
+     * still accept the same ones; after any other change, call {@code select} again.
+     */
+    public int selectAppended(List<Recipe> recipes, Recipe[] out) {
+        if (field == null) {
+            throw new IllegalStateException("select must be called first");
+        }
+        int n = recipes.size();
+        for (int i = seen; i < n && k > 0; i++) {
+            Recipe recipe = recipes.get(i);
+            if (!filter.test(recipe)) {
+                continue;
+            }
+            int value = field.valueOf(recipe);
+            // complementing reverses int order without the overflow negating Integer.MIN_VALUE would hit
+            long key = pack(largest ? ~value : value, i);
+            if (size < k) {
+                heap[size] = key;
+                siftUp(size++);
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                siftDown(0, k);
+            }
+        }
+        seen = Math.max(seen, n);
+        System.arraycopy(heap, 0, ordered, 0, size);
+        Arrays.sort(ordered, 0, size);
+        int filled = Math.min(size, out.length);
+        for (int j = 0; j < filled; j++) {
+            out[j] = recipes.get((int) ordered[j]);
+        }
+        return filled;
+    }
+
+    // key in the high half so signed long order is key order, position in the low half to break ties
+    private static long pack(int key, int position) {
+        return ((long) key << 32) | position;
+    }
+
+    private void siftUp(int child) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (heap[parent] >= heap[child]) {
+                return;
+            }
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int parent, int size) {
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[parent] >= heap[child]) {
+                return;
+            }
+            swap(parent, child);
+            parent = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long held = heap[i];
+        heap[i] = heap[j];
+        heap[j] = held;
+    }
+}
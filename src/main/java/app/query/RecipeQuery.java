@@ -0,0 +1,159 @@
+package app.query;
+
+import app.index.RangeFilter;
+import app.index.RangeFilter.Field;
+import app.index.SortedViews.SortKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What to list from a recipe book: which recipes, in what order and which page of them. Every condition
+ * set must hold. Run it with a {@link RecipeQueryEngine}.
+ */
+public class RecipeQuery {
+
+    private String text = "";
+    private String nameText = "";
+    private final List<String> ingredients = new ArrayList<>();
+    private int dietaryFlags;
+    private RangeFilter range = new RangeFilter();
+    private SortKey sortKey;
+    private boolean descending;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+    private boolean typoTolerant;
+
+    /**
+     * Every word of {@code text} must appear in the recipe's name, ingredients or steps.
+     */
+    public RecipeQuery setText(String text) {
+        this.text = text == null ? "" : text.trim();
+        return this;
+    }
+
+    /**
+     * Every word of {@code nameText} must be a word of the recipe's name, ignoring case.
+     */
+    public RecipeQuery setNameContaining(String nameText) {
+        this.nameText = nameText == null ? "" : nameText.trim();
+        return this;
+    }
+
+    /**
+     * One of the recipe's ingredient lines must contain every word of {@code ingredient}, so "olive oil"
+     * matches "2 tbsp olive oil". Several ingredients must all be present.
+     */
+    public RecipeQuery addIngredient(String ingredient) {
+        if (ingredient != null && !ingredient.isBlank()) {
+            ingredients.add(ingredient.trim());
+        }
+        return this;
+    }
+
+    /**
+     * The recipe must have every {@link entities.DietaryFlag} in {@code dietaryFlags}.
+     */
+    public RecipeQuery setDietaryFlags(int dietaryFlags) {
+        this.dietaryFlags = dietaryFlags;
+        return this;
+    }
+
+    public RecipeQuery setRange(RangeFilter range) {
+        this.range = range == null ? new RangeFilter() : range;
+        return this;
+    }
+
+    /**
+     * Orders results by {@code sortKey}, or keeps book order when it is null. Equal keys stay in book order.
+     */
+    public RecipeQuery setSort(SortKey sortKey, boolean descending) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        return this;
+    }
+
+    public RecipeQuery setOffset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative: " + offset);
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public RecipeQuery setLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * When the text matches nothing as typed, retry it allowing for spelling mistakes.
+     */
+    public RecipeQuery setTypoTolerant(boolean typoTolerant) {
+        this.typoTolerant = typoTolerant;
+        return this;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getNameText() {
+        return nameText;
+    }
+
+    public List<String> getIngredients() {
+        return List.copyOf(ingredients);
+    }
+
+    public int getDietaryFlags() {
+        return dietaryFlags;
+    }
+
+    public RangeFilter getRange() {
+        return range;
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isTypoTolerant() {
+        return typoTolerant;
+    }
+
+    /**
+     * Whether the query lists the whole book in book order.
+     */
+    public boolean isUnfiltered() {
+        return text.isEmpty() && nameText.isEmpty() && ingredients.isEmpty() && dietaryFlags == 0
+                && range.isEmpty() && sortKey == null && offset == 0 && limit == Integer.MAX_VALUE;
+    }
+
+    // every setting that shapes the results, as a value that can be hashed and compared
+    List<Object> cacheKey() {
+        List<Object> key = new ArrayList<>(Arrays.asList(text, nameText, List.copyOf(ingredients), dietaryFlags,
+                sortKey, descending, offset, limit, typoTolerant));
+        for (Field field : Field.values()) {
+            key.add(range.getMinimum(field));
+            key.add(range.getMaximum(field));
+        }
+        return key;
+    }
+}
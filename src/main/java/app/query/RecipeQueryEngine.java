@@ -0,0 +1,524 @@
+package app.query;
+
+import app.index.FuzzySearch;
+import app.index.InvertedIndex;
+import app.index.RangeFilter;
+import app.index.RangeFilter.Field;
+import app.index.RangeIndex;
+import app.index.RecipeTable;
+import app.index.SortedViews;
+import app.index.SortedViews.SortKey;
+import app.index.Tokenizer;
+import entities.Chef;
+import entities.DietaryFlag;
+import entities.Ingredient;
+import entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link RecipeQuery}s against a chef's book using its indexes. A small planner estimates how many
+ * recipes each indexed condition can match, lets the most selective one produce the candidates and then
+ * intersects or probes the rest. A query on numbers and dietary flags alone is answered from the
+ * {@link RecipeTable} columns instead, and only a query nothing can narrow walks the whole book.
+ * {@link #explain} shows the plan it chose. Like the indexes it is confined to the thread that mutates the
+ * chef; {@link #submit} moves the scans of large books onto worker threads.
+ *
+ * <p>Results are cached by query and stamped with the chef's {@link Chef#generation() generation}, so
+ * asking again before the book changes returns the same list without running anything.
+ */
+public class RecipeQueryEngine {
+
+    // fuzzy matches are ranked, so the long tail of distant ones is not worth listing
+    static final int FUZZY_CANDIDATES = 200;
+    // a later index is fetched and intersected when it matches no more than this many times the candidates;
+    // otherwise each candidate is checked against it directly
+    private static final int INTERSECT_RATIO = 4;
+    // candidates below this fraction of the book are sorted directly rather than found in a sorted view
+    private static final int SORT_DIRECTLY_DIVISOR = 8;
+    // RecipeTableBenchmark, best of 30 on one core: filtering and sorting costs about 24ns a row either way,
+    // 25ms against 22.5ms at 1M rows and 4.7ms against 5.6ms at 200k, and the parallel path adds about 1ms
+    // of copying and forking. Split over the cores it saves 24ns * (1 - 1 / cores) a row, so it wins once a
+    // book is large enough for that to pay the 1ms back, from about 83k rows on two cores to 48k on eight
+    private static final double ROW_NANOS = 24;
+    private static final double PARALLEL_OVERHEAD_NANOS = 1_000_000;
+    // with one core the workers only add overhead, so every query stays on the calling thread
+    static final int PARALLEL_THRESHOLD = parallelThreshold(Runtime.getRuntime().availableProcessors());
+    // settings a user flips between in one sitting; any change to the book empties the cache
+    private static final int CACHE_SIZE = 16;
+    // its own pool, so a long scan neither waits behind nor holds up other users of the common pool
+    private static final ForkJoinPool QUERY_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("recipe-query-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+
+    private final Chef chef;
+    private final InvertedIndex textIndex;
+    private final FuzzySearch fuzzySearch;
+    private final RangeIndex rangeIndex;
+    private final SortedViews sortedViews;
+    private final RecipeTable recipeTable;
+    private final int parallelThreshold;
+    // query settings -> results, least recently used first; guarded by itself, as workers add to it
+    private final LinkedHashMap<List<Object>, List<Recipe>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // the chef generation every cached result was computed at
+    private long cachedGeneration;
+    private long cacheHits;
+    private long cacheMisses;
+
+    public RecipeQueryEngine(Chef chef) {
+        this(chef, PARALLEL_THRESHOLD);
+    }
+
+    RecipeQueryEngine(Chef chef, int parallelThreshold) {
+        this.chef = chef;
+        this.parallelThreshold = parallelThreshold;
+        this.textIndex = new InvertedIndex(chef);
+        this.fuzzySearch = new FuzzySearch(textIndex);
+        this.sortedViews = new SortedViews(chef);
+        this.recipeTable = new RecipeTable(chef);
+        this.rangeIndex = recipeTable.rangeIndex();
+    }
+
+    /**
+     * The smallest book worth splitting across {@code cores} workers, by the costs measured above, or
+     * {@link Integer#MAX_VALUE} when there is only one.
+     */
+    static int parallelThreshold(int cores) {
+        if (cores < 2) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.ceil(PARALLEL_OVERHEAD_NANOS / (ROW_NANOS * (1 - 1.0 / cores)));
+    }
+
+    /**
+     * The recipes {@code query} asks for, in its order and within its offset and limit. The list is
+     * read-only and may be shared with later calls for the same query.
+     */
+    public List<Recipe> execute(RecipeQuery query) {
+        List<Object> key = query.cacheKey();
+        List<Recipe> cached = cached(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Recipe> results = Collections.unmodifiableList(run(query, null));
+        remember(key, chef.generation(), results);
+        return results;
+    }
+
+    /**
+     * Runs {@code query} and describes, one step per line, how it was answered: which index produced the
+     * candidates, which conditions were intersected, probed or filtered, how the results were ordered and
+     * how many were returned.
+     */
+    public String explain(RecipeQuery query) {
+        List<String> plan = new ArrayList<>();
+        run(query, plan);
+        return String.join("\n", plan);
+    }
+
+    /**
+     * Starts {@code query} and returns its results as they will be once it finishes. A query on numbers and
+     * dietary flags alone over a book of at least {@link #PARALLEL_THRESHOLD} recipes is filtered and sorted
+     * in chunks on worker threads, against a copy of the table taken now, so the caller can carry on;
+     * anything else is answered at once, as {@link #execute} would. Cancelling the future stops the
+     * workers at their next chunk. {@code query} must not be changed until the future completes.
+     */
+    public CompletableFuture<List<Recipe>> submit(RecipeQuery query) {
+        if (!isColumnQuery(query) || recipeTable.size() < parallelThreshold) {
+            return CompletableFuture.completedFuture(execute(query));
+        }
+        List<Object> key = query.cacheKey();
+        List<Recipe> cached = cached(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long generation = chef.generation();
+        RecipeTable frozen = recipeTable.copy();
+        CompletableFuture<List<Recipe>> result = new CompletableFuture<>();
+        QUERY_POOL.execute(() -> {
+            try {
+                List<Recipe> recipes = scanTable(frozen, query, result::isDone);
+                if (recipes != null) {
+                    recipes = Collections.unmodifiableList(recipes);
+                    remember(key, generation, recipes);
+                    result.complete(recipes);
+                }
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Number of {@link #execute} and {@link #submit} calls answered from the cache.
+     */
+    public long getCacheHitCount() {
+        synchronized (cache) {
+            return cacheHits;
+        }
+    }
+
+    public long getCacheMissCount() {
+        synchronized (cache) {
+            return cacheMisses;
+        }
+    }
+
+    public void detach() {
+        textIndex.detach();
+        sortedViews.detach();
+        recipeTable.detach();
+    }
+
+    private List<Recipe> run(RecipeQuery query, List<String> plan) {
+        Set<String> textWords = Tokenizer.distinctTokens(query.getText());
+        List<Source> sources = new ArrayList<>();
+        if (isColumnQuery(query)) {
+            List<Recipe> results = scanTable(query, plan);
+            note(plan, "rows: " + results.size());
+            return results;
+        }
+        Source text = textSource(query, textWords);
+        if (text != null) {
+            sources.add(text);
+        }
+        if (!query.getRange().isEmpty()) {
+            sources.add(rangeSource(query.getRange()));
+        }
+        List<Recipe> results = plan(query, sources, filters(query), plan);
+        if (results.isEmpty() && query.isTypoTolerant() && !textWords.isEmpty()
+                && textIndex.search(query.getText()).isEmpty()) {
+            // nothing matches the text as typed, so allow for spelling mistakes and plan again
+            note(plan, "no exact match for \"" + query.getText() + "\"; retrying with typos allowed");
+            List<Recipe> fuzzy = fuzzySearch.search(query.getText(), FUZZY_CANDIDATES);
+            sources.remove(text);
+            Source nameAndIngredients = textSource(query, Set.of());
+            if (nameAndIngredients != null) {
+                sources.add(nameAndIngredients);
+            }
+            Set<Recipe> fuzzyMatches = identitySet(fuzzy);
+            sources.add(new Source("fuzzy search \"" + query.getText() + "\"", fuzzy.size(),
+                    () -> fuzzy, fuzzyMatches::contains, false));
+            results = plan(query, sources, filters(query), plan);
+        }
+        note(plan, "rows: " + results.size());
+        return results;
+    }
+
+    private List<Recipe> plan(RecipeQuery query, List<Source> sources, List<Filter> filters, List<String> plan) {
+        int bookSize = chef.getRecipes().size();
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) query.getOffset() + query.getLimit());
+        sources.sort(Comparator.comparingInt(source -> source.estimate));
+        Predicate<Recipe> residual = recipe -> true;
+        for (Filter filter : filters) {
+            residual = residual.and(filter.test);
+        }
+
+        List<Recipe> candidates;
+        if (sources.isEmpty()) {
+            for (Filter filter : filters) {
+                note(plan, "filter: " + filter.description);
+            }
+            if (query.getSortKey() == null) {
+                note(plan, "scan: book order (" + bookSize + " recipes)");
+                candidates = scanBook(residual, wanted);
+            } else {
+                note(plan, "scan: sorted view by " + describeSort(query));
+                candidates = sortedViews.sorted(query.getSortKey(), query.isDescending(), residual, wanted);
+            }
+            return page(candidates, query);
+        }
+
+        Source driver = sources.get(0);
+        note(plan, "driver: " + driver.description + " (estimate " + driver.estimate + " of " + bookSize + ")");
+        candidates = driver.fetch.get();
+        for (int i = 1; i < sources.size(); i++) {
+            Source next = sources.get(i);
+            if ((long) next.estimate <= (long) candidates.size() * INTERSECT_RATIO) {
+                note(plan, "intersect: " + next.description + " (estimate " + next.estimate + ")");
+                Set<Recipe> members = identitySet(next.fetch.get());
+                candidates = retain(candidates, members::contains);
+            } else {
+                note(plan, "probe: " + next.description + " (estimate " + next.estimate + ")");
+                candidates = retain(candidates, next.probe);
+            }
+        }
+        for (Filter filter : filters) {
+            note(plan, "filter: " + filter.description);
+        }
+        if (!filters.isEmpty()) {
+            candidates = retain(candidates, residual);
+        }
+
+        if (query.getSortKey() == null) {
+            note(plan, driver.bookOrder ? "order: book order" : "order: " + driver.description + " ranking");
+        } else if (!driver.bookOrder || candidates.size() < bookSize / SORT_DIRECTLY_DIVISOR) {
+            note(plan, "order: sort " + candidates.size() + " candidates by " + describeSort(query));
+            Comparator<Recipe> order = query.getSortKey().recipeOrder();
+            // a stable sort keeps equal keys in book order, as the sorted views do, in either direction
+            candidates = new ArrayList<>(candidates);
+            candidates.sort(query.isDescending() ? order.reversed() : order);
+        } else {
+            note(plan, "order: sorted view by " + describeSort(query) + ", keeping " + candidates.size()
+                    + " candidates");
+            Set<Recipe> members = identitySet(candidates);
+            candidates = sortedViews.sorted(query.getSortKey(), query.isDescending(), members::contains, wanted);
+        }
+        return page(candidates, query);
+    }
+
+    // the inverted index narrows by any word the query needs, though name and ingredient words still have to
+    // be checked where they appear
+    private Source textSource(RecipeQuery query, Set<String> textWords) {
+        Set<String> words = new LinkedHashSet<>(textWords);
+        words.addAll(Tokenizer.distinctTokens(query.getNameText()));
+        for (String ingredient : query.getIngredients()) {
+            words.addAll(Tokenizer.distinctTokens(ingredient));
+        }
+        if (words.isEmpty()) {
+            return null;
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (String word : words) {
+            estimate = Math.min(estimate, textIndex.documentFrequency(word));
+        }
+        String joined = String.join(" ", words);
+        return new Source("inverted index " + words, estimate,
+                () -> textIndex.search(joined), recipe -> textIndex.contains(recipe, joined), true);
+    }
+
+    private Source rangeSource(RangeFilter range) {
+        int estimate = Integer.MAX_VALUE;
+        StringBuilder description = new StringBuilder("range index");
+        for (Field field : Field.values()) {
+            if (range.isBounded(field)) {
+                estimate = Math.min(estimate,
+                        rangeIndex.count(field, range.getMinimum(field), range.getMaximum(field)));
+                description.append(' ').append(describeBounds(range, field));
+            }
+        }
+        return new Source(description.toString(), estimate, () -> rangeIndex.query(range), range::test, true);
+    }
+
+    // conditions no index answers exactly; they are checked on each candidate
+    private static List<Filter> filters(RecipeQuery query) {
+        List<Filter> filters = new ArrayList<>();
+        Set<String> nameWords = Tokenizer.distinctTokens(query.getNameText());
+        if (!nameWords.isEmpty()) {
+            filters.add(new Filter("name words " + nameWords,
+                    recipe -> Tokenizer.distinctTokens(recipe.getName()).containsAll(nameWords)));
+        }
+        for (String ingredient : query.getIngredients()) {
+            // both sides reduced to the item, so "2 cups flour" finds "1/2 cup flour, sifted"
+            Set<String> ingredientWords = Tokenizer.distinctTokens(Ingredient.parse(ingredient).getItem());
+            filters.add(new Filter("ingredient \"" + ingredient + "\"",
+                    recipe -> hasIngredient(recipe, ingredientWords)));
+        }
+        int dietaryFlags = query.getDietaryFlags();
+        if (dietaryFlags != 0) {
+            filters.add(new Filter("dietary " + DietaryFlag.fromMask(dietaryFlags),
+                    recipe -> recipe.hasDietaryFlags(dietaryFlags)));
+        }
+        return filters;
+    }
+
+    // every condition is a column test, so one pass over the table beats fetching from the range index and
+    // filtering recipe by recipe
+    private static boolean isColumnQuery(RecipeQuery query) {
+        return Tokenizer.distinctTokens(query.getText()).isEmpty()
+                && Tokenizer.distinctTokens(query.getNameText()).isEmpty()
+                && query.getIngredients().isEmpty()
+                && (!query.getRange().isEmpty() || query.getDietaryFlags() != 0);
+    }
+
+    private List<Recipe> scanTable(RecipeQuery query, List<String> plan) {
+        RangeFilter range = query.getRange();
+        StringBuilder conditions = new StringBuilder();
+        for (Field field : Field.values()) {
+            if (range.isBounded(field)) {
+                conditions.append(' ').append(describeBounds(range, field));
+            }
+        }
+        if (query.getDietaryFlags() != 0) {
+            conditions.append(" dietary ").append(DietaryFlag.fromMask(query.getDietaryFlags()));
+        }
+        note(plan, "scan: recipe table columns" + conditions + " (" + recipeTable.size() + " recipes)");
+        note(plan, query.getSortKey() == null ? "order: book order" : "order: sort rows by " + describeSort(query));
+        return scanTable(recipeTable, query, null);
+    }
+
+    // only the page shown is turned back into recipes; with a cancellation check the chunks run on the
+    // query pool, and a cancelled scan returns null
+    private static List<Recipe> scanTable(RecipeTable table, RecipeQuery query, BooleanSupplier cancelled) {
+        int[] rows = new int[table.rowLimit()];
+        RangeFilter range = query.getRange();
+        SortKey key = query.getSortKey();
+        int count = cancelled == null
+                ? table.select(range, query.getDietaryFlags(), rows)
+                : table.parallelSelect(range, query.getDietaryFlags(), rows, QUERY_POOL, cancelled);
+        if (key != null) {
+            if (cancelled == null) {
+                table.sort(rows, count, key, query.isDescending());
+            } else {
+                table.parallelSort(rows, count, key, query.isDescending(), QUERY_POOL, cancelled);
+            }
+        }
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            return null;
+        }
+        int from = Math.min(query.getOffset(), count);
+        int to = (int) Math.min(count, (long) from + query.getLimit());
+        return table.recipes(rows, from, to);
+    }
+
+    // called on the chef's thread, which is the only one that sees the generation move
+    private List<Recipe> cached(List<Object> key) {
+        long generation = chef.generation();
+        synchronized (cache) {
+            if (generation != cachedGeneration) {
+                cache.clear();
+                cachedGeneration = generation;
+            }
+            List<Recipe> results = cache.get(key);
+            if (results == null) {
+                cacheMisses++;
+            } else {
+                cacheHits++;
+            }
+            return results;
+        }
+    }
+
+    // a result computed before the book last changed is dropped; the next lookup would empty it out anyway
+    private void remember(List<Object> key, long generation, List<Recipe> results) {
+        synchronized (cache) {
+            if (generation != cachedGeneration) {
+                return;
+            }
+            cache.put(key, results);
+            if (cache.size() > CACHE_SIZE) {
+                Iterator<List<Object>> eldest = cache.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private List<Recipe> scanBook(Predicate<Recipe> residual, int wanted) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (Recipe recipe : chef.getRecipes()) {
+            if (recipes.size() >= wanted) {
+                break;
+            }
+            if (residual.test(recipe)) {
+                recipes.add(recipe);
+            }
+        }
+        return recipes;
+    }
+
+    private static List<Recipe> page(List<Recipe> recipes, RecipeQuery query) {
+        int from = Math.min(query.getOffset(), recipes.size());
+        int to = (int) Math.min(recipes.size(), (long) from + query.getLimit());
+        return from == 0 && to == recipes.size() ? recipes : new ArrayList<>(recipes.subList(from, to));
+    }
+
+    private static List<Recipe> retain(List<Recipe> recipes, Predicate<Recipe> test) {
+        List<Recipe> kept = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            if (test.test(recipe)) {
+                kept.add(recipe);
+            }
+        }
+        return kept;
+    }
+
+    private static Set<Recipe> identitySet(List<Recipe> recipes) {
+        Set<Recipe> set = Collections.newSetFromMap(new IdentityHashMap<>(recipes.size() * 2));
+        set.addAll(recipes);
+        return set;
+    }
+
+    private static boolean hasIngredient(Recipe recipe, Set<String> words) {
+        for (Ingredient ingredient : recipe.parsedIngredients()) {
+            if (Tokenizer.distinctTokens(ingredient.getItem()).containsAll(words)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describeSort(RecipeQuery query) {
+        return query.getSortKey() + (query.isDescending() ? " descending" : " ascending");
+    }
+
+    private static String describeBounds(RangeFilter range, Field field) {
+        int minimum = range.getMinimum(field);
+        int maximum = range.getMaximum(field);
+        if (minimum == Integer.MIN_VALUE) {
+            return field + "<=" + maximum;
+        }
+        if (maximum == Integer.MAX_VALUE) {
+            return field + ">=" + minimum;
+        }
+        return field + " " + minimum + ".." + maximum;
+    }
+
+    private static void note(List<String> plan, String step) {
+        if (plan != null) {
+            plan.add(step);
+        }
+    }
+
+    /**
+     * A condition an index can answer: how many recipes it may match, how to list them in book order (or
+     * ranked, for fuzzy matches) and how to check a single recipe against it.
+     */
+    private static final class Source {
+
+        private final String description;
+        private final int estimate;
+        private final Supplier<List<Recipe>> fetch;
+        private final Predicate<Recipe> probe;
+        private final boolean bookOrder;
+
+        Source(String description, int estimate, Supplier<List<Recipe>> fetch, Predicate<Recipe> probe,
+               boolean bookOrder) {
+            this.description = description;
+            this.estimate = estimate;
+            this.fetch = fetch;
+            this.probe = probe;
+            this.bookOrder = bookOrder;
+        }
+    }
+
+    private static final class Filter {
+
+        private final String description;
+        private final Predicate<Recipe> test;
+
+        Filter(String description, Predicate<Recipe> test) {
+            this.description = description;
+            this.test = test;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package app.storage;
+
+import entities.Chef;
+import entities.Recipe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compact binary layout for books that are only read back by this app.
+ *
+ * <pre>
+ * magic "RCPB", version byte
+ * string table: count, then (byte length, UTF-8 bytes) per distinct string
+ * chef name reference, recipe count
+ * per recipe: byte length, then name, dietary restrictions, prep time, cook time, servings,
+ *             ingredient count and references, step count and references
+ * </pre>
+ * All numbers are varints; ints are zigzag-encoded so negative values stay short. A string reference is
+ * its table index plus one, with zero meaning {@code null}. Every distinct string, such as "Salt" or
+ * "Vegan", is stored once and decoded into a single shared instance.
+ */
+public class BinaryChefCodec implements ChefCodec {
+
+    static final byte[] MAGIC = {'R', 'C', 'P', 'B'};
+    static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public boolean accepts(byte[] header, int length) {
+        if (length < MAGIC.length + 1) {
+            return false;
+        }
+        return Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length) && header[MAGIC.length] == VERSION;
+    }
+
+    @Override
+    public String fileExtension() {
+        return "bin";
+    }
+
+    @Override
+    public void write(Chef chef, OutputStream target) throws IOException {
+        Map<String, Integer> table = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        intern(table, strings, chef.getName());
+        for (Recipe recipe : chef.getRecipes()) {
+            intern(table, strings, recipe.getName());
+            intern(table, strings, recipe.getDietaryRestrictions());
+            recipe.getIngredients().forEach(value -> intern(table, strings, value));
+            recipe.getSteps().forEach(value -> intern(table, strings, value));
+        }
+
+        VarIntOutput out = new VarIntOutput(new BufferedOutputStream(target, BUFFER_SIZE));
+        out.writeBytes(MAGIC, MAGIC.length);
+        out.writeByte(VERSION);
+        out.writeUnsigned(strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeUnsigned(bytes.length);
+            out.writeBytes(bytes, bytes.length);
+        }
+        ToIntFunction<String> references = value -> table.get(value) + 1;
+        out.writeUnsigned(reference(references, chef.getName()));
+        out.writeUnsigned(chef.getRecipes().size());
+
+        VarIntOutput.Buffer record = new VarIntOutput.Buffer();
+        for (Recipe recipe : chef.getRecipes()) {
+            record.reset();
+            encodeRecord(recipe, references, record);
+            out.writeUnsigned(record.size());
+            out.writeBytes(record.bytes(), record.size());
+        }
+        out.flush();
+    }
+
+    /**
+     * Encodes one recipe record, without its length prefix, into {@code record}.
+     *
+     * @param references maps each non-null string to its table reference
+     */
+    static void encodeRecord(Recipe recipe, ToIntFunction<String> references, VarIntOutput.Buffer record) {
+        record.writeUnsigned(reference(references, recipe.getName()));
+        record.writeUnsigned(reference(references, recipe.getDietaryRestrictions()));
+        record.writeSigned(recipe.getPrepTime());
+        record.writeSigned(recipe.getCookTime());
+        record.writeSigned(recipe.getServings());
+        writeReferences(record, references, recipe.getIngredients());
+        writeReferences(record, references, recipe.getSteps());
+    }
+
+    @Override
+    public String read(InputStream source, long totalBytes, Consumer<Recipe> sink, LoadProgressListener progress)
+            throws IOException {
+        VarIntInput in = new VarIntInput(new BufferedInputStream(source, BUFFER_SIZE), totalBytes);
+        byte[] header = in.readBytes(MAGIC.length + 1);
+        if (!accepts(header, header.length)) {
+            throw new IOException("Not a binary recipe book");
+        }
+        String[] strings = new String[in.readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = in.readCount();
+            strings[i] = new String(in.readBytes(length), StandardCharsets.UTF_8);
+        }
+        String chefName = lookup(strings, in.readLength());
+        int recipeCount = in.readCount();
+
+        for (int loaded = 1; loaded <= recipeCount; loaded++) {
+            in.readLength(); // record length, only needed by readers that skip records
+            Recipe recipe = new Recipe();
+            recipe.setName(lookup(strings, in.readLength()));
+            recipe.setDietaryRestrictions(lookup(strings, in.readLength()));
+            recipe.setPrepTime(in.readSigned());
+            recipe.setCookTime(in.readSigned());
+            recipe.setServings(in.readSigned());
+            recipe.setIngredients(readReferences(in, strings));
+            recipe.setSteps(readReferences(in, strings));
+            sink.accept(recipe);
+            if (progress != null && (loaded % StreamingChefLoader.PROGRESS_INTERVAL == 0 || loaded == recipeCount)) {
+                progress.onProgress(loaded, in.position(), totalBytes);
+            }
+        }
+        if (progress != null && recipeCount == 0) {
+            progress.onProgress(0, in.position(), totalBytes);
+        }
+        return chefName;
+    }
+
+    private static void intern(Map<String, Integer> table, List<String> strings, String value) {
+        if (value != null && !table.containsKey(value)) {
+            table.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+
+    private static int reference(ToIntFunction<String> references, String value) {
+        return value == null ? 0 : references.applyAsInt(value);
+    }
+
+    private static void writeReferences(VarIntOutput.Buffer record, ToIntFunction<String> references,
+                                        List<String> values) {
+        record.writeUnsigned(values.size());
+        for (String value : values) {
+            record.writeUnsigned(reference(references, value));
+        }
+    }
+
+    private static List<String> readReferences(VarIntInput in, String[] strings) throws IOException {
+        int count = in.readCount();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(lookup(strings, in.readLength()));
+        }
+        return values;
+    }
+
+    private static String lookup(String[] strings, int reference) throws IOException {
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > strings.length) {
+            throw new IOException("String reference " + reference + " is outside the table");
+        }
+        return strings[reference - 1];
+    }
+
+    /**
+     * Varint writer over a stream, with an in-memory variant for building length-prefixed records.
+     */
+    static class VarIntOutput {
+
+        private final OutputStream out;
+
+        VarIntOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeByte(int value) throws IOException {
+            out.write(value);
+        }
+
+        void writeBytes(byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+        }
+
+        void writeUnsigned(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        static class Buffer {
+            private byte[] bytes = new byte[256];
+            private int size;
+
+            void reset() {
+                size = 0;
+            }
+
+            int size() {
+                return size;
+            }
+
+            byte[] bytes() {
+                return bytes;
+            }
+
+            void writeSigned(int value) {
+                writeUnsigned((value << 1) ^ (value >> 31));
+            }
+
+            void writeUnsigned(int value) {
+                ensureCapacity(5);
+                while ((value & ~0x7f) != 0) {
+                    bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                    value >>>= 7;
+                }
+                bytes[size++] = (byte) value;
+            }
+
+            void write(byte[] source, int length) {
+                ensureCapacity(length);
+                System.arraycopy(source, 0, bytes, size, length);
+                size += length;
+            }
+
+            // growing always copies into a new array, so bytes handed out earlier never change
+            private void ensureCapacity(int extra) {
+                if (size + extra > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+                }
+            }
+        }
+    }
+
+    /**
+     * Varint reader that tracks how many bytes it has consumed.
+     */
+    static class VarIntInput {
+
+        private final InputStream in;
+        // bytes in the whole input, or Long.MAX_VALUE when unknown
+        private final long size;
+        private long position;
+
+        VarIntInput(InputStream in, long size) {
+            this.in = in;
+            this.size = size < 0 ? Long.MAX_VALUE : size;
+        }
+
+        long position() {
+            return position;
+        }
+
+        int readLength() throws IOException {
+            int value = readUnsigned();
+            if (value < 0) {
+                throw new IOException("Corrupt length " + value);
+            }
+            return value;
+        }
+
+        /**
+         * Reads the number of bytes or entries that follow. Each entry takes at least a byte, so a count
+         * larger than the rest of the input can only come from a truncated or corrupt file, and is rejected
+         * before anything is allocated for it.
+         */
+        int readCount() throws IOException {
+            int count = readLength();
+            if (count > size - position) {
+                throw new EOFException("Truncated binary recipe book: " + count + " entries in "
+                        + (size - position) + " bytes");
+            }
+            return count;
+        }
+
+        int readSigned() throws IOException {
+            int value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readUnsigned() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Truncated binary recipe book");
+                }
+                position++;
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) {
+                throw new EOFException("Truncated binary recipe book");
+            }
+            position += length;
+            return bytes;
+        }
+    }
+}
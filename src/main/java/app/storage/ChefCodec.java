@@ -0,0 +1,45 @@
+package app.storage;
+
+import entities.Chef;
+import entities.Recipe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Encodes a chef's book to bytes and streams it back. The format of a stored file is recognised from its
+ * first bytes, so files written by any known codec can be loaded whatever codec is configured for saving.
+ */
+public interface ChefCodec {
+
+    /**
+     * Number of leading bytes {@link #accepts} needs to recognise the format.
+     */
+    int HEADER_LENGTH = 16;
+
+    /**
+     * @param header the first bytes of a stored file
+     * @param length how many bytes of {@code header} are valid
+     */
+    boolean accepts(byte[] header, int length);
+
+    /**
+     * The extension, without the dot, of the files this codec writes.
+     */
+    String fileExtension();
+
+    /**
+     * Writes {@code chef} to {@code out}, leaving the stream open.
+     */
+    void write(Chef chef, OutputStream out) throws IOException;
+
+    /**
+     * Decodes a stored chef, handing each recipe to {@code sink} as soon as it is read.
+     *
+     * @return the chef's name
+     */
+    String read(InputStream in, long totalBytes, Consumer<Recipe> sink, LoadProgressListener progress)
+            throws IOException;
+}
@@ -1,46 +1,403 @@
 package app.storage;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import entities.BookSnapshot;
 import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
- * Loads and persists the single-chef data set kept on each machine.
+ * Loads and persists one chef's book. {@link ChefStore} keeps many of them side by side.
  */
 public class ChefRepository {
 
     private static final String DEFAULT_RESOURCE = "chef.json";
+    private static final double COMPACTION_RATIO = 0.5;
 
     private final Path storagePath;
+    // where the book was kept before its codec's extension named the file, or null if that is the same file
+    private final Path legacyPath;
     private final ObjectMapper mapper;
+    private final Path journalPath;
+    private final Path compactingPath;
+    private final RecipeJournal journal;
+    private final ExecutorService compactor;
+    private final long minCompactionBytes;
+    private final SnapshotStore snapshots;
+    private final ObjectWriter compactWriter;
+    private final ChefCodec codec;
+    private final List<ChefCodec> readers;
+    private final boolean memoryMapped;
+    private final RecipeSegments segments;
+    private Chef attachedChef;
+    private volatile boolean fullSaveRequired;
+    private volatile Future<Long> compaction;
 
     public ChefRepository(Path storagePath) {
-        this.storagePath = storagePath;
+        this(storagePath, new StorageOptions());
+    }
+
+    /**
+     * @param storagePath where the book is kept; the file's extension is replaced by the codec's, so a binary
+     *                    book configured as {@code chef.json} is saved as {@code chef.bin}, and a book still
+     *                    at {@code storagePath} is moved there, with its generations and journal, on first load
+     */
+    public ChefRepository(Path storagePath, StorageOptions options) {
+        this.storagePath = withExtension(storagePath,
+                options.getCodec() == null ? JsonChefCodec.FILE_EXTENSION : options.getCodec().fileExtension());
+        this.legacyPath = this.storagePath.equals(storagePath) ? null : storagePath;
         this.mapper = new ObjectMapper();
         this.mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        this.compactWriter = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.minCompactionBytes = options.getMinCompactionBytes();
+        this.snapshots = options.isAtomicSnapshots()
+                ? new SnapshotStore(this.storagePath, options.getSnapshotGenerations())
+                : null;
+        this.memoryMapped = options.isMemoryMapped() && snapshots != null;
+        // checksummed snapshots are only read back by this class, so they skip pretty-printing
+        JsonChefCodec json = new JsonChefCodec(mapper, snapshots == null ? mapper.writer() : compactWriter);
+        this.codec = options.getCodec() == null ? json : options.getCodec();
+        this.readers = List.of(codec, new BinaryChefCodec(), json);
+        this.segments = codec instanceof BinaryChefCodec ? new RecipeSegments() : null;
+        if (options.isJournaled()) {
+            this.journalPath = sibling(".journal");
+            this.compactingPath = sibling(".compacting");
+            this.journal = new RecipeJournal(journalPath, compactWriter);
+            this.compactor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "chef-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.journalPath = null;
+            this.compactingPath = null;
+            this.journal = null;
+            this.compactor = null;
+        }
     }
 
     public Chef loadChef() throws IOException {
-        ensureStorageFile();
-        try (InputStream in = Files.newInputStream(storagePath)) {
-            return mapper.readValue(in, Chef.class);
+        Chef chef = new Chef();
+        chef.setName(streamChef(chef::addRecipe, null));
+        attach(chef);
+        return chef;
+    }
+
+    /**
+     * Streams the stored recipes into {@code sink} one at a time instead of binding the whole file.
+     * In journaled mode the journal is replayed over the snapshot as it streams, and journal files written
+     * against another snapshot are dropped. With atomic snapshots, the newest snapshot whose checksum holds
+     * is read, and with memory mapping a binary snapshot's recipes are handed out as summaries backed by the
+     * mapped file.
+     *
+     * @return the stored chef's name
+     */
+    public String streamChef(Consumer<Recipe> sink, LoadProgressListener progress) throws IOException {
+        Path source = locateSnapshot();
+        JournalReplay replay = journal == null ? null : replayJournal(source);
+        Consumer<Recipe> target = replay == null ? sink : replay.overlay(sink);
+        MappedChefFile mapped = memoryMapped && isBinary(source) ? MappedChefFile.open(source) : null;
+        String name;
+        if (mapped != null) {
+            if (segments != null) {
+                segments.seed(mapped);
+            }
+            name = mapped.read(target, progress);
+        } else {
+            name = read(source, target, progress);
+        }
+        if (replay != null) {
+            replay.emitRemaining(sink);
+        }
+        return name;
+    }
+
+    /**
+     * Starts tracking {@code chef}'s mutations so that saving it only journals or re-encodes what changed.
+     * {@link #loadChef()} attaches automatically; callers that build the chef from {@link #streamChef}
+     * attach once loading is complete. Does nothing unless the repository is journaled or saves binary
+     * snapshots.
+     */
+    public void attach(Chef chef) {
+        if ((journal == null && segments == null) || chef == attachedChef) {
+            return;
         }
+        if (attachedChef != null) {
+            forEachTracker(attachedChef::removeListener);
+        }
+        attachedChef = chef;
+        if (journal != null) {
+            journal.follow(chef);
+        }
+        forEachTracker(chef::addListener);
+    }
+
+    /**
+     * Reads a book from any file this repository can recognise, without touching the stored one.
+     */
+    public Chef importChef(Path file) throws IOException {
+        Chef chef = new Chef();
+        chef.setName(read(file, chef::addRecipe, null));
+        return chef;
+    }
+
+    /**
+     * Writes {@code chef} to {@code file} as indented JSON, whatever codec the repository saves with.
+     */
+    public void exportJson(Chef chef, Path file) throws IOException {
+        mapper.writeValue(file.toFile(), chef);
     }
 
     public void saveChef(Chef chef) throws IOException {
+        write(prepare(chef, false));
+    }
+
+    /**
+     * Captures what {@link #saveChef} would write without touching the disk. Call it on the thread that
+     * mutates {@code chef}; the returned save can then be written from any thread.
+     */
+    public PendingSave prepareSave(Chef chef) {
+        return prepare(chef, true);
+    }
+
+    /**
+     * Blocks until any background compaction has finished.
+     *
+     * @throws IOException if the compaction failed; its records stay on disk and are replayed on load
+     */
+    public synchronized void awaitCompaction() throws IOException {
+        Future<Long> running = compaction;
+        if (running == null) {
+            return;
+        }
+        long checksum;
+        try {
+            checksum = running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for compaction");
+        } catch (ExecutionException e) {
+            compaction = null;
+            throw new IOException("Background compaction failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        compaction = null;
+        journal.rebase(checksum);
+    }
+
+    /**
+     * Waits for background compaction and stops its thread. The repository may still load and save
+     * afterwards, but journaled saves no longer compact.
+     */
+    public void close() throws IOException {
+        if (compactor == null) {
+            return;
+        }
+        try {
+            awaitCompaction();
+        } finally {
+            compactor.shutdown();
+        }
+    }
+
+    private PendingSave prepare(Chef chef, boolean detach) {
+        if (journal != null && chef == attachedChef && !journal.needsSnapshot() && !fullSaveRequired) {
+            byte[] records = journal.drain();
+            SnapshotStore.Body compactionCopy = shouldCompact(records.length) ? snapshotOf(chef, true) : null;
+            return new PendingSave(this, null, records, compactionCopy);
+        }
+        if (journal != null) {
+            journal.snapshotTaken();
+        }
+        fullSaveRequired = false;
+        return new PendingSave(this, snapshotOf(chef, detach), null, null);
+    }
+
+    private SnapshotStore.Body snapshotOf(Chef chef, boolean detach) {
+        if (segments != null && chef == attachedChef) {
+            return segments.image(chef);
+        }
+        if (!detach) {
+            return out -> codec.write(chef, out);
+        }
+        // taking the snapshot is all the mutating thread does; the writer builds its own copy of the book from it
+        BookSnapshot book = chef.snapshot();
+        return out -> codec.write(book.toChef(), out);
+    }
+
+    private void forEachTracker(Consumer<ChefListener> action) {
+        if (journal != null) {
+            action.accept(journal);
+        }
+        if (segments != null) {
+            action.accept(segments);
+        }
+    }
+
+    synchronized void write(PendingSave save) throws IOException {
+        try {
+            if (save.getSnapshot() != null) {
+                awaitCompaction();
+                if (journal != null) {
+                    journal.prepareForSnapshot();
+                }
+                long checksum = writeSnapshot(save.getSnapshot());
+                if (journal != null) {
+                    journal.delete(checksum);
+                    Files.deleteIfExists(compactingPath);
+                }
+            }
+            if (journal != null) {
+                journal.append(save.getRecords());
+            }
+            if (save.getCompactionCopy() != null && isCompactionIdle()) {
+                awaitCompaction();
+                startCompaction(save.getCompactionCopy());
+            }
+        } catch (IOException e) {
+            // whatever this save carried may be missing from disk, so the next one rewrites the whole book
+            fullSaveRequired = true;
+            throw e;
+        }
+    }
+
+    private boolean shouldCompact(int pendingBytes) {
+        try {
+            return isCompactionIdle() && journal.size() + pendingBytes >= compactionThreshold();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean isCompactionIdle() {
+        Future<Long> running = compaction;
+        return (running == null || running.isDone()) && !compactor.isShutdown();
+    }
+
+    private void startCompaction(SnapshotStore.Body copy) throws IOException {
+        journal.rotateInto(compactingPath);
+        compaction = compactor.submit(() -> {
+            long checksum = writeSnapshot(copy);
+            Files.deleteIfExists(compactingPath);
+            return checksum;
+        });
+    }
+
+    private long compactionThreshold() throws IOException {
+        long snapshotBytes = Files.exists(storagePath) ? Files.size(storagePath) : 0;
+        return Math.max(minCompactionBytes, (long) (snapshotBytes * COMPACTION_RATIO));
+    }
+
+    // returns the snapshot's checksum, as SnapshotStore.checksum reads it back
+    private long writeSnapshot(SnapshotStore.Body body) throws IOException {
         createParentDirectories();
-        mapper.writeValue(storagePath.toFile(), chef);
+        if (snapshots != null) {
+            return snapshots.write(body);
+        }
+        try (FileChannel channel = FileChannel.open(storagePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return SnapshotStore.writeBody(channel, body);
+        }
+    }
+
+    // reads the journal files that apply over source, drops the ones that do not, and resumes the journal
+    private synchronized JournalReplay replayJournal(Path source) throws IOException {
+        long checksum = SnapshotStore.checksum(source);
+        JournalReplay replay = JournalReplay.read(mapper, checksum, compactingPath, journalPath);
+        if (!replay.replaysCompacting()) {
+            Files.deleteIfExists(compactingPath);
+        }
+        journal.resume(replay, checksum);
+        return replay;
+    }
+
+    private static boolean isBinary(Path source) throws IOException {
+        byte[] header = new byte[ChefCodec.HEADER_LENGTH];
+        int length;
+        try (InputStream in = Files.newInputStream(source)) {
+            length = in.readNBytes(header, 0, header.length);
+        }
+        return new BinaryChefCodec().accepts(header, length);
+    }
+
+    private String read(Path source, Consumer<Recipe> sink, LoadProgressListener progress) throws IOException {
+        long totalBytes = Files.size(source);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source))) {
+            byte[] header = new byte[ChefCodec.HEADER_LENGTH];
+            in.mark(header.length);
+            int length = in.readNBytes(header, 0, header.length);
+            in.reset();
+            for (ChefCodec reader : readers) {
+                if (reader.accepts(header, length)) {
+                    return reader.read(in, totalBytes, sink, progress);
+                }
+            }
+        }
+        throw new IOException("Unrecognised recipe book format in " + source.getFileName());
     }
 
-    private void ensureStorageFile() throws IOException {
-        if (Files.exists(storagePath)) {
+    private Path locateSnapshot() throws IOException {
+        moveLegacyBook();
+        Path source;
+        if (snapshots == null) {
+            source = Files.exists(storagePath) ? storagePath : null;
+        } else {
+            source = snapshots.newestValid();
+        }
+        if (source == null) {
+            seedStorageFile();
+            source = storagePath;
+        }
+        return source;
+    }
+
+    // the snapshot moves last, so a move cut short is finished by the next load
+    private void moveLegacyBook() throws IOException {
+        if (legacyPath == null || Files.exists(storagePath) || !Files.exists(legacyPath)) {
             return;
         }
+        List<String> suffixes = new ArrayList<>(List.of(".journal", ".compacting"));
+        for (int generation = 1; Files.exists(legacySibling("." + generation)); generation++) {
+            suffixes.add("." + generation);
+        }
+        suffixes.add("");
+        for (String suffix : suffixes) {
+            Path legacy = legacySibling(suffix);
+            if (Files.exists(legacy)) {
+                Files.move(legacy, sibling(suffix), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private Path legacySibling(String suffix) {
+        return legacyPath.resolveSibling(legacyPath.getFileName() + suffix);
+    }
+
+    private static Path withExtension(Path path, String extension) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return path.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + "." + extension);
+    }
+
+    private void seedStorageFile() throws IOException {
         createParentDirectories();
         try (InputStream resourceStream = getClass().getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
             if (resourceStream != null) {
@@ -48,7 +405,8 @@ public class ChefRepository {
                 return;
             }
         }
-        saveChef(new Chef("Chef", null));
+        Chef empty = new Chef("Chef", null);
+        writeSnapshot(out -> codec.write(empty, out));
     }
 
     private void createParentDirectories() throws IOException {
@@ -57,4 +415,8 @@ public class ChefRepository {
             Files.createDirectories(parent);
         }
     }
+
+    private Path sibling(String suffix) {
+        return storagePath.resolveSibling(storagePath.getFileName() + suffix);
+    }
 }
@@ -0,0 +1,239 @@
+package app.storage;
+
+import entities.Chef;
+import entities.Recipe;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves many chefs' books from one directory, each in its own subdirectory with its own
+ * {@link ChefRepository}. Only the most recently used chefs stay loaded: once more than {@code maxLoaded}
+ * are in memory, or their estimated size passes the memory budget, the least recently used one is saved
+ * and dropped.
+ *
+ * <p>A {@link Chef} returned by {@link #get} must not be kept across later calls, since it may be evicted
+ * and reloaded as a different instance. Changes reach disk through {@link #save} or on eviction.
+ */
+public class ChefStore {
+
+    private static final String BOOK_FILE = "chef.json";
+    private static final Pattern CHEF_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    // rough per-object costs on a 64-bit JVM with compressed pointers
+    private static final int RECIPE_OVERHEAD = 96;
+    private static final int STRING_OVERHEAD = 48;
+    // a parsed Ingredient, its list slot and its share of the interning dictionaries' entries
+    private static final int PARSED_LINE_OVERHEAD = 80;
+    // a recipe's RecipeSnapshot in the chef's published BookSnapshot and its share of the trie, measured at
+    // 45 bytes and rounded up for slots emptied by removals; a mapped recipe's snapshot adds the two lists
+    // that decode its lines from the file, and their decoders
+    private static final int SNAPSHOT_OVERHEAD = 56;
+    private static final int MAPPED_SNAPSHOT_OVERHEAD = 80;
+
+    private final Path root;
+    private final StorageOptions options;
+    private final int maxLoaded;
+    private final long memoryBudget;
+    private final LinkedHashMap<String, Loaded> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private long loadedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param memoryBudget estimated heap, in bytes, that loaded books may use together
+     */
+    public ChefStore(Path root, StorageOptions options, int maxLoaded, long memoryBudget) {
+        if (maxLoaded < 1) {
+            throw new IllegalArgumentException("At least one chef must fit in memory");
+        }
+        this.root = root;
+        this.options = options;
+        this.maxLoaded = maxLoaded;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Returns the chef's book, loading it if needed. A chef without a book on disk starts from the bundled
+     * sample book, like a fresh install.
+     *
+     * @throws IllegalArgumentException if {@code chefId} is not letters, digits, '-' or '_'
+     */
+    public synchronized Chef get(String chefId) throws IOException {
+        Loaded entry = loaded.get(requireValid(chefId));
+        if (entry != null) {
+            hits++;
+            return entry.chef;
+        }
+        misses++;
+        ChefRepository repository = new ChefRepository(root.resolve(chefId).resolve(BOOK_FILE), options);
+        Chef chef;
+        try {
+            chef = repository.loadChef();
+        } catch (IOException e) {
+            repository.close();
+            throw e;
+        }
+        entry = new Loaded(repository, chef, estimateBytes(chef));
+        loaded.put(chefId, entry);
+        loadedBytes += entry.bytes;
+        evictOverflow(chefId);
+        return chef;
+    }
+
+    /**
+     * Saves a loaded chef and measures it again, since edits change how much memory it uses.
+     * Does nothing if the chef is not loaded.
+     */
+    public synchronized void save(String chefId) throws IOException {
+        Loaded entry = loaded.get(requireValid(chefId));
+        if (entry == null) {
+            return;
+        }
+        entry.repository.saveChef(entry.chef);
+        loadedBytes -= entry.bytes;
+        entry.bytes = estimateBytes(entry.chef);
+        loadedBytes += entry.bytes;
+        evictOverflow(chefId);
+    }
+
+    /**
+     * Saves and drops every loaded chef.
+     *
+     * @throws IOException the first failure; every other chef is still saved and dropped
+     */
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (Iterator<Loaded> it = loaded.values().iterator(); it.hasNext(); ) {
+            Loaded entry = it.next();
+            it.remove();
+            loadedBytes -= entry.bytes;
+            try {
+                unload(entry);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Ids of every chef with a book on disk, whether loaded or not.
+     */
+    public List<String> chefIds() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> children = Files.list(root)) {
+            return children.filter(Files::isDirectory)
+                    .map(child -> child.getFileName().toString())
+                    .filter(name -> CHEF_ID.matcher(name).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public synchronized boolean isLoaded(String chefId) {
+        return loaded.containsKey(chefId);
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Estimated heap used by the loaded books.
+     */
+    public synchronized long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    // the chef just loaded or saved is kept even when it alone exceeds the budget
+    private void evictOverflow(String keep) throws IOException {
+        Iterator<Map.Entry<String, Loaded>> it = loaded.entrySet().iterator();
+        while ((loaded.size() > maxLoaded || loadedBytes > memoryBudget) && it.hasNext()) {
+            Map.Entry<String, Loaded> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            // a chef that cannot be saved stays loaded, so its changes are not lost
+            eldest.getValue().repository.saveChef(eldest.getValue().chef);
+            it.remove();
+            loadedBytes -= eldest.getValue().bytes;
+            evictions++;
+            eldest.getValue().repository.close();
+        }
+    }
+
+    private static void unload(Loaded entry) throws IOException {
+        try {
+            entry.repository.saveChef(entry.chef);
+        } finally {
+            entry.repository.close();
+        }
+    }
+
+    private static long estimateBytes(Chef chef) {
+        long bytes = 0;
+        for (Recipe recipe : chef.getRecipes()) {
+            bytes += RECIPE_OVERHEAD + SNAPSHOT_OVERHEAD
+                    + stringBytes(recipe.getName()) + stringBytes(recipe.getDietaryRestrictions());
+            // mapped recipes keep their ingredients and steps in the file, and parse lines without keeping them
+            if (recipe instanceof MappedRecipe) {
+                bytes += MAPPED_SNAPSHOT_OVERHEAD;
+            } else {
+                for (String value : recipe.getIngredients()) {
+                    bytes += stringBytes(value) + PARSED_LINE_OVERHEAD;
+                }
+                for (String value : recipe.getSteps()) {
+                    bytes += stringBytes(value);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+
+    private static String requireValid(String chefId) {
+        if (chefId == null || !CHEF_ID.matcher(chefId).matches()) {
+            throw new IllegalArgumentException("Invalid chef id: " + chefId);
+        }
+        return chefId;
+    }
+
+    private static final class Loaded {
+        private final ChefRepository repository;
+        private final Chef chef;
+        private long bytes;
+
+        Loaded(ChefRepository repository, Chef chef, long bytes) {
+            this.repository = repository;
+            this.chef = chef;
+            this.bytes = bytes;
+        }
+    }
+}
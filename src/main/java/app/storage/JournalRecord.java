@@ -0,0 +1,54 @@
+package app.storage;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import entities.Recipe;
+
+/**
+ * One line of the recipe journal: an add, update or remove applied to the book, or a base line naming the
+ * snapshot the file's records apply on top of.
+ *
+ * <p>Updates and removes find their recipe by its position in the book, alongside the book's size just after
+ * the change, so recipes that share a name stay apart. Adds always append.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+class JournalRecord {
+
+    static final String ADD = "add";
+    static final String UPDATE = "update";
+    static final String REMOVE = "remove";
+    static final String BASE = "base";
+
+    public String op;
+    public Integer position;
+    public Integer size;
+    public Recipe recipe;
+    // the snapshot's checksum, or absent on a base line of a journal that follows a compaction still running
+    public String snapshot;
+
+    static JournalRecord add(Recipe recipe) {
+        return of(ADD, null, null, recipe);
+    }
+
+    static JournalRecord update(int position, int size, Recipe recipe) {
+        return of(UPDATE, position, size, recipe);
+    }
+
+    static JournalRecord remove(int position, int size) {
+        return of(REMOVE, position, size, null);
+    }
+
+    static JournalRecord base(Long snapshot) {
+        JournalRecord record = of(BASE, null, null, null);
+        record.snapshot = snapshot == null ? null : SnapshotStore.format(snapshot);
+        return record;
+    }
+
+    private static JournalRecord of(String op, Integer position, Integer size, Recipe recipe) {
+        JournalRecord record = new JournalRecord();
+        record.op = op;
+        record.position = position;
+        record.size = size;
+        record.recipe = recipe;
+        return record;
+    }
+}
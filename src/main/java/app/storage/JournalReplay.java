@@ -0,0 +1,212 @@
+package app.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import entities.Recipe;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Folds journal records into an overlay that is applied while the snapshot streams past,
+ * so replay never needs the whole book in memory.
+ *
+ * <p>Records find their recipe by position, so recipes that share a name are never confused. Positions only
+ * mean something on top of the snapshot they were recorded against, so each file is replayed only over the
+ * snapshot its base line names: the compacting file when the snapshot is the one it was rotated from, and
+ * the journal after it, or on its own when the snapshot is its base. A file that outlived its compaction or
+ * a full save names an older snapshot and is skipped, so nothing is applied twice. Files without a base
+ * line, or following a compaction whose snapshot was never named, are replayed over whatever snapshot loads.
+ */
+class JournalReplay {
+
+    // snapshot recipes the journal replaced, by their index in the snapshot
+    private final Map<Integer, Recipe> replaced = new HashMap<>();
+    // indexes of the snapshot recipes the journal removed, ascending
+    private final List<Integer> removed = new ArrayList<>();
+    // recipes the journal added and still holds, in book order
+    private final List<Recipe> added = new ArrayList<>();
+    private final Log compacting;
+    private final Log journal;
+    private final boolean replaysCompacting;
+    private final boolean replaysJournal;
+    private int streamed;
+
+    private JournalReplay(Log compacting, Log journal, long snapshot) {
+        this.compacting = compacting;
+        this.journal = journal;
+        this.replaysCompacting = compacting != null && compacting.appliesTo(snapshot);
+        this.replaysJournal = journal != null && (replaysCompacting || journal.appliesTo(snapshot));
+    }
+
+    /**
+     * Reads the compacting file and then the journal, keeping the records that apply over the snapshot
+     * with checksum {@code snapshot}.
+     *
+     * @throws IOException if a replayed record names a position the book does not have
+     */
+    static JournalReplay read(ObjectMapper mapper, long snapshot, Path compacting, Path journal)
+            throws IOException {
+        ObjectReader reader = mapper.readerFor(JournalRecord.class);
+        JournalReplay replay = new JournalReplay(Log.read(reader, compacting), Log.read(reader, journal), snapshot);
+        if (replay.replaysCompacting) {
+            replay.applyAll(replay.compacting.records);
+        }
+        if (replay.replaysJournal) {
+            replay.applyAll(replay.journal.records);
+        }
+        return replay;
+    }
+
+    boolean replaysCompacting() {
+        return replaysCompacting;
+    }
+
+    boolean replaysJournal() {
+        return replaysJournal;
+    }
+
+    /**
+     * The checksum the compacting file's base line names, or {@code null} if it names none.
+     */
+    Long compactingBase() {
+        return compacting == null ? null : compacting.base;
+    }
+
+    /**
+     * The checksum the journal's base lines name, or {@code null} if they name none.
+     */
+    Long journalBase() {
+        return journal == null ? null : journal.base;
+    }
+
+    /**
+     * Wraps {@code sink} so snapshot recipes touched by the journal are replaced or dropped in place.
+     */
+    Consumer<Recipe> overlay(Consumer<Recipe> sink) {
+        return recipe -> {
+            int index = streamed++;
+            if (Collections.binarySearch(removed, index) >= 0) {
+                return;
+            }
+            Recipe replacement = replaced.get(index);
+            sink.accept(replacement == null ? recipe : replacement);
+        };
+    }
+
+    /**
+     * Emits the recipes the journal added, in the order they are in the book.
+     */
+    void emitRemaining(Consumer<Recipe> sink) {
+        added.forEach(sink);
+    }
+
+    private void applyAll(List<JournalRecord> records) throws IOException {
+        for (JournalRecord record : records) {
+            apply(record);
+        }
+    }
+
+    private void apply(JournalRecord record) throws IOException {
+        if (JournalRecord.ADD.equals(record.op) && record.recipe != null) {
+            added.add(record.recipe);
+        } else if (JournalRecord.UPDATE.equals(record.op) && record.recipe != null) {
+            int fromSnapshot = snapshotRecipes(record, record.size);
+            if (record.position >= fromSnapshot) {
+                added.set(record.position - fromSnapshot, record.recipe);
+            } else {
+                replaced.put(snapshotIndex(record.position), record.recipe);
+            }
+        } else if (JournalRecord.REMOVE.equals(record.op)) {
+            int fromSnapshot = snapshotRecipes(record, record.size == null ? null : record.size + 1);
+            if (record.position >= fromSnapshot) {
+                added.remove(record.position - fromSnapshot);
+            } else {
+                int index = snapshotIndex(record.position);
+                replaced.remove(index);
+                removed.add(-Collections.binarySearch(removed, index) - 1, index);
+            }
+        }
+    }
+
+    // how many of the book's recipes, just before the record's change, came from the snapshot
+    private int snapshotRecipes(JournalRecord record, Integer sizeBefore) throws IOException {
+        if (record.position == null || sizeBefore == null || record.position < 0
+                || record.position >= sizeBefore || sizeBefore < added.size()) {
+            throw new IOException("Journal record at position " + record.position + " does not fit the book");
+        }
+        return sizeBefore - added.size();
+    }
+
+    // the index in the snapshot of the recipe now at position, skipping the ones already removed
+    private int snapshotIndex(int position) {
+        int index = position;
+        for (int gone : removed) {
+            if (gone > index) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * The records of one journal file and the snapshot its first base line names.
+     */
+    private static class Log {
+        final List<JournalRecord> records = new ArrayList<>();
+        Long base;
+
+        static Log read(ObjectReader reader, Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            Log log = new Log();
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JournalRecord record;
+                    try {
+                        record = reader.readValue(line);
+                    } catch (JsonProcessingException e) {
+                        // torn record left by a crash mid-append
+                        continue;
+                    }
+                    if (JournalRecord.BASE.equals(record.op)) {
+                        if (log.base == null && record.snapshot != null) {
+                            log.base = parseBase(record.snapshot);
+                        }
+                    } else {
+                        log.records.add(record);
+                    }
+                }
+            }
+            return log;
+        }
+
+        private static Long parseBase(String checksum) {
+            try {
+                return SnapshotStore.parse(checksum);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean appliesTo(long snapshot) {
+            return base == null || base == snapshot;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package app.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import entities.Chef;
+import entities.Recipe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * The original {@code chef.json} layout, kept for import and export and for books saved before the
+ * binary format existed.
+ */
+public class JsonChefCodec implements ChefCodec {
+
+    static final String FILE_EXTENSION = "json";
+
+    private final ObjectWriter writer;
+    private final StreamingChefLoader loader;
+
+    /**
+     * @param mapper supplies the parser factory and, through its serialization settings, the output style
+     */
+    public JsonChefCodec(ObjectMapper mapper) {
+        this(mapper, mapper.writer());
+    }
+
+    JsonChefCodec(ObjectMapper mapper, ObjectWriter writer) {
+        this.writer = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.loader = new StreamingChefLoader(mapper.getFactory());
+    }
+
+    @Override
+    public boolean accepts(byte[] header, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xff;
+            if (b == '{') {
+                return true;
+            }
+            // skip leading whitespace and a UTF-8 byte order mark
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n' && b != 0xef && b != 0xbb && b != 0xbf) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String fileExtension() {
+        return FILE_EXTENSION;
+    }
+
+    @Override
+    public void write(Chef chef, OutputStream out) throws IOException {
+        writer.writeValue(out, chef);
+    }
+
+    @Override
+    public String read(InputStream in, long totalBytes, Consumer<Recipe> sink, LoadProgressListener progress)
+            throws IOException {
+        return loader.load(in, totalBytes, sink, progress);
+    }
+}
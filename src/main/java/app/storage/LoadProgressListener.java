@@ -0,0 +1,15 @@
+package app.storage;
+
+/**
+ * Receives progress updates while a chef's recipes are streamed from storage.
+ */
+@FunctionalInterface
+public interface LoadProgressListener {
+
+    /**
+     * @param recipesLoaded number of recipes handed to the sink so far
+     * @param bytesRead     bytes consumed from the storage file so far
+     * @param totalBytes    size of the storage file, or -1 when unknown
+     */
+    void onProgress(int recipesLoaded, long bytesRead, long totalBytes);
+}
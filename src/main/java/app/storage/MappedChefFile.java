@@ -0,0 +1,215 @@
+package app.storage;
+
+import entities.Recipe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A {@link BinaryChefCodec} book read through a read-only memory mapping. Only the offsets of the string
+ * table are kept on the heap; strings are decoded from the mapping when a {@link MappedRecipe} asks for them.
+ *
+ * <p>The mapped file must never be rewritten in place, which holds for atomic snapshots: they replace the
+ * file by renaming a new one over it, and the old contents stay mapped until the mapping is collected.
+ */
+class MappedChefFile {
+
+    private final MappedByteBuffer buffer;
+    private final int[] stringOffsets;
+    private final int tableStart;
+    private final int tableEnd;
+    private int position;
+
+    private MappedChefFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        this.position = BinaryChefCodec.MAGIC.length + 1;
+        int stringCount = readLength();
+        // every entry takes at least its length byte, so a larger count is corrupt, not a huge table
+        if (stringCount > buffer.capacity() - position) {
+            throw new IOException("Truncated binary recipe book");
+        }
+        this.stringOffsets = new int[stringCount];
+        this.tableStart = position;
+        for (int i = 0; i < stringOffsets.length; i++) {
+            stringOffsets[i] = position;
+            int length = readLength();
+            position += length;
+        }
+        this.tableEnd = position;
+    }
+
+    /**
+     * Maps {@code file}, or returns {@code null} if it is too large for a single mapping.
+     */
+    static MappedChefFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            return new MappedChefFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated binary recipe book", e);
+        }
+    }
+
+    /**
+     * Hands every recipe summary to {@code sink}, leaving ingredients and steps in the mapping.
+     *
+     * @return the chef's name
+     */
+    String read(Consumer<Recipe> sink, LoadProgressListener progress) throws IOException {
+        try {
+            String chefName = string(readLength());
+            int recipeCount = readLength();
+            // the few distinct dietary labels are shared by every recipe that uses them
+            Map<Integer, String> labels = new HashMap<>();
+            for (int loaded = 1; loaded <= recipeCount; loaded++) {
+                int recordOffset = position;
+                int recordLength = readLength();
+                int next = position + recordLength;
+                String name = string(readLength());
+                String dietary = labels.computeIfAbsent(readLength(), this::string);
+                int prepTime = readSigned();
+                int cookTime = readSigned();
+                int servings = readSigned();
+                // the record's remaining bytes are its ingredients and steps
+                MappedRecipe recipe = new MappedRecipe(this, recordOffset, position);
+                recipe.setName(name);
+                recipe.setDietaryRestrictions(dietary);
+                recipe.setPrepTime(prepTime);
+                recipe.setCookTime(cookTime);
+                recipe.setServings(servings);
+                position = next;
+                sink.accept(recipe);
+                if (progress != null && (loaded % StreamingChefLoader.PROGRESS_INTERVAL == 0 || loaded == recipeCount)) {
+                    progress.onProgress(loaded, position, buffer.capacity());
+                }
+            }
+            if (progress != null && recipeCount == 0) {
+                progress.onProgress(0, position, buffer.capacity());
+            }
+            return chefName;
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            throw new IOException("Truncated binary recipe book", e);
+        }
+    }
+
+    int size() {
+        return buffer.capacity();
+    }
+
+    int stringCount() {
+        return stringOffsets.length;
+    }
+
+    /**
+     * The encoded string table, without its leading count.
+     */
+    ByteBuffer stringTable() {
+        return slice(tableStart, tableEnd);
+    }
+
+    /**
+     * The encoded record starting at {@code recordOffset}, including its length prefix.
+     */
+    ByteBuffer record(int recordOffset) {
+        Cursor cursor = new Cursor(recordOffset);
+        int length = cursor.readUnsigned();
+        return slice(recordOffset, cursor.offset + length);
+    }
+
+    List<String> ingredients(int bodyOffset) {
+        return new Cursor(bodyOffset).readList();
+    }
+
+    List<String> steps(int bodyOffset) {
+        Cursor cursor = new Cursor(bodyOffset);
+        cursor.skipList();
+        return cursor.readList();
+    }
+
+    private ByteBuffer slice(int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(to).position(from);
+        return slice.slice();
+    }
+
+    private int readLength() throws IOException {
+        Cursor cursor = new Cursor(position);
+        int value = cursor.readUnsigned();
+        position = cursor.offset;
+        if (value < 0) {
+            throw new IOException("Corrupt length " + value);
+        }
+        return value;
+    }
+
+    private int readSigned() {
+        Cursor cursor = new Cursor(position);
+        int value = cursor.readUnsigned();
+        position = cursor.offset;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private String string(int reference) {
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > stringOffsets.length) {
+            throw new IllegalStateException("String reference " + reference + " is outside the table");
+        }
+        Cursor cursor = new Cursor(stringOffsets[reference - 1]);
+        byte[] bytes = new byte[cursor.readUnsigned()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(cursor.offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // absolute reads leave the shared buffer's position alone, so concurrent decoders do not interfere
+    private class Cursor {
+        private int offset;
+
+        Cursor(int offset) {
+            this.offset = offset;
+        }
+
+        int readUnsigned() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = buffer.get(offset++);
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        List<String> readList() {
+            int count = readUnsigned();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string(readUnsigned()));
+            }
+            return values;
+        }
+
+        void skipList() {
+            int count = readUnsigned();
+            for (int i = 0; i < count; i++) {
+                readUnsigned();
+            }
+        }
+    }
+}
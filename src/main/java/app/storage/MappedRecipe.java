@@ -0,0 +1,139 @@
+package app.storage;
+
+import entities.Ingredient;
+import entities.Recipe;
+import entities.RecipeSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A recipe loaded from a memory-mapped binary book. Only the summary shown in the recipe list lives on the
+ * heap; ingredients and steps are decoded from the mapped file each time they are asked for, until a setter
+ * replaces them. Like every recipe's, the returned lists are read-only; edit through the setters.
+ *
+ * <p>Decoding is deferred, not avoided: indexes over ingredients or steps, such as the text, pantry and
+ * duplicate indexes, decode every body once while they index the book as it loads. What the mapping saves
+ * is heap, since the decoded lines are dropped again once indexed.
+ */
+final class MappedRecipe extends Recipe {
+
+    private final MappedChefFile file;
+    private final int recordOffset;
+    private final int bodyOffset;
+    private boolean ingredientsSet;
+    private boolean stepsSet;
+
+    MappedRecipe(MappedChefFile file, int recordOffset, int bodyOffset) {
+        this.file = file;
+        this.recordOffset = recordOffset;
+        this.bodyOffset = bodyOffset;
+    }
+
+    @Override
+    public List<String> getIngredients() {
+        return ingredientsSet ? super.getIngredients() : Collections.unmodifiableList(file.ingredients(bodyOffset));
+    }
+
+    @Override
+    public void setIngredients(List<String> ingredients) {
+        // set first, so the book told about the edit snapshots the new lines rather than the file's
+        ingredientsSet = true;
+        super.setIngredients(ingredients);
+    }
+
+    /**
+     * Parsed from the mapped file on every call and not kept, like {@link #getIngredients()}, so indexing
+     * a mapped book does not leave every parsed line on the heap.
+     */
+    @Override
+    public List<Ingredient> parsedIngredients() {
+        return ingredientsSet ? super.parsedIngredients() : Ingredient.parseAll(file.ingredients(bodyOffset));
+    }
+
+    @Override
+    public List<String> getSteps() {
+        return stepsSet ? super.getSteps() : Collections.unmodifiableList(file.steps(bodyOffset));
+    }
+
+    @Override
+    public void setSteps(List<String> steps) {
+        stepsSet = true;
+        super.setSteps(steps);
+    }
+
+    /**
+     * Leaves lines still in the mapped file there: the snapshot decodes them whenever they are read, on
+     * whichever thread reads them, so snapshotting a large mapped book stays cheap.
+     */
+    @Override
+    public RecipeSnapshot snapshot() {
+        return new RecipeSnapshot(getName(),
+                ingredientsSet ? super.getIngredients() : new MappedLines(file::ingredients, bodyOffset),
+                stepsSet ? super.getSteps() : new MappedLines(file::steps, bodyOffset),
+                getPrepTime(),
+                getCookTime(),
+                getServings(),
+                getDietaryRestrictions());
+    }
+
+    MappedChefFile getFile() {
+        return file;
+    }
+
+    /**
+     * The recipe's record as stored in the mapped file, or {@code null} once a setter has replaced its body.
+     * Name and summary fields are not tracked here, so callers must know the recipe was not updated.
+     */
+    ByteBuffer storedRecord() {
+        return ingredientsSet || stepsSet ? null : file.record(recordOffset);
+    }
+
+    int storedLength() {
+        return file.record(recordOffset).remaining();
+    }
+
+    /**
+     * A read-only list of lines decoded from the mapped file each time it is read, like the recipe's own
+     * getters, so a long-lived snapshot does not keep the book's bodies on the heap. Iterating or copying
+     * it decodes once; reading it line by line decodes on every call.
+     */
+    private static final class MappedLines extends AbstractList<String> {
+
+        private final IntFunction<List<String>> decoder;
+        private final int bodyOffset;
+
+        MappedLines(IntFunction<List<String>> decoder, int bodyOffset) {
+            this.decoder = decoder;
+            this.bodyOffset = bodyOffset;
+        }
+
+        @Override
+        public String get(int index) {
+            return lines().get(index);
+        }
+
+        @Override
+        public int size() {
+            return lines().size();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return lines().iterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            return lines().toArray();
+        }
+
+        private List<String> lines() {
+            return Collections.unmodifiableList(decoder.apply(bodyOffset));
+        }
+    }
+}
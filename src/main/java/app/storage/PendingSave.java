@@ -0,0 +1,55 @@
+package app.storage;
+
+import java.io.IOException;
+
+/**
+ * A save captured by {@link ChefRepository#prepareSave} on the thread that mutates the chef.
+ * It holds everything the write needs, so {@link #write()} can run on any thread.
+ */
+public final class PendingSave {
+
+    private static final byte[] NO_RECORDS = new byte[0];
+
+    private final ChefRepository repository;
+    private final SnapshotStore.Body snapshot;
+    private final byte[] records;
+    private final SnapshotStore.Body compactionCopy;
+
+    PendingSave(ChefRepository repository, SnapshotStore.Body snapshot, byte[] records,
+                SnapshotStore.Body compactionCopy) {
+        this.repository = repository;
+        this.snapshot = snapshot;
+        this.records = records == null ? NO_RECORDS : records;
+        this.compactionCopy = compactionCopy;
+    }
+
+    public void write() throws IOException {
+        repository.write(this);
+    }
+
+    /**
+     * Combines this save with one captured after it, so both reach disk in a single write.
+     */
+    public PendingSave mergeWith(PendingSave later) {
+        if (later.snapshot != null) {
+            return later;
+        }
+        byte[] merged = new byte[records.length + later.records.length];
+        System.arraycopy(records, 0, merged, 0, records.length);
+        System.arraycopy(later.records, 0, merged, records.length, later.records.length);
+        // an earlier compaction copy would miss the later records once the journal is rotated, so only the latest is kept
+        return new PendingSave(repository, snapshot, merged, later.compactionCopy);
+    }
+
+    SnapshotStore.Body getSnapshot() {
+        return snapshot;
+    }
+
+    byte[] getRecords() {
+        return records;
+    }
+
+    SnapshotStore.Body getCompactionCopy() {
+        return compactionCopy;
+    }
+}
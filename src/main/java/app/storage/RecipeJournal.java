@@ -0,0 +1,269 @@
+package app.storage;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records a chef's mutations as compact one-line JSON records. Records are buffered on the thread that
+ * mutates the chef and handed out by {@link #drain()}, so a save costs the size of the change rather than
+ * the size of the book and the file work can happen on another thread.
+ *
+ * <p>Each file starts with a base line naming the snapshot its records apply on top of, by the snapshot's
+ * checksum. A file started while a compaction was still writing its snapshot says it follows the compacting
+ * file instead, and is given the checksum once the compaction finishes; see {@link JournalReplay}.
+ */
+class RecipeJournal implements ChefListener {
+
+    private final Path path;
+    private final ObjectWriter writer;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private boolean needsSnapshot;
+    private Chef chef;
+    private FileChannel channel;
+    private volatile long size = -1;
+    // the snapshot the file's records apply on top of, or null while that is the one a compaction is writing
+    private Long base;
+    // the snapshot the compacting file's records apply on top of, while that file exists
+    private Long compactingBase;
+    // whether the file still lacks a line stating base
+    private boolean baseUnwritten;
+
+    RecipeJournal(Path path, ObjectWriter writer) {
+        this.path = path;
+        this.writer = writer;
+    }
+
+    @Override
+    public void recipeAdded(Recipe recipe) {
+        buffer(JournalRecord.add(recipe));
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe, int position) {
+        if (position >= 0) {
+            buffer(JournalRecord.update(position, chef.getRecipes().size(), recipe));
+        }
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe, int position) {
+        if (position >= 0) {
+            buffer(JournalRecord.remove(position, chef.getRecipes().size()));
+        }
+    }
+
+    @Override
+    public synchronized void recipesReplaced() {
+        pending.reset();
+        needsSnapshot = true;
+    }
+
+    /**
+     * The chef whose mutations are recorded; positions and sizes are read from its book.
+     */
+    void follow(Chef chef) {
+        this.chef = chef;
+    }
+
+    /**
+     * Carries on from the journal files left on disk, after {@code replay} was read over the snapshot
+     * with checksum {@code snapshot}. A journal file that did not apply to that snapshot is dropped.
+     */
+    void resume(JournalReplay replay, long snapshot) throws IOException {
+        compactingBase = replay.replaysCompacting() ? replay.compactingBase() : null;
+        Long follows = replay.replaysCompacting() ? null : snapshot;
+        if (!replay.replaysJournal()) {
+            delete(follows);
+        } else if (replay.journalBase() != null) {
+            base = replay.journalBase();
+            baseUnwritten = false;
+        } else {
+            base = follows;
+            baseUnwritten = follows != null;
+        }
+    }
+
+    /**
+     * Records that the snapshot with checksum {@code snapshot} now holds everything the journal file's
+     * records apply on top of, because the compaction writing it has finished.
+     */
+    void rebase(long snapshot) {
+        base = snapshot;
+        compactingBase = null;
+        baseUnwritten = true;
+    }
+
+    /**
+     * True once a change happened that the journal cannot express, so the next save must be a full snapshot.
+     */
+    synchronized boolean needsSnapshot() {
+        return needsSnapshot;
+    }
+
+    /**
+     * Hands out the records buffered since the last drain.
+     */
+    synchronized byte[] drain() {
+        byte[] records = pending.toByteArray();
+        pending.reset();
+        return records;
+    }
+
+    /**
+     * Forgets buffered records because a full snapshot captured at this point already contains them.
+     */
+    synchronized void snapshotTaken() {
+        pending.reset();
+        needsSnapshot = false;
+    }
+
+    /**
+     * Size of the journal file as of the last write, for deciding when to compact.
+     */
+    long size() throws IOException {
+        if (size < 0) {
+            size = Files.exists(path) ? Files.size(path) : 0;
+        }
+        return size;
+    }
+
+    /**
+     * Appends drained records to the journal file and forces them to disk.
+     */
+    void append(byte[] records) throws IOException {
+        if (records.length == 0) {
+            return;
+        }
+        FileChannel out = open();
+        writeBase(out);
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        out.force(false);
+        size = out.size();
+    }
+
+    /**
+     * Names the journal file's base snapshot on disk before a full snapshot is written, so that if the
+     * file outlives that snapshot it is recognised as already contained in it.
+     */
+    void prepareForSnapshot() throws IOException {
+        if (base == null) {
+            // the compaction failed, so the file still follows the compacting file's base
+            base = compactingBase;
+        }
+        if (baseUnwritten && Files.isRegularFile(path) && Files.size(path) > 0) {
+            FileChannel out = open();
+            writeBase(out);
+            out.force(false);
+            size = out.size();
+        }
+    }
+
+    /**
+     * Moves everything written so far into {@code target}, appending if it already exists,
+     * and starts an empty journal that follows it.
+     */
+    void rotateInto(Path target) throws IOException {
+        if (!Files.exists(path)) {
+            close();
+            size = 0;
+            return;
+        }
+        if (baseUnwritten) {
+            writeBase(open());
+        }
+        close();
+        size = 0;
+        if (Files.exists(target)) {
+            Files.write(target, Files.readAllBytes(path), StandardOpenOption.APPEND);
+            Files.delete(path);
+        } else {
+            Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+            compactingBase = base;
+        }
+        base = null;
+        baseUnwritten = true;
+    }
+
+    /**
+     * Drops the journal file after a full snapshot has made its records redundant, or at load because its
+     * records were not replayed, and starts an empty journal based on {@code snapshot}: a checksum, or
+     * {@code null} to follow the compacting file.
+     */
+    void delete(Long snapshot) throws IOException {
+        close();
+        size = 0;
+        Files.deleteIfExists(path);
+        if (snapshot != null) {
+            compactingBase = null;
+        }
+        base = snapshot;
+        baseUnwritten = true;
+    }
+
+    private void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ);
+            channel.position(channel.size());
+            terminateTornRecord(channel);
+        }
+        return channel;
+    }
+
+    private void writeBase(FileChannel out) throws IOException {
+        if (!baseUnwritten) {
+            return;
+        }
+        ByteBuffer line = ByteBuffer.wrap((writer.writeValueAsString(JournalRecord.base(base)) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            out.write(line);
+        }
+        baseUnwritten = false;
+    }
+
+    // a crash mid-append can leave a record without its newline; start fresh records on their own line
+    private void terminateTornRecord(FileChannel file) throws IOException {
+        long fileSize = file.size();
+        if (fileSize == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        file.read(last, fileSize - 1);
+        if (last.get(0) != '\n') {
+            file.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+    }
+
+    private synchronized void buffer(JournalRecord record) {
+        try {
+            writer.writeValue(pending, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to encode journal record", e);
+        }
+        pending.write('\n');
+    }
+}
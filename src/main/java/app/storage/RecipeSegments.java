@@ -0,0 +1,209 @@
+package app.storage;
+
+import entities.Chef;
+import entities.ChefListener;
+import entities.Recipe;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link BinaryChefCodec} encoding of every recipe between saves, so a snapshot only encodes the
+ * recipes that changed and splices the cached bytes of the rest around them.
+ *
+ * <p>Records refer into a string table that only grows between rebuilds: strings of changed recipes are
+ * appended, and strings nobody uses any more stay behind. Once the bytes appended or left behind by
+ * changes outweigh half of the last full encoding, the next image re-encodes everything into a fresh table. Recipes of a
+ * seeded {@link MappedChefFile} reuse that file's table and records without copying them onto the heap.
+ */
+class RecipeSegments implements ChefListener {
+
+    private static final double REBUILD_RATIO = 0.5;
+
+    private final Map<Recipe, ByteBuffer> segments = new IdentityHashMap<>();
+    private final Map<Recipe, Boolean> changedMapped = new IdentityHashMap<>();
+    private final BinaryChefCodec.VarIntOutput.Buffer record = new BinaryChefCodec.VarIntOutput.Buffer();
+    private MappedChefFile base;
+    private Map<String, Integer> references;
+    private BinaryChefCodec.VarIntOutput.Buffer table;
+    private int stringCount;
+    private long encodedBytes;
+    private long garbageBytes;
+
+    RecipeSegments() {
+        reset(null);
+    }
+
+    /**
+     * Starts from a book that was just mapped, so its untouched recipes are written straight from the mapping.
+     */
+    void seed(MappedChefFile file) {
+        reset(file);
+        encodedBytes = file.size();
+    }
+
+    /**
+     * Captures {@code chef} as encoded segments. Call it on the thread that mutates the chef; the image
+     * shares only bytes that are never written again, so it can be written from any thread.
+     */
+    Image image(Chef chef) {
+        boolean rebuild = encodedBytes == 0 || garbageBytes > encodedBytes * REBUILD_RATIO;
+        if (rebuild) {
+            reset(null);
+        }
+        List<ByteBuffer> parts = new ArrayList<>(chef.getRecipes().size() + 4);
+        List<ByteBuffer> records = new ArrayList<>(chef.getRecipes().size());
+        for (Recipe recipe : chef.getRecipes()) {
+            records.add(segment(recipe).duplicate());
+        }
+        int chefName = reference(chef.getName());
+
+        BinaryChefCodec.VarIntOutput.Buffer header = new BinaryChefCodec.VarIntOutput.Buffer();
+        header.write(BinaryChefCodec.MAGIC, BinaryChefCodec.MAGIC.length);
+        header.writeUnsigned(BinaryChefCodec.VERSION);
+        header.writeUnsigned(stringCount);
+        parts.add(ByteBuffer.wrap(header.bytes(), 0, header.size()));
+        if (base != null) {
+            parts.add(base.stringTable());
+        }
+        parts.add(ByteBuffer.wrap(table.bytes(), 0, table.size()));
+        BinaryChefCodec.VarIntOutput.Buffer counts = new BinaryChefCodec.VarIntOutput.Buffer();
+        counts.writeUnsigned(chefName);
+        counts.writeUnsigned(chef.getRecipes().size());
+        parts.add(ByteBuffer.wrap(counts.bytes(), 0, counts.size()));
+        parts.addAll(records);
+        Image image = new Image(parts.toArray(new ByteBuffer[0]));
+        if (rebuild) {
+            // everything in a full encoding is live, so it becomes the yardstick for later garbage
+            encodedBytes = image.size();
+            garbageBytes = 0;
+        }
+        return image;
+    }
+
+    @Override
+    public void recipeUpdated(String previousName, Recipe recipe) {
+        discard(recipe);
+        if (recipe instanceof MappedRecipe) {
+            changedMapped.put(recipe, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void recipeRemoved(Recipe recipe) {
+        discard(recipe);
+        changedMapped.remove(recipe);
+    }
+
+    @Override
+    public void recipesReplaced() {
+        garbageBytes = Long.MAX_VALUE / 2;
+    }
+
+    private ByteBuffer segment(Recipe recipe) {
+        ByteBuffer cached = segments.get(recipe);
+        if (cached != null) {
+            return cached;
+        }
+        if (recipe instanceof MappedRecipe && ((MappedRecipe) recipe).getFile() == base
+                && !changedMapped.containsKey(recipe)) {
+            ByteBuffer stored = ((MappedRecipe) recipe).storedRecord();
+            if (stored != null) {
+                return stored;
+            }
+        }
+        record.reset();
+        BinaryChefCodec.encodeRecord(recipe, this::reference, record);
+        BinaryChefCodec.VarIntOutput.Buffer framed = new BinaryChefCodec.VarIntOutput.Buffer();
+        framed.writeUnsigned(record.size());
+        framed.write(record.bytes(), record.size());
+        ByteBuffer encoded = ByteBuffer.wrap(Arrays.copyOf(framed.bytes(), framed.size()));
+        segments.put(recipe, encoded);
+        return encoded;
+    }
+
+    private void discard(Recipe recipe) {
+        ByteBuffer cached = segments.remove(recipe);
+        if (cached != null) {
+            garbageBytes += cached.remaining();
+        } else if (recipe instanceof MappedRecipe && ((MappedRecipe) recipe).getFile() == base
+                && !changedMapped.containsKey(recipe)) {
+            garbageBytes += ((MappedRecipe) recipe).storedLength();
+        }
+    }
+
+    private int reference(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer existing = references.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        table.writeUnsigned(bytes.length);
+        table.write(bytes, bytes.length);
+        // strings stay in the table even after the recipes using them change, so they count as garbage early
+        garbageBytes += bytes.length;
+        references.put(value, ++stringCount);
+        return stringCount;
+    }
+
+    private void reset(MappedChefFile file) {
+        segments.clear();
+        changedMapped.clear();
+        base = file;
+        references = new HashMap<>();
+        table = new BinaryChefCodec.VarIntOutput.Buffer();
+        stringCount = file == null ? 0 : file.stringCount();
+        encodedBytes = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * A complete binary snapshot as a sequence of byte ranges, so it can be written with gathering writes.
+     */
+    static final class Image implements SnapshotStore.Body {
+
+        private final ByteBuffer[] parts;
+
+        Image(ByteBuffer[] parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            for (ByteBuffer part : parts) {
+                byte[] bytes = new byte[part.remaining()];
+                part.duplicate().get(bytes);
+                out.write(bytes);
+            }
+        }
+
+        long size() {
+            long size = 0;
+            for (ByteBuffer part : parts) {
+                size += part.remaining();
+            }
+            return size;
+        }
+
+        @Override
+        public ByteBuffer[] segments() {
+            ByteBuffer[] copies = new ByteBuffer[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                copies[i] = parts[i].duplicate();
+            }
+            return copies;
+        }
+
+    }
+}
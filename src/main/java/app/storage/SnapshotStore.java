@@ -0,0 +1,300 @@
+package app.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes snapshots crash-safely: the new file is written next to the old one, checksummed, forced to disk
+ * and atomically moved into place, with the previous {@code generations} snapshots kept as
+ * {@code chef.json.1}, {@code chef.json.2}, ... to fall back on.
+ *
+ * <p>The checksum is a CRC32C trailer line ({@code #crc32c xxxxxxxx}) after the document. A file without a
+ * trailer, such as one written before this format or edited by hand, is accepted unverified only while no
+ * generation has a trailer; once one does, a missing trailer means the file was cut short.
+ */
+class SnapshotStore {
+
+    private static final String TRAILER_PREFIX = "\n#crc32c ";
+    static final int TRAILER_LENGTH = TRAILER_PREFIX.length() + 8 + 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes the snapshot body; the stream must not be closed by the body.
+     */
+    @FunctionalInterface
+    interface Body {
+        void writeTo(OutputStream out) throws IOException;
+
+        /**
+         * The body as ready-made byte ranges to write with a gathering write, or {@code null} to stream it.
+         */
+        default ByteBuffer[] segments() {
+            return null;
+        }
+    }
+
+    private final Path path;
+    private final int generations;
+
+    SnapshotStore(Path path, int generations) {
+        this.path = path;
+        this.generations = generations;
+    }
+
+    /**
+     * @return the snapshot's checksum, as {@link #checksum(Path)} reads it back
+     */
+    long write(Body body) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        deleteStaleTemps(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        long checksum;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                checksum = writeBody(channel, body);
+                channel.write(ByteBuffer.wrap(trailer(checksum)));
+                channel.force(true);
+            }
+            shiftGenerations();
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        forceDirectory(directory);
+        return checksum;
+    }
+
+    /**
+     * Writes {@code body} to {@code channel} and returns the CRC32C of what was written.
+     */
+    static long writeBody(FileChannel channel, Body body) throws IOException {
+        ByteBuffer[] segments = body.segments();
+        if (segments != null) {
+            CRC32C crc = new CRC32C();
+            for (ByteBuffer segment : segments) {
+                crc.update(segment.duplicate());
+            }
+            gather(channel, segments);
+            return crc.getValue();
+        }
+        // the body's own encoder already writes in large chunks, so no extra buffering layer is added
+        CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32C());
+        body.writeTo(new FilterOutputStream(checked) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        return checked.getChecksum().getValue();
+    }
+
+    /**
+     * The checksum that identifies {@code file}'s contents: the one its trailer records, or for a file
+     * without a trailer the CRC32C of the whole file.
+     */
+    static long checksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            String text = readTrailer(channel);
+            if (text != null && isTrailer(text)) {
+                try {
+                    return parse(text.substring(TRAILER_PREFIX.length(), TRAILER_LENGTH - 1));
+                } catch (NumberFormatException e) {
+                    // not a trailer after all; identify the file by its whole contents
+                }
+            }
+            return checksum(channel, channel.size());
+        }
+    }
+
+    /**
+     * A checksum as the eight hex digits the trailer and the journal's base lines write.
+     */
+    static String format(long checksum) {
+        return String.format("%08x", checksum);
+    }
+
+    static long parse(String checksum) {
+        return Long.parseLong(checksum, 16);
+    }
+
+    /**
+     * Returns the newest snapshot whose checksum holds, or {@code null} if there is no snapshot at all.
+     *
+     * @throws IOException if snapshots exist but none of them is intact
+     */
+    Path newestValid() throws IOException {
+        boolean found = false;
+        for (int generation = 0; generation <= generations; generation++) {
+            Path candidate = generation(generation);
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+            found = true;
+            Integrity integrity = check(candidate);
+            if (integrity == Integrity.INTACT || (integrity == Integrity.UNVERIFIED && !anyChecksummed())) {
+                return candidate;
+            }
+        }
+        if (found) {
+            throw new IOException("No intact snapshot of " + path.getFileName() + " was found");
+        }
+        return null;
+    }
+
+    /**
+     * Whether {@code file}'s checksum holds, or it has no trailer to check.
+     */
+    static boolean verify(Path file) throws IOException {
+        return check(file) != Integrity.DAMAGED;
+    }
+
+    private enum Integrity { INTACT, UNVERIFIED, DAMAGED }
+
+    private static Integrity check(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            String text = readTrailer(channel);
+            if (text == null) {
+                return size > 0 ? Integrity.UNVERIFIED : Integrity.DAMAGED;
+            }
+            if (!isTrailer(text)) {
+                return Integrity.UNVERIFIED;
+            }
+            long expected;
+            try {
+                expected = parse(text.substring(TRAILER_PREFIX.length(), TRAILER_LENGTH - 1));
+            } catch (NumberFormatException e) {
+                return Integrity.DAMAGED;
+            }
+            return checksum(channel, size - TRAILER_LENGTH) == expected ? Integrity.INTACT : Integrity.DAMAGED;
+        }
+    }
+
+    // only reads the last bytes of each generation, so it is cheap next to checking a checksum
+    private boolean anyChecksummed() throws IOException {
+        for (int generation = 0; generation <= generations; generation++) {
+            Path candidate = generation(generation);
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(candidate, StandardOpenOption.READ)) {
+                String text = readTrailer(channel);
+                if (text != null && isTrailer(text)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // the last TRAILER_LENGTH bytes as text, or null if the file is shorter than a trailer
+    private static String readTrailer(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < TRAILER_LENGTH) {
+            return null;
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+        while (trailer.hasRemaining() && channel.read(trailer, size - TRAILER_LENGTH + trailer.position()) > 0) {
+            // keep reading until the trailer is complete
+        }
+        return new String(trailer.array(), StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isTrailer(String text) {
+        return text.startsWith(TRAILER_PREFIX) && text.charAt(TRAILER_LENGTH - 1) == '\n';
+    }
+
+    /**
+     * Writes every segment to {@code channel}, as many per call as the channel accepts.
+     */
+    static void gather(FileChannel channel, ByteBuffer[] segments) throws IOException {
+        int first = 0;
+        while (first < segments.length) {
+            channel.write(segments, first, segments.length - first);
+            while (first < segments.length && !segments[first].hasRemaining()) {
+                first++;
+            }
+        }
+    }
+
+    Path generation(int generation) {
+        return generation == 0 ? path : path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    private void shiftGenerations() throws IOException {
+        if (generations == 0 || !Files.exists(path)) {
+            return;
+        }
+        for (int generation = generations; generation > 1; generation--) {
+            Path older = generation(generation - 1);
+            if (Files.exists(older)) {
+                Files.move(older, generation(generation), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Path previous = generation(1);
+        Files.deleteIfExists(previous);
+        try {
+            // a hard link keeps the current snapshot in place until the atomic move replaces it
+            Files.createLink(previous, path);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(path, previous);
+        }
+    }
+
+    // temp files left by a crash mid-write; saves through one store never overlap, so none is in use
+    private void deleteStaleTemps(Path directory) throws IOException {
+        String prefix = path.getFileName().toString();
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, prefix + "*.tmp")) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static long checksum(FileChannel channel, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        while (position < length) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, length - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            crc.update(buffer);
+            position += read;
+        }
+        return crc.getValue();
+    }
+
+    private static byte[] trailer(long checksum) {
+        return (TRAILER_PREFIX + format(checksum) + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory; the rename is still atomic there
+        }
+    }
+}
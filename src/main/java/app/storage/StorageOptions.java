@@ -0,0 +1,91 @@
+package app.storage;
+
+/**
+ * Optional storage behaviour for a {@link ChefRepository}. The defaults match a plain JSON file.
+ */
+public class StorageOptions {
+
+    private boolean journaled;
+    private long minCompactionBytes = 256 * 1024;
+    private boolean atomicSnapshots;
+    private int snapshotGenerations = 2;
+    private ChefCodec codec;
+    private boolean memoryMapped;
+
+    public boolean isJournaled() {
+        return journaled;
+    }
+
+    /**
+     * When enabled, saves append the recipes that changed to a journal next to the snapshot
+     * instead of rewriting the whole file; the journal is folded back in by background compaction.
+     */
+    public StorageOptions setJournaled(boolean journaled) {
+        this.journaled = journaled;
+        return this;
+    }
+
+    public long getMinCompactionBytes() {
+        return minCompactionBytes;
+    }
+
+    /**
+     * Smallest journal that triggers compaction; larger books compact once the journal reaches half the snapshot.
+     */
+    public StorageOptions setMinCompactionBytes(long minCompactionBytes) {
+        this.minCompactionBytes = minCompactionBytes;
+        return this;
+    }
+
+    public boolean isAtomicSnapshots() {
+        return atomicSnapshots;
+    }
+
+    /**
+     * When enabled, snapshots are written to a temporary file with a checksum trailer, forced to disk and
+     * atomically moved over the old one, and loading falls back to the newest intact generation.
+     */
+    public StorageOptions setAtomicSnapshots(boolean atomicSnapshots) {
+        this.atomicSnapshots = atomicSnapshots;
+        return this;
+    }
+
+    public int getSnapshotGenerations() {
+        return snapshotGenerations;
+    }
+
+    /**
+     * Number of previous snapshots kept beside the current one when atomic snapshots are enabled.
+     */
+    public StorageOptions setSnapshotGenerations(int snapshotGenerations) {
+        this.snapshotGenerations = snapshotGenerations;
+        return this;
+    }
+
+    public ChefCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Format snapshots are saved in; {@code null}, the default, keeps JSON. Stored files in any known format
+     * are still loaded, so switching codecs converts the book on its next full save.
+     */
+    public StorageOptions setCodec(ChefCodec codec) {
+        this.codec = codec;
+        return this;
+    }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * When enabled, a binary snapshot is memory-mapped on load and recipes keep only their list summary on
+     * the heap, decoding ingredients and steps from the file when asked. Takes effect only together with
+     * atomic snapshots, since a file rewritten in place would change under the mapping.
+     */
+    public StorageOptions setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+}
@@ -0,0 +1,128 @@
+package app.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import entities.Recipe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a chef file token by token, handing each recipe to a sink as soon as it is complete
+ * so callers never need the whole file or the whole object graph in memory at once.
+ */
+public class StreamingChefLoader {
+
+    static final int PROGRESS_INTERVAL = 256;
+
+    private final JsonFactory factory;
+
+    public StreamingChefLoader(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Streams the chef document in {@code in}, passing every recipe to {@code sink}.
+     *
+     * @return the chef's name, or {@code null} if the document has none
+     */
+    public String load(InputStream in,
+                       long totalBytes,
+                       Consumer<Recipe> sink,
+                       LoadProgressListener progress) throws IOException {
+        String chefName = null;
+        int loaded = 0;
+        try (JsonParser parser = factory.createParser(in)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field)) {
+                    chefName = readString(parser, value);
+                } else if ("recipes".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.accept(readRecipe(parser));
+                        loaded++;
+                        if (progress != null && loaded % PROGRESS_INTERVAL == 0) {
+                            progress.onProgress(loaded, bytesRead(parser), totalBytes);
+                        }
+                    }
+                    expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+            if (progress != null) {
+                progress.onProgress(loaded, bytesRead(parser), totalBytes);
+            }
+        }
+        return chefName;
+    }
+
+    private Recipe readRecipe(JsonParser parser) throws IOException {
+        Recipe recipe = new Recipe();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name":
+                    recipe.setName(readString(parser, value));
+                    break;
+                case "ingredients":
+                    recipe.setIngredients(readStrings(parser, value));
+                    break;
+                case "steps":
+                    recipe.setSteps(readStrings(parser, value));
+                    break;
+                case "prepTime":
+                    recipe.setPrepTime(parser.getValueAsInt());
+                    break;
+                case "cookTime":
+                    recipe.setCookTime(parser.getValueAsInt());
+                    break;
+                case "servings":
+                    recipe.setServings(parser.getValueAsInt());
+                    break;
+                case "dietaryRestrictions":
+                    recipe.setDietaryRestrictions(readString(parser, value));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        return recipe;
+    }
+
+    private List<String> readStrings(JsonParser parser, JsonToken value) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+
+    private String readString(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    private long bytesRead(JsonParser parser) {
+        return parser.currentLocation().getByteOffset();
+    }
+
+    private void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package app.storage;
+
+import entities.Chef;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Moves saves off the UI thread. Each {@link #markDirty()} captures the chef's changes and returns at once;
+ * a background thread writes them, merging every change that arrives while a write is in flight into the
+ * next single write.
+ */
+public class WriteBehindPersister {
+
+    private final ChefRepository repository;
+    private final Chef chef;
+    private final Consumer<IOException> failureHandler;
+    private final ExecutorService writer;
+    private final Object lock = new Object();
+    private PendingSave queued;
+    private boolean writing;
+
+    /**
+     * @param failureHandler told about every failed write, on the writer thread
+     */
+    public WriteBehindPersister(ChefRepository repository, Chef chef, Consumer<IOException> failureHandler) {
+        this.repository = repository;
+        this.chef = chef;
+        this.failureHandler = failureHandler;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "chef-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Records that the chef changed. Must be called on the thread that mutates the chef.
+     */
+    public void markDirty() {
+        PendingSave save = repository.prepareSave(chef);
+        synchronized (lock) {
+            queued = queued == null ? save : queued.mergeWith(save);
+            if (!writing) {
+                writing = true;
+                writer.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Blocks until every change marked so far has been written, or has failed.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (lock) {
+            while (writing) {
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Waits up to {@code timeout} for outstanding writes.
+     *
+     * @return true if everything marked so far has been written
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (writing) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flushes outstanding writes and stops the writer thread.
+     */
+    public void close() throws InterruptedException {
+        flush();
+        writer.shutdown();
+    }
+
+    private void drain() {
+        while (true) {
+            PendingSave next;
+            synchronized (lock) {
+                next = queued;
+                queued = null;
+                if (next == null) {
+                    writing = false;
+                    lock.notifyAll();
+                    return;
+                }
+            }
+            try {
+                next.write();
+            } catch (IOException e) {
+                failureHandler.accept(e);
+            } catch (RuntimeException e) {
+                failureHandler.accept(new IOException(e.getMessage(), e));
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package entities;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A chef's recipe book frozen at one {@link Chef#generation() generation}: the chef's name and a
+ * {@link RecipeSnapshot} of every recipe, in book order. Nothing in it ever changes, so background threads
+ * can read it without locks while the book goes on being edited.
+ *
+ * <p>The recipes are kept in a 32-way trie with a separate tail, as in persistent vector designs, so the
+ * snapshot after an add, edit or removal copies only the path to one leaf and shares everything else with
+ * the one before. A removal leaves an empty slot in its leaf instead of moving every later recipe, and
+ * each node counts the recipes below each child, so finding a recipe by position skips the empty slots in
+ * O(log32 n). Once the empty slots outnumber the recipes the trie is built again without them, which keeps
+ * removal O(log32 n) amortized and the trie at most twice the book's size.
+ */
+public final class BookSnapshot {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final String chefName;
+    private final long generation;
+    private final int size;
+    // the level of the root's children, in bits of slot; leaves hold recipes, every other node is a Node
+    private final int shift;
+    // null while every recipe fits in the tail
+    private final Node root;
+    // leaf slots in the trie, full or emptied, always a multiple of WIDTH
+    private final int slots;
+    // slots emptied by removals
+    private final int emptied;
+    // the last recipes, not yet a full leaf and without empty slots, kept out of the trie so most adds copy
+    // only this
+    private final Object[] tail;
+
+    private BookSnapshot(String chefName, long generation, int size, int shift, Node root, int slots,
+                         int emptied, Object[] tail) {
+        this.chefName = chefName;
+        this.generation = generation;
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.slots = slots;
+        this.emptied = emptied;
+        this.tail = tail;
+    }
+
+    static BookSnapshot of(String chefName, long generation, List<Recipe> recipes) {
+        Object[] frozen = new Object[recipes.size()];
+        for (int i = 0; i < frozen.length; i++) {
+            frozen[i] = recipes.get(i).snapshot();
+        }
+        return build(chefName, generation, frozen);
+    }
+
+    // full leaves for all but the last 1 to 32 recipes, which make the tail
+    private static BookSnapshot build(String chefName, long generation, Object[] recipes) {
+        int slots = recipes.length == 0 ? 0 : ((recipes.length - 1) >>> BITS) << BITS;
+        List<Object> level = new ArrayList<>(slots >>> BITS);
+        for (int from = 0; from < slots; from += WIDTH) {
+            level.add(Arrays.copyOfRange(recipes, from, from + WIDTH));
+        }
+        Object[] tail = Arrays.copyOfRange(recipes, slots, recipes.length);
+        if (level.isEmpty()) {
+            return new BookSnapshot(chefName, generation, recipes.length, BITS, null, 0, 0, tail);
+        }
+        // each level up groups 32 nodes, until one is left for the root
+        level = group(level);
+        int shift = BITS;
+        while (level.size() > 1) {
+            level = group(level);
+            shift += BITS;
+        }
+        return new BookSnapshot(chefName, generation, recipes.length, shift, (Node) level.get(0), slots, 0, tail);
+    }
+
+    public String getChefName() {
+        return chefName;
+    }
+
+    /**
+     * The chef's generation when this snapshot was taken.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public RecipeSnapshot get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Recipe " + index + " of " + size);
+        }
+        int inTrie = size - tail.length;
+        if (index >= inTrie) {
+            return (RecipeSnapshot) tail[index - inTrie];
+        }
+        Object node = root;
+        if (emptied == 0) {
+            // every slot is full, so the index is the slot
+            for (int level = shift; level > 0; level -= BITS) {
+                node = ((Node) node).children[(index >>> level) & MASK];
+            }
+            return (RecipeSnapshot) ((Object[]) node)[index & MASK];
+        }
+        for (int level = shift; level > 0; level -= BITS) {
+            Node parent = (Node) node;
+            int child = 0;
+            while (index >= parent.counts[child]) {
+                index -= parent.counts[child++];
+            }
+            node = parent.children[child];
+        }
+        return (RecipeSnapshot) ((Object[]) node)[liveSlot((Object[]) node, index)];
+    }
+
+    /**
+     * The recipes as a read-only list, in book order.
+     */
+    public List<RecipeSnapshot> recipes() {
+        return new Recipes();
+    }
+
+    /**
+     * A new chef with editable copies of every recipe, for code that works on whole books.
+     */
+    public Chef toChef() {
+        List<Recipe> copies = new ArrayList<>(size);
+        for (RecipeSnapshot recipe : recipes()) {
+            copies.add(recipe.toRecipe());
+        }
+        return new Chef(chefName, copies);
+    }
+
+    BookSnapshot withChefName(String chefName) {
+        return new BookSnapshot(chefName, generation, size, shift, root, slots, emptied, tail);
+    }
+
+    BookSnapshot withAdded(long generation, RecipeSnapshot recipe) {
+        if (tail.length < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = recipe;
+            return new BookSnapshot(chefName, generation, size + 1, shift, root, slots, emptied, newTail);
+        }
+        // the tail is full: it becomes a leaf of the trie, growing a new root if the old one is full too
+        Node newRoot;
+        int newShift = shift;
+        if (root == null) {
+            newRoot = new Node();
+            newRoot.children[0] = tail;
+            newRoot.counts[0] = WIDTH;
+        } else if (slots == WIDTH << shift) {
+            newRoot = new Node();
+            newRoot.children[0] = root;
+            newRoot.counts[0] = size - tail.length;
+            newRoot.children[1] = newPath(shift, tail);
+            newRoot.counts[1] = WIDTH;
+            newShift += BITS;
+        } else {
+            newRoot = pushLeaf(shift, root, slots, tail);
+        }
+        return new BookSnapshot(chefName, generation, size + 1, newShift, newRoot, slots + WIDTH, emptied,
+                new Object[]{recipe});
+    }
+
+    BookSnapshot withReplaced(long generation, int index, RecipeSnapshot recipe) {
+        int inTrie = size - tail.length;
+        if (index >= inTrie) {
+            Object[] newTail = tail.clone();
+            newTail[index - inTrie] = recipe;
+            return new BookSnapshot(chefName, generation, size, shift, root, slots, emptied, newTail);
+        }
+        Node newRoot = (Node) set(shift, root, index, recipe);
+        return new BookSnapshot(chefName, generation, size, shift, newRoot, slots, emptied, tail);
+    }
+
+    // every recipe after the removed one moves down one place without being touched: its slot is emptied
+    BookSnapshot withRemoved(long generation, int index) {
+        int inTrie = size - tail.length;
+        if (index >= inTrie) {
+            Object[] newTail = new Object[tail.length - 1];
+            System.arraycopy(tail, 0, newTail, 0, index - inTrie);
+            System.arraycopy(tail, index - inTrie + 1, newTail, index - inTrie, tail.length - 1 - index + inTrie);
+            return new BookSnapshot(chefName, generation, size - 1, shift, root, slots, emptied, newTail);
+        }
+        if (emptied + 1 > Math.max(WIDTH, size - 1)) {
+            Object[] rest = new Object[size];
+            int filled = collect(shift, root, rest, 0);
+            System.arraycopy(tail, 0, rest, filled, tail.length);
+            System.arraycopy(rest, index + 1, rest, index, size - 1 - index);
+            return build(chefName, generation, Arrays.copyOf(rest, size - 1));
+        }
+        Node newRoot = (Node) set(shift, root, index, null);
+        return new BookSnapshot(chefName, generation, size - 1, shift, newRoot, slots, emptied + 1, tail);
+    }
+
+    // copies the path to the index-th recipe below the node, putting the recipe in its slot or emptying it
+    private static Object set(int level, Object node, int index, RecipeSnapshot recipe) {
+        if (level == 0) {
+            Object[] leaf = ((Object[]) node).clone();
+            leaf[liveSlot(leaf, index)] = recipe;
+            return leaf;
+        }
+        Node copy = ((Node) node).copy();
+        int child = 0;
+        while (index >= copy.counts[child]) {
+            index -= copy.counts[child++];
+        }
+        copy.children[child] = set(level - BITS, copy.children[child], index, recipe);
+        if (recipe == null) {
+            copy.counts[child]--;
+        }
+        return copy;
+    }
+
+    // copies the recipes below the node to out from position at on, in order, and returns the next position
+    private static int collect(int level, Object node, Object[] out, int at) {
+        if (level == 0) {
+            for (Object recipe : (Object[]) node) {
+                if (recipe != null) {
+                    out[at++] = recipe;
+                }
+            }
+            return at;
+        }
+        for (Object child : ((Node) node).children) {
+            if (child != null) {
+                at = collect(level - BITS, child, out, at);
+            }
+        }
+        return at;
+    }
+
+    // the slot of a leaf's index-th recipe, counting only the slots still full
+    private static int liveSlot(Object[] leaf, int index) {
+        int slot = 0;
+        while (leaf[slot] == null || index-- > 0) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private static Node pushLeaf(int level, Node parent, int slot, Object[] leaf) {
+        int child = (slot >>> level) & MASK;
+        Node copy = parent.copy();
+        if (level == BITS) {
+            copy.children[child] = leaf;
+        } else {
+            Node below = (Node) parent.children[child];
+            copy.children[child] = below == null
+                    ? newPath(level - BITS, leaf)
+                    : pushLeaf(level - BITS, below, slot, leaf);
+        }
+        copy.counts[child] += WIDTH;
+        return copy;
+    }
+
+    private static Object newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Node node = new Node();
+        node.children[0] = newPath(level - BITS, leaf);
+        node.counts[0] = WIDTH;
+        return node;
+    }
+
+    // groups the nodes of the level below, or full leaves, into parents of up to 32
+    private static List<Object> group(List<Object> nodes) {
+        List<Object> parents = new ArrayList<>((nodes.size() + MASK) / WIDTH);
+        for (int start = 0; start < nodes.size(); start += WIDTH) {
+            Node parent = new Node();
+            for (int i = start; i < Math.min(nodes.size(), start + WIDTH); i++) {
+                Object child = nodes.get(i);
+                parent.children[i - start] = child;
+                parent.counts[i - start] = child instanceof Node ? ((Node) child).total() : WIDTH;
+            }
+            parents.add(parent);
+        }
+        return parents;
+    }
+
+    /**
+     * An inner node of the trie, with the number of recipes still below each of its children.
+     */
+    private static final class Node {
+
+        final Object[] children;
+        final int[] counts;
+
+        Node() {
+            this(new Object[WIDTH], new int[WIDTH]);
+        }
+
+        private Node(Object[] children, int[] counts) {
+            this.children = children;
+            this.counts = counts;
+        }
+
+        Node copy() {
+            return new Node(children.clone(), counts.clone());
+        }
+
+        int total() {
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    private final class Recipes extends AbstractList<RecipeSnapshot> implements RandomAccess {
+
+        @Override
+        public RecipeSnapshot get(int index) {
+            return BookSnapshot.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Chef {
     private String name;
     private List<Recipe> recipes = new ArrayList<>();
+    private List<Recipe> recipesView = Collections.unmodifiableList(recipes);
+    // case-folded name -> recipes with that name, in book order; almost always a single recipe
+    private final Map<String, List<Recipe>> recipesByName = new HashMap<>();
+    private final List<ChefListener> listeners = new ArrayList<>();
+    private Recipe updating;
+    private long generation;
+    private long nextBookOrder;
+    // set once a recipe object is in the book twice; finding it then means scanning for its first place
+    private boolean repeatedRecipes;
+    // replaced, never changed, on every edit, so other threads may read whichever one they find
+    private final AtomicReference<BookSnapshot> snapshot = new AtomicReference<>();
 
     public Chef() {
+        snapshot.set(BookSnapshot.of(null, generation, recipes));
     }
 
     public Chef(String name, List<Recipe> recipes) {
         this.name = name;
-        this.recipes = new ArrayList<>(Objects.requireNonNullElse(recipes, List.of()));
+        replaceRecipes(recipes);
     }
 
     public String getName() {
@@ -22,24 +38,278 @@ public class Chef {
 
     public void setName(String name) {
         this.name = name;
+        snapshot.set(snapshot.get().withChefName(name));
     }
 
+    /**
+     * The recipe book, in order. The list is read-only; change it through this class so the name index
+     * and listeners stay in sync.
+     */
     public List<Recipe> getRecipes() {
-        if (recipes == null) {
-            recipes = new ArrayList<>();
-        }
-        return recipes;
+        return recipesView;
+    }
+
+    /**
+     * Counts changes to the book: every add, edit, rename, removal and replacement made through this class
+     * moves it on, so two equal readings mean the book did not change in between. It is not a bean getter,
+     * so saved and exported books never store it and loading one never sets it.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * The book as of the last change made through this class. Unlike everything else here it may be
+     * called from any thread, and what it returns never changes, however the book is edited afterwards.
+     */
+    public BookSnapshot snapshot() {
+        return snapshot.get();
     }
 
     public void setRecipes(List<Recipe> recipes) {
-        this.recipes = new ArrayList<>(Objects.requireNonNullElse(recipes, List.of()));
+        generation++;
+        recipesByName.values().forEach(sameName -> sameName.forEach(this::release));
+        replaceRecipes(recipes);
+        listeners.forEach(ChefListener::recipesReplaced);
     }
 
     public void addRecipe(Recipe recipe) {
-        getRecipes().add(recipe);
+        generation++;
+        repeatedRecipes |= recipe.owner == this;
+        recipe.bookOrder = nextBookOrder++;
+        recipes.add(recipe);
+        index(recipe);
+        snapshot.set(snapshot.get().withAdded(generation, recipe.snapshot()));
+        listeners.forEach(listener -> listener.recipeAdded(recipe));
+    }
+
+    /**
+     * Copies every field of {@code updated} onto {@code existing}, keeping its place in the book.
+     */
+    public void updateRecipe(Recipe existing, Recipe updated) {
+        String previousName = existing.getName();
+        updating = existing;
+        try {
+            existing.setName(updated.getName());
+            existing.setIngredients(updated.getIngredients());
+            existing.setSteps(updated.getSteps());
+            existing.setDietaryRestrictions(updated.getDietaryRestrictions());
+            existing.setPrepTime(updated.getPrepTime());
+            existing.setCookTime(updated.getCookTime());
+            existing.setServings(updated.getServings());
+        } finally {
+            updating = null;
+        }
+        generation++;
+        reindex(existing, previousName);
+        int position = republish(existing);
+        listeners.forEach(listener -> listener.recipeUpdated(previousName, existing, position));
     }
 
+    /**
+     * Recipes whose name matches {@code recipeName} ignoring case, in book order.
+     */
+    public List<Recipe> findRecipesByName(String recipeName) {
+        if (recipeName == null) {
+            return List.of();
+        }
+        return recipesByName.getOrDefault(foldName(recipeName), List.of());
+    }
+
+    public boolean hasRecipeNamed(String recipeName) {
+        return !findRecipesByName(recipeName).isEmpty();
+    }
+
+    /**
+     * Removes every recipe whose name matches {@code recipeName} ignoring case.
+     */
     public boolean removeRecipeByName(String recipeName) {
-        return getRecipes().removeIf(recipe -> recipe.getName().equalsIgnoreCase(recipeName));
+        List<Recipe> matches = recipeName == null ? null : recipesByName.remove(foldName(recipeName));
+        if (matches == null) {
+            return false;
+        }
+        generation++;
+        for (Recipe recipe : matches) {
+            int position = removeFromBook(recipe);
+            unpublish(position);
+            release(recipe);
+            listeners.forEach(listener -> listener.recipeRemoved(recipe, position));
+        }
+        return true;
+    }
+
+    /**
+     * Removes this exact recipe object, once.
+     */
+    public boolean removeRecipe(Recipe recipe) {
+        int position = removeFromBook(recipe);
+        if (position < 0) {
+            return false;
+        }
+        generation++;
+        unpublish(position);
+        unindex(recipe, recipe.getName());
+        if (!findRecipesByName(recipe.getName()).contains(recipe)) {
+            release(recipe);
+        }
+        listeners.forEach(listener -> listener.recipeRemoved(recipe, position));
+        return true;
+    }
+
+    public void addListener(ChefListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChefListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Called by {@link Recipe}'s setters on a recipe in this book, after the field has changed.
+     */
+    void recipeChanged(Recipe recipe, String previousName) {
+        if (recipe == updating) {
+            return;
+        }
+        generation++;
+        reindex(recipe, previousName);
+        int position = republish(recipe);
+        listeners.forEach(listener -> listener.recipeUpdated(previousName, recipe, position));
+    }
+
+    /**
+     * The index key for a recipe name: two names get the same key exactly when
+     * {@link String#equalsIgnoreCase} considers them equal.
+     */
+    public static String foldName(String recipeName) {
+        StringBuilder folded = null;
+        for (int i = 0; i < recipeName.length(); i++) {
+            char c = recipeName.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c && folded == null) {
+                folded = new StringBuilder(recipeName.length()).append(recipeName, 0, i);
+            }
+            if (folded != null) {
+                folded.append(f);
+            }
+        }
+        return folded == null ? recipeName : folded.toString();
+    }
+
+    private void replaceRecipes(List<Recipe> source) {
+        recipes = new ArrayList<>(Objects.requireNonNullElse(source, List.of()));
+        recipesView = Collections.unmodifiableList(recipes);
+        recipesByName.clear();
+        repeatedRecipes = false;
+        for (Recipe recipe : recipes) {
+            repeatedRecipes |= recipe.owner == this;
+            recipe.bookOrder = nextBookOrder++;
+            index(recipe);
+        }
+        snapshot.set(BookSnapshot.of(name, generation, recipes));
+    }
+
+    private void index(Recipe recipe) {
+        recipe.owner = this;
+        if (recipe.getName() == null) {
+            return;
+        }
+        String key = foldName(recipe.getName());
+        List<Recipe> sameName = recipesByName.get(key);
+        if (sameName == null) {
+            recipesByName.put(key, Collections.singletonList(recipe));
+        } else {
+            List<Recipe> grown = new ArrayList<>(sameName);
+            grown.add(recipe);
+            recipesByName.put(key, grown);
+        }
+    }
+
+    private void unindex(Recipe recipe, String indexedName) {
+        if (indexedName == null) {
+            return;
+        }
+        String key = foldName(indexedName);
+        List<Recipe> sameName = recipesByName.get(key);
+        if (sameName == null) {
+            return;
+        }
+        List<Recipe> remaining = new ArrayList<>(sameName);
+        for (int i = 0; i < remaining.size(); i++) {
+            if (remaining.get(i) == recipe) {
+                remaining.remove(i);
+                break;
+            }
+        }
+        if (remaining.isEmpty()) {
+            recipesByName.remove(key);
+        } else {
+            recipesByName.put(key, remaining.size() == 1 ? Collections.singletonList(remaining.get(0)) : remaining);
+        }
+    }
+
+    // a renamed recipe moves to the end of its new name's matches; names rarely repeat, so order seldom matters
+    private void reindex(Recipe recipe, String previousName) {
+        if (Objects.equals(previousName, recipe.getName())) {
+            return;
+        }
+        unindex(recipe, previousName);
+        index(recipe);
+    }
+
+    // the recipe's position before it was removed, or -1 if it is not in the book
+    private int removeFromBook(Recipe recipe) {
+        int position = positionOf(recipe);
+        if (position >= 0) {
+            recipes.remove(position);
+        }
+        return position;
+    }
+
+    // book order rises along the book, so this is a binary search unless the recipe is in it twice or was
+    // since added to another book too
+    private int positionOf(Recipe recipe) {
+        int low = 0;
+        int high = repeatedRecipes ? -1 : recipes.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Recipe found = recipes.get(middle);
+            if (found == recipe) {
+                return middle;
+            } else if (found.bookOrder < recipe.bookOrder) {
+                low = middle + 1;
+            } else if (found.bookOrder > recipe.bookOrder) {
+                high = middle - 1;
+            } else {
+                break;
+            }
+        }
+        for (int i = 0; i < recipes.size(); i++) {
+            if (recipes.get(i) == recipe) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // the recipe's position, or -1 if it is not in the book
+    private int republish(Recipe recipe) {
+        int position = positionOf(recipe);
+        if (position >= 0) {
+            snapshot.set(snapshot.get().withReplaced(generation, position, recipe.snapshot()));
+        }
+        return position;
+    }
+
+    private void unpublish(int position) {
+        if (position >= 0) {
+            snapshot.set(snapshot.get().withRemoved(generation, position));
+        }
+    }
+
+    private void release(Recipe recipe) {
+        if (recipe.owner == this) {
+            recipe.owner = null;
+        }
     }
 }
@@ -0,0 +1,49 @@
+package entities;
+
+/**
+ * Notified after a {@link Chef}'s recipe book changes. Callbacks run on the thread that mutated the chef, so
+ * a listener that keeps its own structures in step with the book, as the indexes in {@code app.index} do,
+ * must only be read on that thread too.
+ */
+public interface ChefListener {
+
+    default void recipeAdded(Recipe recipe) {
+    }
+
+    /**
+     * Called after {@link Chef#updateRecipe}, and after any setter changes a recipe in the book in place.
+     *
+     * @param previousName the recipe's name before the update, which may differ from {@code recipe.getName()}
+     */
+    default void recipeUpdated(String previousName, Recipe recipe) {
+    }
+
+    /**
+     * The call {@link Chef} makes on an update; listeners that track recipes by their place in the book
+     * override this one instead.
+     *
+     * @param position where the recipe is in the book
+     */
+    default void recipeUpdated(String previousName, Recipe recipe, int position) {
+        recipeUpdated(previousName, recipe);
+    }
+
+    default void recipeRemoved(Recipe recipe) {
+    }
+
+    /**
+     * The call {@link Chef} makes on a removal; listeners that track recipes by their place in the book
+     * override this one instead.
+     *
+     * @param position where the recipe was in the book before it was removed
+     */
+    default void recipeRemoved(Recipe recipe, int position) {
+        recipeRemoved(recipe);
+    }
+
+    /**
+     * The whole recipe list was swapped out through {@link Chef#setRecipes}.
+     */
+    default void recipesReplaced() {
+    }
+}
@@ -1,23 +1,16 @@
 package entities;
 
-import java.util.Iterator;
 import java.util.List;
 
 public class Delete_Recipe {
 
     /**
-     * Deletes a recipe by its name from the provided list.
+     * Deletes the first recipe with the given name, ignoring case, from the chef's book, found through its
+     * name index. Unlike {@link Chef#removeRecipeByName}, any other recipes with that name stay.
      */
-    public static boolean deleteByName(List<Recipe> recipes, String name) {
-        Iterator<Recipe> it = recipes.iterator();
-        while (it.hasNext()) {
-            Recipe r = it.next();
-            if (r.getName().equalsIgnoreCase(name)) {
-                it.remove();
-                return true;
-            }
-        }
-        return false;
+    public static boolean deleteFirstByName(Chef chef, String name) {
+        List<Recipe> matches = chef.findRecipesByName(name);
+        return !matches.isEmpty() && chef.removeRecipe(matches.get(0));
     }
 
     /**
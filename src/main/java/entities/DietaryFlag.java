@@ -0,0 +1,121 @@
+package entities;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The dietary categories a recipe can be filtered by. A recipe's free-text label is parsed into a bitmask of
+ * these once, when the label is set, so filtering is a single AND per recipe. {@link #NONE} marks a recipe
+ * with no label, {@link #OTHER} one whose label names none of the known categories.
+ */
+public enum DietaryFlag {
+    NONE("None"),
+    VEGETARIAN("Vegetarian", "vegetarian", "veggie"),
+    VEGAN("Vegan", "vegan", "plant based"),
+    HALAL("Halal", "halal"),
+    KOSHER("Kosher", "kosher"),
+    GLUTEN_FREE("Gluten-free", "gluten free", "no gluten"),
+    DAIRY_FREE("Dairy-free", "dairy free", "no dairy", "lactose free"),
+    NUT_FREE("Nut-free", "nut free", "no nuts"),
+    PESCATARIAN("Pescatarian", "pescatarian", "pescetarian"),
+    KETO("Keto", "keto", "ketogenic"),
+    OTHER("Other");
+
+    // labels repeat across a book, so each distinct one is parsed once; the cap keeps odd inputs bounded
+    private static final int CACHE_LIMIT = 4096;
+    private static final Map<String, Integer> PARSED = new ConcurrentHashMap<>();
+
+    private final String label;
+    private final List<String> phrases;
+
+    DietaryFlag(String label, String... phrases) {
+        this.label = label;
+        this.phrases = List.of(phrases);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    /**
+     * The categories a dietary label mentions. "Vegetarian, contains dairy" is {@link #VEGETARIAN};
+     * "Vegan" is also {@link #VEGETARIAN} and {@link #DAIRY_FREE}, since a vegan dish suits both. A phrase
+     * preceded by "non" or "not" does not count.
+     */
+    public static int parse(String text) {
+        if (text == null || text.isBlank()) {
+            return NONE.mask();
+        }
+        Integer cached = PARSED.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        int flags = parseUncached(text);
+        if (PARSED.size() < CACHE_LIMIT) {
+            PARSED.put(text, flags);
+        }
+        return flags;
+    }
+
+    public static int mask(Collection<DietaryFlag> flags) {
+        int mask = 0;
+        for (DietaryFlag flag : flags) {
+            mask |= flag.mask();
+        }
+        return mask;
+    }
+
+    public static EnumSet<DietaryFlag> fromMask(int mask) {
+        EnumSet<DietaryFlag> flags = EnumSet.noneOf(DietaryFlag.class);
+        for (DietaryFlag flag : values()) {
+            if ((mask & flag.mask()) != 0) {
+                flags.add(flag);
+            }
+        }
+        return flags;
+    }
+
+    private static int parseUncached(String text) {
+        // letters only, single-spaced and padded, so " gluten free " matches "Gluten-free" and "gluten  free"
+        String normalized = " " + text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}]+", " ").trim() + " ";
+        if (normalized.equals(" none ")) {
+            return NONE.mask();
+        }
+        int flags = 0;
+        for (DietaryFlag flag : values()) {
+            for (String phrase : flag.phrases) {
+                if (mentions(normalized, phrase)) {
+                    flags |= flag.mask();
+                    break;
+                }
+            }
+        }
+        if ((flags & VEGAN.mask()) != 0) {
+            flags |= VEGETARIAN.mask() | DAIRY_FREE.mask();
+        }
+        return flags == 0 ? OTHER.mask() : flags;
+    }
+
+    private static boolean mentions(String normalized, String phrase) {
+        String needle = " " + phrase + " ";
+        for (int at = normalized.indexOf(needle); at >= 0; at = normalized.indexOf(needle, at + 1)) {
+            if (!normalized.startsWith(" non", at - 4) && !normalized.startsWith(" not", at - 4)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,330 @@
+package entities;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * One ingredient line split into quantity, unit and item: "1 1/2 cups of plain flour, sifted" is 1.5
+ * "cup" of "plain flour". Lines are parsed in a single left-to-right pass when a recipe's ingredients are
+ * set, and the original text is kept alongside.
+ *
+ * <p>Parsed lines and item names are interned in shared dictionaries, so the thousands of "Salt" and
+ * "Olive oil" lines in a large book are one object each. The dictionaries hold their entries weakly: an
+ * entry lasts as long as some recipe still holds its line, so a book that is closed or evicted takes its
+ * entries with it, and what remains is part of the memory its recipes are charged for. Instances are
+ * immutable and safe to share.
+ */
+public final class Ingredient {
+
+    // a book has far fewer distinct lines than this; the cap keeps an unusual import from growing it forever
+    private static final int DICTIONARY_LIMIT = 1 << 20;
+    // guarded by themselves; WeakHashMap is not thread-safe and lines are parsed on loader threads too
+    private static final Map<String, WeakReference<Ingredient>> LINES = new WeakHashMap<>();
+    private static final Map<String, WeakReference<String>> ITEMS = new WeakHashMap<>();
+    private static final Map<String, String> UNITS = Map.ofEntries(
+            Map.entry("g", "g"), Map.entry("gr", "g"), Map.entry("gram", "g"), Map.entry("grams", "g"),
+            Map.entry("kg", "kg"), Map.entry("kilogram", "kg"), Map.entry("kilograms", "kg"),
+            Map.entry("mg", "mg"),
+            Map.entry("ml", "ml"), Map.entry("millilitre", "ml"), Map.entry("millilitres", "ml"),
+            Map.entry("milliliter", "ml"), Map.entry("milliliters", "ml"),
+            Map.entry("l", "l"), Map.entry("litre", "l"), Map.entry("litres", "l"),
+            Map.entry("liter", "l"), Map.entry("liters", "l"),
+            Map.entry("cup", "cup"), Map.entry("cups", "cup"),
+            Map.entry("tbsp", "tbsp"), Map.entry("tbs", "tbsp"), Map.entry("tablespoon", "tbsp"),
+            Map.entry("tablespoons", "tbsp"),
+            Map.entry("tsp", "tsp"), Map.entry("teaspoon", "tsp"), Map.entry("teaspoons", "tsp"),
+            Map.entry("oz", "oz"), Map.entry("ounce", "oz"), Map.entry("ounces", "oz"),
+            Map.entry("lb", "lb"), Map.entry("lbs", "lb"), Map.entry("pound", "lb"), Map.entry("pounds", "lb"),
+            Map.entry("clove", "clove"), Map.entry("cloves", "clove"),
+            Map.entry("can", "can"), Map.entry("cans", "can"),
+            Map.entry("box", "box"), Map.entry("boxes", "box"),
+            Map.entry("pinch", "pinch"), Map.entry("pinches", "pinch"),
+            Map.entry("dash", "dash"), Map.entry("dashes", "dash"),
+            Map.entry("slice", "slice"), Map.entry("slices", "slice"),
+            Map.entry("piece", "piece"), Map.entry("pieces", "piece"),
+            Map.entry("handful", "handful"), Map.entry("handfuls", "handful"),
+            Map.entry("bunch", "bunch"), Map.entry("bunches", "bunch"),
+            Map.entry("stick", "stick"), Map.entry("sticks", "stick"),
+            Map.entry("package", "package"), Map.entry("packages", "package"), Map.entry("pkg", "package"));
+
+    private final String original;
+    private final double quantity;
+    private final String unit;
+    private final String item;
+
+    private Ingredient(String original, double quantity, String unit, String item) {
+        this.original = original;
+        this.quantity = quantity;
+        this.unit = unit;
+        this.item = item;
+    }
+
+    /**
+     * The parsed form of {@code line}, shared with every other line of the same text. A null line is
+     * treated as empty.
+     */
+    public static Ingredient parse(String line) {
+        String text = line == null ? "" : line;
+        Ingredient cached = lookUp(LINES, text);
+        if (cached != null) {
+            return cached;
+        }
+        return intern(LINES, text, new Parser(text).parse());
+    }
+
+    /**
+     * {@code lines} parsed one by one, as a read-only list.
+     */
+    public static List<Ingredient> parseAll(List<String> lines) {
+        List<Ingredient> parsed = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            parsed.add(parse(line));
+        }
+        return Collections.unmodifiableList(parsed);
+    }
+
+    /**
+     * The line as written.
+     */
+    public String getOriginal() {
+        return original;
+    }
+
+    public boolean hasQuantity() {
+        return !Double.isNaN(quantity);
+    }
+
+    /**
+     * The leading amount, with fractions and mixed numbers worked out; the lower end of a range such as
+     * "2-3"; zero when the line has none.
+     */
+    public double getQuantity() {
+        return hasQuantity() ? quantity : 0;
+    }
+
+    /**
+     * The unit in a canonical spelling ("tablespoons" is "tbsp"), or an empty string for counted items
+     * such as "2 eggs".
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * The lower-case item name without quantity, unit or trailing preparation notes: "2 cloves Garlic,
+     * minced" is "garlic".
+     */
+    public String getItem() {
+        return item;
+    }
+
+    @Override
+    public String toString() {
+        return original;
+    }
+
+    private static String internItem(String item) {
+        String interned = lookUp(ITEMS, item);
+        return interned != null ? interned : intern(ITEMS, item, item);
+    }
+
+    private static <T> T lookUp(Map<String, WeakReference<T>> dictionary, String key) {
+        synchronized (dictionary) {
+            WeakReference<T> entry = dictionary.get(key);
+            return entry == null ? null : entry.get();
+        }
+    }
+
+    // the value refers to its key at most weakly, so the entry goes once nothing else holds the key
+    private static <T> T intern(Map<String, WeakReference<T>> dictionary, String key, T value) {
+        synchronized (dictionary) {
+            WeakReference<T> entry = dictionary.get(key);
+            T raced = entry == null ? null : entry.get();
+            if (raced != null) {
+                return raced;
+            }
+            if (dictionary.size() < DICTIONARY_LIMIT) {
+                dictionary.put(key, new WeakReference<>(value));
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Reads one line left to right: quantity, then unit, then item.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int at;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Ingredient parse() {
+            skipSpaces();
+            double quantity = readQuantity();
+            String unit = "";
+            if (!Double.isNaN(quantity)) {
+                int start = at;
+                skipSpaces();
+                String word = peekWord();
+                String canonical = UNITS.get(word.toLowerCase(Locale.ROOT));
+                if (canonical != null) {
+                    unit = canonical;
+                    at += word.length();
+                    skipSpaces();
+                    if (peekWord().equalsIgnoreCase("of")) {
+                        at += 2;
+                    }
+                } else {
+                    at = start;
+                }
+            }
+            return new Ingredient(text, quantity, unit, internItem(readItem()));
+        }
+
+        // "2", "1.5", "1/2", "1 1/2", "½", "1½" and the low end of "2-3"; NaN when the line does not start with one
+        private double readQuantity() {
+            double whole = readNumber();
+            if (Double.isNaN(whole)) {
+                return vulgarFraction();
+            }
+            if (at < text.length() && text.charAt(at) == '/') {
+                int slash = at++;
+                double denominator = readNumber();
+                if (Double.isNaN(denominator) || denominator == 0) {
+                    at = slash;
+                    return whole;
+                }
+                return whole / denominator;
+            }
+            double fraction = vulgarFraction();
+            if (!Double.isNaN(fraction)) {
+                return whole + fraction;
+            }
+            int afterWhole = at;
+            skipSpaces();
+            if (at < text.length() && Character.isDigit(text.charAt(at))) {
+                double numerator = readNumber();
+                if (at < text.length() && text.charAt(at) == '/') {
+                    at++;
+                    double denominator = readNumber();
+                    if (!Double.isNaN(denominator) && denominator != 0) {
+                        return whole + numerator / denominator;
+                    }
+                }
+                at = afterWhole;
+                return whole;
+            }
+            fraction = vulgarFraction();
+            if (!Double.isNaN(fraction)) {
+                return whole + fraction;
+            }
+            at = afterWhole;
+            if (at < text.length() && (text.charAt(at) == '-' || text.charAt(at) == '–')) {
+                int dash = at++;
+                if (Double.isNaN(readNumber())) {
+                    at = dash;
+                }
+            }
+            return whole;
+        }
+
+        private double readNumber() {
+            int start = at;
+            while (at < text.length() && (Character.isDigit(text.charAt(at)) || text.charAt(at) == '.')) {
+                at++;
+            }
+            if (at == start) {
+                return Double.NaN;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, at));
+            } catch (NumberFormatException ex) {
+                at = start;
+                return Double.NaN;
+            }
+        }
+
+        private double vulgarFraction() {
+            if (at >= text.length()) {
+                return Double.NaN;
+            }
+            double value;
+            switch (text.charAt(at)) {
+                case '½':
+                    value = 0.5;
+                    break;
+                case '¼':
+                    value = 0.25;
+                    break;
+                case '¾':
+                    value = 0.75;
+                    break;
+                case '⅓':
+                    value = 1.0 / 3;
+                    break;
+                case '⅔':
+                    value = 2.0 / 3;
+                    break;
+                case '⅛':
+                    value = 0.125;
+                    break;
+                default:
+                    return Double.NaN;
+            }
+            at++;
+            return value;
+        }
+
+        // the letters starting here, which is how a unit glued to its number ("100g") is read too
+        private String peekWord() {
+            int end = at;
+            while (end < text.length() && Character.isLetter(text.charAt(end))) {
+                end++;
+            }
+            return text.substring(at, end);
+        }
+
+        // up to a comma or bracket, which is where notes such as "minced" or "(optional)" start
+        private String readItem() {
+            skipSpaces();
+            if (at < text.length() && text.charAt(at) == '.') {
+                // the full stop of an abbreviated unit, as in "2 tbsp. butter"
+                at++;
+                skipSpaces();
+            }
+            StringBuilder item = new StringBuilder(text.length() - at);
+            boolean space = false;
+            for (; at < text.length(); at++) {
+                char c = text.charAt(at);
+                if (c == ',' || c == '(' || c == ';') {
+                    break;
+                }
+                if (Character.isWhitespace(c)) {
+                    space = item.length() > 0;
+                    continue;
+                }
+                if (space) {
+                    item.append(' ');
+                    space = false;
+                }
+                item.append(Character.toLowerCase(c));
+            }
+            return item.toString();
+        }
+
+        private void skipSpaces() {
+            while (at < text.length() && Character.isWhitespace(text.charAt(at))) {
+                at++;
+            }
+        }
+    }
+}
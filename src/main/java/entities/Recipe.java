@@ -1,17 +1,27 @@
 package entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 
 public class Recipe {
     private String name;
-    private List<String> ingredients = new ArrayList<>();
-    private List<String> steps = new ArrayList<>();
+    private List<String> ingredients;
+    private List<String> steps;
     private int prepTime;
     private int cookTime;
     private int servings;
     private String dietaryRestrictions;
+    // parsed from dietaryRestrictions whenever it is set; see DietaryFlag
+    private int dietaryFlags = DietaryFlag.NONE.mask();
+    // parsed from ingredients whenever they are set; see Ingredient
+    private List<Ingredient> parsedIngredients;
+    // the book indexing this recipe by name, told about renames; not part of the recipe's data
+    Chef owner;
+    // set by the owner as the recipe joins its book, rising along the book so the owner can find its place
+    long bookOrder;
 
     public Recipe() {
     }
@@ -24,12 +34,13 @@ public class Recipe {
                   int servings,
                   String dietaryRestrictions) {
         this.name = name;
-        this.ingredients = new ArrayList<>(Objects.requireNonNullElse(ingredients, List.of()));
-        this.steps = new ArrayList<>(Objects.requireNonNullElse(steps, List.of()));
+        parseIngredients(ingredients);
+        setStepList(steps);
         this.prepTime = prepTime;
         this.cookTime = cookTime;
         this.servings = servings;
         this.dietaryRestrictions = dietaryRestrictions;
+        this.dietaryFlags = DietaryFlag.parse(dietaryRestrictions);
     }
 
     public <E> Recipe(String r1, String steps, java.util.List<E> a) {
@@ -40,29 +51,53 @@ public class Recipe {
     }
 
     public void setName(String name) {
+        String previousName = this.name;
         this.name = name;
+        if (!Objects.equals(previousName, name)) {
+            changed(previousName);
+        }
     }
 
+    /**
+     * The ingredient lines, read-only; {@link #setIngredients} replaces the list rather than changing it, so
+     * a list handed out earlier, or held by a {@link RecipeSnapshot}, keeps its lines.
+     */
     public List<String> getIngredients() {
         if (ingredients == null) {
-            ingredients = new ArrayList<>();
+            ingredients = List.of();
         }
         return ingredients;
     }
 
     public void setIngredients(List<String> ingredients) {
-        this.ingredients = new ArrayList<>(Objects.requireNonNullElse(ingredients, List.of()));
+        parseIngredients(ingredients);
+        changed(name);
+    }
+
+    /**
+     * {@link #getIngredients()} split into quantity, unit and item, in the same order and as read-only.
+     */
+    public List<Ingredient> parsedIngredients() {
+        if (parsedIngredients == null) {
+            // a subclass may supply its lines without ever setting them
+            parsedIngredients = Ingredient.parseAll(getIngredients());
+        }
+        return parsedIngredients;
     }
 
+    /**
+     * The steps, read-only and replaced rather than changed, like {@link #getIngredients()}.
+     */
     public List<String> getSteps() {
         if (steps == null) {
-            steps = new ArrayList<>();
+            steps = List.of();
         }
         return steps;
     }
 
     public void setSteps(List<String> steps) {
-        this.steps = new ArrayList<>(Objects.requireNonNullElse(steps, List.of()));
+        setStepList(steps);
+        changed(name);
     }
 
     public int getPrepTime() {
@@ -70,7 +105,10 @@ public class Recipe {
     }
 
     public void setPrepTime(int prepTime) {
-        this.prepTime = prepTime;
+        if (this.prepTime != prepTime) {
+            this.prepTime = prepTime;
+            changed(name);
+        }
     }
 
     public int getCookTime() {
@@ -78,7 +116,10 @@ public class Recipe {
     }
 
     public void setCookTime(int cookTime) {
-        this.cookTime = cookTime;
+        if (this.cookTime != cookTime) {
+            this.cookTime = cookTime;
+            changed(name);
+        }
     }
 
     public int getServings() {
@@ -86,7 +127,10 @@ public class Recipe {
     }
 
     public void setServings(int servings) {
-        this.servings = servings;
+        if (this.servings != servings) {
+            this.servings = servings;
+            changed(name);
+        }
     }
 
     public String getDietaryRestrictions() {
@@ -94,6 +138,72 @@ public class Recipe {
     }
 
     public void setDietaryRestrictions(String dietaryRestrictions) {
-        this.dietaryRestrictions = dietaryRestrictions;
+        if (!Objects.equals(this.dietaryRestrictions, dietaryRestrictions)) {
+            this.dietaryRestrictions = dietaryRestrictions;
+            this.dietaryFlags = DietaryFlag.parse(dietaryRestrictions);
+            changed(name);
+        }
+    }
+
+    /**
+     * The recipe's data as it is now, unaffected by later edits.
+     */
+    public RecipeSnapshot snapshot() {
+        return new RecipeSnapshot(name, getIngredients(), getSteps(), prepTime, cookTime, servings, dietaryRestrictions);
+    }
+
+    // a recipe in a book tells it about every edit, so the book's indexes and snapshot follow in-place edits
+    private void changed(String previousName) {
+        if (owner != null) {
+            owner.recipeChanged(this, previousName);
+        }
+    }
+
+    // setSteps may be overridden, so the constructor sets the list through here
+    private void setStepList(List<String> steps) {
+        this.steps = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNullElse(steps, List.of())));
+    }
+
+    // keeps each line's interned text, so identical lines across the book share one string
+    private void parseIngredients(List<String> lines) {
+        List<String> source = Objects.requireNonNullElse(lines, List.of());
+        List<String> interned = new ArrayList<>(source.size());
+        List<Ingredient> parsed = new ArrayList<>(source.size());
+        for (String line : source) {
+            Ingredient ingredient = Ingredient.parse(line);
+            interned.add(line == null ? null : ingredient.getOriginal());
+            parsed.add(ingredient);
+        }
+        this.ingredients = Collections.unmodifiableList(interned);
+        this.parsedIngredients = Collections.unmodifiableList(parsed);
+    }
+
+    /**
+     * The dietary categories parsed from {@link #getDietaryRestrictions()}.
+     */
+    public EnumSet<DietaryFlag> dietaryFlags() {
+        return DietaryFlag.fromMask(dietaryFlags);
+    }
+
+    /**
+     * {@link #dietaryFlags()} as a mask built by {@link DietaryFlag}, without building the set.
+     */
+    public int dietaryFlagMask() {
+        return dietaryFlags;
+    }
+
+    /**
+     * Whether this recipe is in every category of {@code requiredFlags}, a mask built by {@link DietaryFlag}.
+     */
+    public boolean hasDietaryFlags(int requiredFlags) {
+        return (dietaryFlags & requiredFlags) == requiredFlags;
+    }
+
+    /**
+     * The recipe's name, which is also what Swing's list type-ahead matches against.
+     */
+    @Override
+    public String toString() {
+        return name;
     }
 }
@@ -0,0 +1,87 @@
+package entities;
+
+import java.util.List;
+
+/**
+ * A recipe's data as it was at one moment, which never changes afterwards and so can be read from any
+ * thread. Taken by {@link Recipe#snapshot()}; a {@link BookSnapshot} holds one per recipe.
+ */
+public final class RecipeSnapshot {
+
+    private final String name;
+    private final List<String> ingredients;
+    private final List<String> steps;
+    private final int prepTime;
+    private final int cookTime;
+    private final int servings;
+    private final String dietaryRestrictions;
+    private final int dietaryFlags;
+
+    /**
+     * The lists are kept rather than copied, so they must never change; {@link Recipe} hands out lists that
+     * are replaced, never modified, when the recipe is edited.
+     */
+    public RecipeSnapshot(String name,
+                          List<String> ingredients,
+                          List<String> steps,
+                          int prepTime,
+                          int cookTime,
+                          int servings,
+                          String dietaryRestrictions) {
+        this.name = name;
+        this.ingredients = ingredients;
+        this.steps = steps;
+        this.prepTime = prepTime;
+        this.cookTime = cookTime;
+        this.servings = servings;
+        this.dietaryRestrictions = dietaryRestrictions;
+        this.dietaryFlags = DietaryFlag.parse(dietaryRestrictions);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getIngredients() {
+        return ingredients;
+    }
+
+    public List<String> getSteps() {
+        return steps;
+    }
+
+    public int getPrepTime() {
+        return prepTime;
+    }
+
+    public int getCookTime() {
+        return cookTime;
+    }
+
+    public int getServings() {
+        return servings;
+    }
+
+    public String getDietaryRestrictions() {
+        return dietaryRestrictions;
+    }
+
+    /**
+     * Whether the recipe has every flag in {@code requiredFlags}, a {@link DietaryFlag} mask.
+     */
+    public boolean hasDietaryFlags(int requiredFlags) {
+        return (dietaryFlags & requiredFlags) == requiredFlags;
+    }
+
+    /**
+     * A new, editable recipe with this data, belonging to no book.
+     */
+    public Recipe toRecipe() {
+        return new Recipe(name, ingredients, steps, prepTime, cookTime, servings, dietaryRestrictions);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
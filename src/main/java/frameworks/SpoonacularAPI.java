@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 public class SpoonacularAPI {
@@ -52,10 +53,41 @@ public class SpoonacularAPI {
                 .setPrepTime(prepTime)
                 .setCookTime(cookTime)
                 .setServings(recipe.optInt("servings", 0))
-                .setDietaryRestrictions(recipe.optString("diets", ""))
+                .setDietaryRestrictions(dietaryLabel(recipe))
                 .createRecipe();
     }
 
+    /**
+     * The recipe's diets as readable text, e.g. "gluten free, dairy free". The "diets" field is a JSON array;
+     * when it is empty the boolean flags Spoonacular also sends are used instead.
+     */
+    static String dietaryLabel(JSONObject recipe) {
+        List<String> diets = new ArrayList<>();
+        JSONArray listed = recipe.optJSONArray("diets");
+        if (listed != null) {
+            for (int i = 0; i < listed.length(); i++) {
+                String diet = listed.optString(i, "").trim();
+                if (!diet.isEmpty()) {
+                    diets.add(diet);
+                }
+            }
+        }
+        if (diets.isEmpty()) {
+            if (recipe.optBoolean("vegan")) {
+                diets.add("vegan");
+            } else if (recipe.optBoolean("vegetarian")) {
+                diets.add("vegetarian");
+            }
+            if (recipe.optBoolean("glutenFree")) {
+                diets.add("gluten free");
+            }
+            if (recipe.optBoolean("dairyFree")) {
+                diets.add("dairy free");
+            }
+        }
+        return String.join(", ", diets);
+    }
+
     private static HttpURLConnection fetchAPIResponse() {
         try {
             URL url = new URL("https://api.spoonacular.com/recipes/random?apiKey=8000479eb88043f08c5f87a9f1b2fb0b");
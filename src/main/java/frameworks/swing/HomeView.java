@@ -4,10 +4,13 @@ import entities.Recipe;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionListener;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class HomeView extends JPanel {
 
@@ -16,6 +19,15 @@ public class HomeView extends JPanel {
     private final JButton addRecipeButton = new JButton("Add Recipe");
     private final JButton populateButton = new JButton("Populate");
     private final JButton filterButton = new JButton("Filter");
+    private final JButton pantryButton = new JButton("What Can I Cook?");
+    private final JButton duplicatesButton = new JButton("Duplicates");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JTextField searchField = new JTextField();
+    private final JPopupMenu suggestionPopup = new JPopupMenu();
+    private Consumer<String> suggestionListener = name -> { };
+    private final JPanel quickPickButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+    private final JComboBox<String> quickPickOrder = new JComboBox<>(new String[]{"Quickest", "Serves the most"});
+    private Consumer<String> quickPickListener = name -> { };
 
     public HomeView() {
         setLayout(new BorderLayout(16, 16));
@@ -42,6 +54,22 @@ public class HomeView extends JPanel {
         header.add(title);
         header.add(Box.createVerticalStrut(4));
         header.add(subtitle);
+
+        statusLabel.setFont(statusLabel.getFont().deriveFont(Font.ITALIC, 12f));
+        statusLabel.setForeground(Color.GRAY);
+        header.add(Box.createVerticalStrut(4));
+        header.add(statusLabel);
+
+        searchField.setToolTipText("Search names, ingredients and steps");
+        searchField.setMaximumSize(new Dimension(Integer.MAX_VALUE, searchField.getPreferredSize().height));
+        searchField.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JLabel searchLabel = new JLabel("Search");
+        searchLabel.setFont(searchLabel.getFont().deriveFont(Font.PLAIN, 12f));
+        header.add(Box.createVerticalStrut(8));
+        header.add(searchLabel);
+        header.add(searchField);
+
+        suggestionPopup.setFocusable(false);
         return header;
     }
 
@@ -54,20 +82,43 @@ public class HomeView extends JPanel {
 
         JScrollPane scrollPane = new JScrollPane(recipeList);
         scrollPane.setBorder(BorderFactory.createTitledBorder("Recipe List"));
-        return scrollPane;
+
+        JPanel section = new JPanel(new BorderLayout(0, 8));
+        section.setOpaque(false);
+        section.add(buildQuickPickStrip(), BorderLayout.NORTH);
+        section.add(scrollPane, BorderLayout.CENTER);
+        return section;
+    }
+
+    private JComponent buildQuickPickStrip() {
+        JLabel label = new JLabel("Quick picks");
+        label.setFont(label.getFont().deriveFont(Font.BOLD, 12f));
+        quickPickOrder.setFocusable(false);
+        quickPickButtons.setOpaque(false);
+
+        JPanel strip = new JPanel(new BorderLayout(8, 0));
+        strip.setOpaque(false);
+        strip.add(label, BorderLayout.WEST);
+        strip.add(quickPickButtons, BorderLayout.CENTER);
+        strip.add(quickPickOrder, BorderLayout.EAST);
+        return strip;
     }
 
     private JComponent buildActionSection() {
-        JPanel buttonRow = new JPanel(new GridLayout(1, 3, 12, 0));
+        JPanel buttonRow = new JPanel(new GridLayout(1, 5, 12, 0));
         buttonRow.setOpaque(false);
 
         addRecipeButton.setFocusable(false);
         populateButton.setFocusable(false);
         filterButton.setFocusable(false);
+        pantryButton.setFocusable(false);
+        duplicatesButton.setFocusable(false);
 
         buttonRow.add(addRecipeButton);
         buttonRow.add(populateButton);
         buttonRow.add(filterButton);
+        buttonRow.add(pantryButton);
+        buttonRow.add(duplicatesButton);
 
         return buttonRow;
     }
@@ -77,6 +128,14 @@ public class HomeView extends JPanel {
         recipes.forEach(recipeListModel::addElement);
     }
 
+    public void appendRecipes(List<Recipe> recipes) {
+        recipeListModel.addAll(recipes);
+    }
+
+    public void setStatusText(String text) {
+        statusLabel.setText(text == null || text.isEmpty() ? " " : text);
+    }
+
     public void setAddRecipeAction(ActionListener listener) {
         addRecipeButton.addActionListener(listener);
     }
@@ -89,6 +148,97 @@ public class HomeView extends JPanel {
         filterButton.addActionListener(listener);
     }
 
+    public void setPantryAction(ActionListener listener) {
+        pantryButton.addActionListener(listener);
+    }
+
+    public void setDuplicatesAction(ActionListener listener) {
+        duplicatesButton.addActionListener(listener);
+    }
+
+    /**
+     * Calls {@code listener} with the search text after every edit of the search field.
+     */
+    public void setSearchListener(Consumer<String> listener) {
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                listener.accept(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                listener.accept(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                listener.accept(searchField.getText());
+            }
+        });
+    }
+
+    /**
+     * Lists {@code names} under the search field as completions; an empty list hides them.
+     */
+    public void showSuggestions(List<String> names) {
+        suggestionPopup.setVisible(false);
+        suggestionPopup.removeAll();
+        if (names.isEmpty() || !searchField.isShowing()) {
+            return;
+        }
+        for (String name : names) {
+            JMenuItem item = new JMenuItem(name);
+            item.addActionListener(e -> {
+                suggestionPopup.setVisible(false);
+                suggestionListener.accept(name);
+            });
+            suggestionPopup.add(item);
+        }
+        suggestionPopup.show(searchField, 0, searchField.getHeight());
+        searchField.requestFocusInWindow();
+    }
+
+    /**
+     * Calls {@code listener} with the recipe name of a completion the user picks.
+     */
+    public void setSuggestionListener(Consumer<String> listener) {
+        suggestionListener = listener;
+    }
+
+    /**
+     * Shows {@code names} as buttons in the quick picks strip above the list.
+     */
+    public void setQuickPicks(List<String> names) {
+        quickPickButtons.removeAll();
+        for (String name : names) {
+            JButton button = new JButton(name);
+            button.setFocusable(false);
+            button.addActionListener(e -> quickPickListener.accept(name));
+            quickPickButtons.add(button);
+        }
+        quickPickButtons.revalidate();
+        quickPickButtons.repaint();
+    }
+
+    /**
+     * Calls {@code listener} with the recipe name of a quick pick the user clicks.
+     */
+    public void setQuickPickListener(Consumer<String> listener) {
+        quickPickListener = listener;
+    }
+
+    public void setQuickPickOrderAction(ActionListener listener) {
+        quickPickOrder.addActionListener(listener);
+    }
+
+    /**
+     * Whether the strip should show the recipes serving the most people rather than the quickest.
+     */
+    public boolean isQuickPickByServings() {
+        return quickPickOrder.getSelectedIndex() == 1;
+    }
+
     public void setRecipeSelectionListener(ListSelectionListener listener) {
         recipeList.addListSelectionListener(listener);
     }
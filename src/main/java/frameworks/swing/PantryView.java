@@ -0,0 +1,198 @@
+package frameworks.swing;
+
+import entities.Recipe;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.ListSelectionListener;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PantryView extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JTextArea pantryArea = new JTextArea(8, 24);
+    private final JSpinner missingSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 5, 1));
+    private final JButton findButton = new JButton("Find Recipes");
+    private final JButton backButton = new JButton("Back");
+    private final DefaultListModel<Result> resultListModel = new DefaultListModel<>();
+    private final JList<Result> resultList = new JList<>(resultListModel);
+    private final JLabel summaryLabel = new JLabel(" ");
+
+    public PantryView() {
+        setLayout(new BorderLayout(16, 16));
+        setBorder(new EmptyBorder(24, 24, 24, 24));
+        setBackground(Color.WHITE);
+
+        add(buildHeader(), BorderLayout.NORTH);
+        add(buildContent(), BorderLayout.CENTER);
+        add(buildActionSection(), BorderLayout.SOUTH);
+    }
+
+    private JComponent buildHeader() {
+        JLabel title = new JLabel("What Can I Cook?");
+        title.setFont(title.getFont().deriveFont(Font.BOLD, 24f));
+
+        JLabel subtitle = new JLabel("List what is in your pantry, one item per line, to see the recipes it covers.");
+        subtitle.setFont(subtitle.getFont().deriveFont(Font.PLAIN, 14f));
+        subtitle.setForeground(Color.DARK_GRAY);
+
+        JPanel header = new JPanel();
+        header.setLayout(new BoxLayout(header, BoxLayout.Y_AXIS));
+        header.setOpaque(false);
+        header.add(title);
+        header.add(Box.createVerticalStrut(4));
+        header.add(subtitle);
+        return header;
+    }
+
+    private JComponent buildContent() {
+        pantryArea.setLineWrap(true);
+        pantryArea.setWrapStyleWord(true);
+        JScrollPane pantryScroll = new JScrollPane(pantryArea);
+        pantryScroll.setBorder(BorderFactory.createTitledBorder("Pantry"));
+
+        JPanel missingRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        missingRow.setOpaque(false);
+        missingRow.add(new JLabel("Allow missing items"));
+        missingRow.add(missingSpinner);
+
+        JPanel pantryPanel = new JPanel(new BorderLayout(0, 8));
+        pantryPanel.setOpaque(false);
+        pantryPanel.add(pantryScroll, BorderLayout.CENTER);
+        pantryPanel.add(missingRow, BorderLayout.SOUTH);
+
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setBorder(new EmptyBorder(8, 8, 8, 8));
+        resultList.setCellRenderer(new ResultCellRenderer());
+        JScrollPane resultScroll = new JScrollPane(resultList);
+        resultScroll.setBorder(BorderFactory.createTitledBorder("Recipes"));
+
+        summaryLabel.setFont(summaryLabel.getFont().deriveFont(Font.ITALIC, 12f));
+        summaryLabel.setForeground(Color.GRAY);
+
+        JPanel resultPanel = new JPanel(new BorderLayout(0, 4));
+        resultPanel.setOpaque(false);
+        resultPanel.add(resultScroll, BorderLayout.CENTER);
+        resultPanel.add(summaryLabel, BorderLayout.SOUTH);
+
+        JPanel content = new JPanel(new GridLayout(1, 2, 16, 0));
+        content.setOpaque(false);
+        content.add(pantryPanel);
+        content.add(resultPanel);
+        return content;
+    }
+
+    private JComponent buildActionSection() {
+        JPanel buttonRow = new JPanel(new GridLayout(1, 2, 12, 0));
+        buttonRow.setOpaque(false);
+
+        findButton.setFocusable(false);
+        backButton.setFocusable(false);
+
+        buttonRow.add(backButton);
+        buttonRow.add(findButton);
+        return buttonRow;
+    }
+
+    /**
+     * The pantry as typed, one non-blank entry per line.
+     */
+    public List<String> getPantryItems() {
+        List<String> items = new ArrayList<>();
+        for (String line : pantryArea.getText().split("\\R")) {
+            if (!line.isBlank()) {
+                items.add(line.trim());
+            }
+        }
+        return items;
+    }
+
+    public int getAllowedMissing() {
+        return (Integer) missingSpinner.getValue();
+    }
+
+    /**
+     * Shows {@code recipes}, each with the ingredients it still needs at the same position in {@code missing}.
+     */
+    public void setResults(List<Recipe> recipes, List<List<String>> missing) {
+        resultListModel.clear();
+        for (int i = 0; i < recipes.size(); i++) {
+            resultListModel.addElement(new Result(recipes.get(i), missing.get(i)));
+        }
+        summaryLabel.setText(recipes.isEmpty() ? "No recipes match this pantry." : recipes.size() + " recipes");
+    }
+
+    public void setFindAction(ActionListener listener) {
+        findButton.addActionListener(listener);
+    }
+
+    public void setBackAction(ActionListener listener) {
+        backButton.addActionListener(listener);
+    }
+
+    public void setResultSelectionListener(ListSelectionListener listener) {
+        resultList.addListSelectionListener(listener);
+    }
+
+    public String getSelectedRecipeName() {
+        Result result = resultList.getSelectedValue();
+        return result == null ? null : result.recipe.getName();
+    }
+
+    private static final class Result {
+
+        private final Recipe recipe;
+        private final List<String> missing;
+
+        private Result(Recipe recipe, List<String> missing) {
+            this.recipe = recipe;
+            this.missing = missing;
+        }
+    }
+
+    private static class ResultCellRenderer extends JPanel implements ListCellRenderer<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final JLabel nameLabel = new JLabel();
+        private final JLabel missingLabel = new JLabel();
+
+        ResultCellRenderer() {
+            setLayout(new BorderLayout(4, 2));
+            setBorder(new EmptyBorder(6, 10, 6, 10));
+            setOpaque(true);
+
+            nameLabel.setFont(nameLabel.getFont().deriveFont(Font.BOLD, 14f));
+            missingLabel.setFont(missingLabel.getFont().deriveFont(Font.PLAIN, 12f));
+            missingLabel.setForeground(Color.DARK_GRAY);
+
+            add(nameLabel, BorderLayout.NORTH);
+            add(missingLabel, BorderLayout.CENTER);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Result> list,
+                                                      Result value,
+                                                      int index,
+                                                      boolean isSelected,
+                                                      boolean cellHasFocus) {
+            nameLabel.setText(value.recipe.getName());
+            missingLabel.setText(value.missing.isEmpty()
+                    ? "You have everything"
+                    : "Missing: " + String.join(", ", value.missing));
+
+            if (isSelected) {
+                setBackground(list.getSelectionBackground());
+                setForeground(list.getSelectionForeground());
+            } else {
+                setBackground(list.getBackground());
+                setForeground(list.getForeground());
+            }
+            return this;
+        }
+    }
+}
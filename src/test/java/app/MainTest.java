@@ -3,7 +3,6 @@ package app;
 import app.storage.ChefRepository;
 import entities.Chef;
 import org.junit.jupiter.api.Test;
-import entities.Recipe;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -21,20 +20,6 @@ class MainTest {
         assertEquals(Path.of(userHome, ".recipe-book", "chef.json"), path);
     }
 
-    @Test
-    // ensures user Chef can be called and not empty if there exist non-empty fields
-    void testLoadChef_success() {
-        Main main = new Main();
-
-        // Inject a stub ChefRepository that returns a real Chef
-        ChefRepository fakeRepo = new ChefRepositoryStub(false);
-        setPrivateField(main, "chefRepository", fakeRepo);
-
-        Chef chef = invokeLoadChef(main);
-        assertNotNull(chef);
-        assertEquals("Stub Chef", chef.getName());
-    }
-
     // Test double methods for MainTest Unittests
 
     static class ChefRepositoryStub extends ChefRepository {
@@ -64,26 +49,6 @@ class MainTest {
         }
     }
 
-    private Chef invokeLoadChef(Main main) {
-        try {
-            var method = Main.class.getDeclaredMethod("loadChef");
-            method.setAccessible(true);
-            return (Chef) method.invoke(main);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private void setPrivateField(Object target, String fieldName, Object value) {
-        try {
-            var field = Main.class.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            field.set(target, value);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     @Test
 // validate that resolveStoragePath points to a JSON file
     void testResolveStoragePath_hasJsonExtension() {
@@ -100,36 +65,6 @@ class MainTest {
         assertTrue(path.toString().contains(".recipe-book"));
     }
 
-    @Test
-// test loadChef returns non-null even if repository returns empty Chef
-    void testLoadChef_repositoryReturnsEmptyChef() {
-        Main main = new Main();
-        ChefRepository fakeRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() {
-                return new Chef(); // empty
-            }
-        };
-        setPrivateField(main, "chefRepository", fakeRepo);
-        Chef chef = invokeLoadChef(main);
-        assertNotNull(chef);
-    }
-
-    @Test
-// loadChef returns chef with expected empty recipe list
-    void testLoadChef_emptyChefHasEmptyRecipes() {
-        Main main = new Main();
-        ChefRepository fakeRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() { return new Chef("A", new ArrayList<>()); }
-        };
-        setPrivateField(main, "chefRepository", fakeRepo);
-        Chef chef = invokeLoadChef(main);
-        assertTrue(chef.getRecipes().isEmpty());
-    }
-
-
-
     @Test
 // ensure storage path always resolves under home directory
     void testResolveStoragePath_startsWithHomeDirectory() {
@@ -138,13 +73,6 @@ class MainTest {
         assertTrue(path.startsWith(System.getProperty("user.home")));
     }
 
-    @Test
-// test that reflection method for loadChef is private
-    void testLoadChefMethodIsPrivate() throws Exception {
-        var method = Main.class.getDeclaredMethod("loadChef");
-        assertFalse(method.canAccess(new Main())); // not public
-    }
-
     @Test
 // test that resolveStoragePath method is private
     void testResolveStoragePathMethodIsPrivate() throws Exception {
@@ -152,18 +80,6 @@ class MainTest {
         assertFalse(method.canAccess(new Main()));
     }
 
-    @Test
-// test that setPrivateField actually overwrites the chefRepository field
-    void testSetPrivateField_overwritesRepository() {
-        Main main = new Main();
-        ChefRepository fakeRepo = new ChefRepositoryStub(false);
-        setPrivateField(main, "chefRepository", fakeRepo);
-        Chef loaded = invokeLoadChef(main);
-        assertEquals("Stub Chef", loaded.getName());
-    }
-
-
-
     @Test
 // test that stub repository receiving correct constructor path doesn't break tests
     void testChefRepositoryStubIgnoresPath() {
@@ -179,53 +95,6 @@ class MainTest {
         assertEquals(".recipe-book", path.getParent().getFileName().toString());
     }
 
-    @Test
-// ensure that loadChef returns Chef object with name preserved
-    void testLoadChef_preservesNameFromRepository() {
-        Main main = new Main();
-
-        ChefRepository fakeRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() { return new Chef("Custom Name", new ArrayList<>()); }
-        };
-        setPrivateField(main, "chefRepository", fakeRepo);
-
-        Chef chef = invokeLoadChef(main);
-        assertEquals("Custom Name", chef.getName());
-    }
-
-    @Test
-// test loadChef when recipes list is prepopulated
-    void testLoadChef_withPrePopulatedRecipes() {
-        Main main = new Main();
-        ChefRepository fakeRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() {
-                Chef c = new Chef();
-                c.addRecipe(new Recipe());
-                return c;
-            }
-        };
-        setPrivateField(main, "chefRepository", fakeRepo);
-        Chef chef = invokeLoadChef(main);
-        assertEquals(1, chef.getRecipes().size());
-    }
-
-    @Test
-// ensure loadChef handles repository with unusual values
-    void testLoadChef_handlesWeirdChefValues() {
-        Main main = new Main();
-        ChefRepository fakeRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() {
-                return new Chef("", null); // strange but allowed
-            }
-        };
-        setPrivateField(main, "chefRepository", fakeRepo);
-        Chef chef = invokeLoadChef(main);
-        assertNotNull(chef.getRecipes()); // null must be sanitized
-    }
-
     @Test
         // verify that resolveStoragePath returns an absolute path
     void testResolveStoragePath_isAbsolutePath() {
@@ -254,19 +123,6 @@ class MainTest {
         assertEquals(first, second, "resolveStoragePath should be deterministic");
     }
 
-    @Test
-        // verify that loadChef always returns a Chef instance
-    void testLoadChef_returnsChefInstance() {
-        Main main = new Main();
-        ChefRepository fakeRepo = new ChefRepositoryStub(false);
-        setPrivateField(main, "chefRepository", fakeRepo);
-
-        Chef chef = invokeLoadChef(main);
-
-        assertNotNull(chef);
-        assertInstanceOf(Chef.class, chef);
-    }
-
     @Test
         // verify that stub repository always returns a Chef with name 'Stub Chef'
     void testChefRepositoryStub_returnsStubChefName() throws IOException {
@@ -289,46 +145,6 @@ class MainTest {
         assertTrue(chef.getRecipes().isEmpty(), "Default stub recipes list should be empty");
     }
 
-    @Test
-        // ensure setPrivateField can inject a custom anonymous ChefRepository
-    void testSetPrivateField_injectsAnonymousRepository() {
-        Main main = new Main();
-
-        ChefRepository customRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() {
-                return new Chef("Anonymous Chef", new ArrayList<>());
-            }
-        };
-
-        setPrivateField(main, "chefRepository", customRepo);
-
-        Chef chef = invokeLoadChef(main);
-        assertEquals("Anonymous Chef", chef.getName());
-    }
-
-    @Test
-        // verify that loadChef correctly reflects a repository that pre-populates multiple recipes
-    void testLoadChef_chefWithMultipleRecipes() {
-        Main main = new Main();
-
-        ChefRepository fakeRepo = new ChefRepositoryStub(false) {
-            @Override
-            public Chef loadChef() {
-                Chef c = new Chef("Multi Chef", new ArrayList<>());
-                c.addRecipe(new Recipe());
-                c.addRecipe(new Recipe());
-                return c;
-            }
-        };
-
-        setPrivateField(main, "chefRepository", fakeRepo);
-        Chef chef = invokeLoadChef(main);
-
-        assertEquals("Multi Chef", chef.getName());
-        assertEquals(2, chef.getRecipes().size());
-    }
-
     @Test
         // verify that the parent directory of the storage path is not null
     void testResolveStoragePath_parentDirectoryNotNull() {
@@ -0,0 +1,70 @@
+package app.index;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateIndexTest {
+
+    private static Recipe recipe(String name, List<String> ingredients) {
+        return new Recipe(name, ingredients, List.of("Cook"), 10, 10, 2, "");
+    }
+
+    @Test
+    // measures, quantities and case do not hide a copy; different dishes are not flagged
+    void testSimilarTo_findsNearCopies() {
+        Recipe curry = recipe("Chickpea Curry", List.of("1 can chickpeas", "2 cups coconut milk", "Curry paste", "Spinach", "Onion"));
+        Recipe copy = recipe("Chana Curry (imported)", List.of("Chickpeas", "Coconut Milk", "3 tbsp curry paste", "spinach", "1 onion"));
+        Recipe toast = recipe("Avocado Toast", List.of("Bread", "Avocado", "Lemon", "Salt"));
+        Recipe bare = recipe("Water", List.of());
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(curry, toast, bare)));
+        DuplicateIndex index = new DuplicateIndex(chef);
+
+        assertEquals(List.of(curry), index.similarTo(copy));
+        assertEquals(List.of(), index.similarTo(curry));
+        assertEquals(List.of(), index.similarTo(bare));
+
+        chef.addRecipe(copy);
+        assertEquals(List.of(copy), index.similarTo(curry));
+        assertEquals(List.of(List.of(curry, copy)), index.duplicateGroups());
+
+        chef.updateRecipe(copy, recipe("Chana Curry (imported)", List.of("Rice", "Beans", "Salsa")));
+        assertEquals(List.of(), index.duplicateGroups());
+        chef.removeRecipe(curry);
+        assertEquals(List.of(), index.similarTo(recipe("Again", curry.getIngredients())));
+    }
+
+    @Test
+    // a large book of random dishes with planted copies reports exactly the planted groups
+    void testDuplicateGroups_findsPlantedCopies() {
+        Random random = new Random(23);
+        List<Recipe> book = new ArrayList<>();
+        List<List<Recipe>> planted = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            List<String> ingredients = new ArrayList<>();
+            for (int j = 0; j < 8; j++) {
+                ingredients.add("item" + random.nextInt(100000));
+            }
+            Recipe original = recipe("Dish " + i, ingredients);
+            book.add(original);
+            if (i % 100 == 0) {
+                List<String> changed = new ArrayList<>(ingredients);
+                changed.add("garnish");
+                Recipe copy = recipe("Copy " + i, changed);
+                book.add(copy);
+                planted.add(List.of(original, copy));
+            }
+        }
+        DuplicateIndex index = new DuplicateIndex(new Chef("Ana", book));
+
+        assertEquals(planted, index.duplicateGroups());
+        assertEquals(1.0, DuplicateIndex.similarity(new int[]{1, 2}, new int[]{1, 2}), 0.0);
+        assertEquals(1.0 / 3, DuplicateIndex.similarity(new int[]{1, 2}, new int[]{2, 3}), 1e-9);
+    }
+}
@@ -0,0 +1,71 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import entities.Chef;
+import entities.DietaryFlag;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.editRandomly;
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetCountsTest {
+
+    @Test
+    // counts follow adds, edits and removals, and buckets cover every value
+    void testCounts_followMutations() {
+        Recipe salad = recipe("Salad", 10, 0, 2, "Vegan");
+        Recipe stew = recipe("Stew", 20, 120, 8, "Gluten-free");
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(salad, stew)));
+        FacetCounts facets = new FacetCounts(chef);
+
+        assertEquals(1, facets.dietaryCount(DietaryFlag.VEGAN));
+        assertEquals(1, facets.dietaryCount(DietaryFlag.VEGETARIAN));
+        assertEquals(0, facets.dietaryCount(DietaryFlag.KETO));
+        List<FacetCounts.Bucket> time = facets.buckets(Field.TOTAL_TIME);
+        assertEquals("15 or less", time.get(0).getLabel());
+        assertEquals(1, time.get(0).getCount());
+        assertEquals("121 or more", time.get(4).getLabel());
+        assertEquals(1, time.get(4).getCount());
+        assertEquals(Integer.MAX_VALUE, time.get(4).getMaximum());
+
+        Recipe keto = recipe("Keto Stew", 20, 30, 4, "Keto");
+        chef.updateRecipe(stew, keto);
+        chef.removeRecipe(salad);
+        assertEquals(0, facets.dietaryCount(DietaryFlag.VEGAN));
+        assertEquals(1, facets.dietaryCount(DietaryFlag.KETO));
+        assertEquals(List.of(0, 0, 1, 0, 0), facets.buckets(Field.TOTAL_TIME).stream()
+                .map(FacetCounts.Bucket::getCount).collect(Collectors.toList()));
+        assertEquals(1, facets.size());
+        assertThrows(IllegalArgumentException.class, () -> facets.buckets(Field.PREP_TIME));
+    }
+
+    @Test
+    // after random mutations every count equals a fresh scan of the book
+    void testCounts_matchScan() {
+        Random random = new Random(3);
+        String[] labels = {"Vegan", "Vegetarian", "Halal, nut free", "", "Keto"};
+        Chef chef = new Chef("Ana", new ArrayList<>());
+        FacetCounts facets = new FacetCounts(chef);
+        editRandomly(chef, random, 2000, () -> recipe("r", random.nextInt(80), random.nextInt(80), random.nextInt(10),
+                labels[random.nextInt(labels.length)]));
+        for (DietaryFlag flag : DietaryFlag.values()) {
+            long expected = chef.getRecipes().stream().filter(r -> r.hasDietaryFlags(flag.mask())).count();
+            assertEquals(expected, facets.dietaryCount(flag));
+        }
+        for (Field field : FacetCounts.bucketedFields()) {
+            for (FacetCounts.Bucket bucket : facets.buckets(field)) {
+                long expected = chef.getRecipes().stream()
+                        .filter(new RangeFilter().setAtLeast(field, bucket.getMinimum()).setAtMost(field, bucket.getMaximum())::test)
+                        .count();
+                assertEquals(expected, bucket.getCount());
+            }
+        }
+    }
+}
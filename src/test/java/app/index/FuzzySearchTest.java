@@ -0,0 +1,62 @@
+package app.index;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzySearchTest {
+
+    private static Recipe recipe(String name, String... ingredients) {
+        return new Recipe(name, List.of(ingredients), List.of("Cook"), 10, 20, 2, "");
+    }
+
+    @Test
+    // misspelled words still find the recipe, with exact spellings ranked first
+    void testSearch_toleratesTypos() {
+        Recipe curry = recipe("Chickpea Curry", "chickpeas", "curry paste");
+        Recipe soup = recipe("Lentil Soup", "red lentils", "cumin");
+        Recipe curdy = recipe("Curds and Whey", "curd");
+        Chef chef = new Chef("Ana", List.of(curry, soup, curdy));
+        FuzzySearch fuzzy = new FuzzySearch(new InvertedIndex(chef));
+
+        assertEquals(List.of(curry), fuzzy.search("chikpea curry", 10));
+        assertEquals(List.of(soup), fuzzy.search("lentl", 10));
+        assertEquals(List.of(curry, curdy), fuzzy.search("cury", 10));
+        assertEquals(List.of(curry), fuzzy.search("cury", 1));
+        assertEquals(List.of(curry), fuzzy.search("cury pastte", 10));
+        assertEquals(List.of(), fuzzy.search("chikpea soup", 10));
+        assertEquals(List.of(), fuzzy.search("xylophone", 10));
+    }
+
+    @Test
+    // words added after the search was created are found too
+    void testSearch_seesNewVocabulary() {
+        Chef chef = new Chef("Ana", new ArrayList<>());
+        FuzzySearch fuzzy = new FuzzySearch(new InvertedIndex(chef));
+        assertEquals(List.of(), fuzzy.search("tomato", 10));
+
+        Recipe salad = recipe("Tomato Salad", "tomatoes");
+        chef.addRecipe(salad);
+        assertEquals(List.of(salad), fuzzy.search("tomatto", 10));
+        chef.removeRecipe(salad);
+        assertEquals(List.of(), fuzzy.search("tomatto", 10));
+    }
+
+    @Test
+    // the banded distance agrees with plain Levenshtein up to the budget
+    void testBoundedDistance() {
+        FuzzySearch fuzzy = new FuzzySearch(new InvertedIndex(new Chef()));
+        assertEquals(0, fuzzy.boundedDistance("curry", "curry", 2));
+        assertEquals(1, fuzzy.boundedDistance("chikpea", "chickpea", 2));
+        assertEquals(3, fuzzy.boundedDistance("kitten", "sitting", 2));
+        assertEquals(3, fuzzy.boundedDistance("abcdef", "badcef", 2));
+        assertEquals(2, fuzzy.boundedDistance("garlic", "gralic", 2));
+        assertEquals(2, fuzzy.boundedDistance("ab", "ba", 2));
+        assertEquals(3, fuzzy.boundedDistance("soup", "soupiest", 2));
+    }
+}
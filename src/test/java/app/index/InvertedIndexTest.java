@@ -0,0 +1,110 @@
+package app.index;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private static Recipe recipe(String name, List<String> ingredients, List<String> steps) {
+        return new Recipe(name, ingredients, steps, 10, 20, 2, "");
+    }
+
+    @Test
+    // every word of the query must appear somewhere in the recipe, and matches come back in book order
+    void testSearch_andsTermsAcrossFields() {
+        Recipe curry = recipe("Chickpea Curry", List.of("1 can chickpeas", "Curry paste"), List.of("Simmer 20 mins"));
+        Recipe soup = recipe("Lentil Soup", List.of("Red lentils", "Curry powder"), List.of("Simmer gently"));
+        Recipe toast = recipe("Avocado Toast", List.of("Bread", "Avocado"), List.of("Toast the bread"));
+        Chef chef = new Chef("Ana", List.of(curry, soup, toast));
+        InvertedIndex index = new InvertedIndex(chef);
+
+        assertEquals(List.of(curry, soup), index.search("curry"));
+        assertEquals(List.of(curry, soup), index.search("SIMMER curry"));
+        assertEquals(List.of(soup), index.search("curry lentils"));
+        assertEquals(List.of(), index.search("curry bread"));
+        assertTrue(index.contains(soup, "Lentils simmer"));
+        assertFalse(index.contains(toast, "bread curry"));
+        assertEquals(List.of(), index.search("pineapple"));
+        assertEquals(List.of(), index.search("  ,, "));
+    }
+
+    @Test
+    // adds, edits and removals on the chef are reflected without rebuilding
+    void testSearch_followsChefMutations() {
+        Recipe pasta = recipe("Garlic Pasta", List.of("Spaghetti", "Garlic"), List.of("Boil"));
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(pasta)));
+        InvertedIndex index = new InvertedIndex(chef);
+
+        Recipe bowl = recipe("Garlic Bowl", List.of("Rice"), List.of("Roast garlic"));
+        chef.addRecipe(bowl);
+        assertEquals(List.of(pasta, bowl), index.search("garlic"));
+
+        chef.updateRecipe(pasta, recipe("Tomato Pasta", List.of("Spaghetti", "Tomato"), List.of("Boil")));
+        assertEquals(List.of(bowl), index.search("garlic"));
+        assertEquals(List.of(pasta), index.search("tomato spaghetti"));
+
+        pasta.setName("Tomato Linguine");
+        assertEquals(List.of(pasta), index.search("linguine"));
+
+        chef.removeRecipe(bowl);
+        assertEquals(List.of(), index.search("garlic"));
+        assertEquals(0, index.documentFrequency("rice"));
+
+        chef.setRecipes(List.of(bowl));
+        assertEquals(List.of(bowl), index.search("rice"));
+        assertEquals(List.of(), index.search("tomato"));
+    }
+
+    @Test
+    // removing most of a large book renumbers the documents and keeps answers intact
+    void testSearch_survivesMassRemoval() {
+        Chef chef = new Chef();
+        InvertedIndex index = new InvertedIndex(chef);
+        List<Recipe> added = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Recipe r = recipe("Dish " + i, List.of(i % 2 == 0 ? "egg" : "flour"), List.of("Bake"));
+            added.add(r);
+            chef.addRecipe(r);
+        }
+        for (int i = 0; i < 2900; i++) {
+            chef.removeRecipe(added.get(i));
+        }
+        List<Recipe> eggs = index.search("egg bake");
+        assertEquals(50, eggs.size());
+        assertSame(added.get(2900), eggs.get(0));
+        assertEquals(List.of(added.get(2999)), index.search("2999"));
+    }
+
+    @Test
+    // words are runs of letters and digits, lower-cased
+    void testTokenizer_splitsOnPunctuation() {
+        List<String> words = new ArrayList<>();
+        Tokenizer.tokenize("Stir-fry, 2 MINS", words::add);
+        assertEquals(List.of("stir", "fry", "2", "mins"), words);
+    }
+
+    @Test
+    // intersections keep only shared ids, in order
+    void testPostingList_retainIn() {
+        PostingList list = new PostingList();
+        for (int id : new int[]{9, 1, 5, 3, 7, 5}) {
+            list.add(id);
+        }
+        assertArrayEquals(new int[]{1, 3, 5, 7, 9}, list.toArray());
+        assertTrue(list.remove(3));
+        assertFalse(list.remove(4));
+
+        int[] candidates = {0, 1, 2, 3, 7, 8, 9, 12};
+        int kept = list.retainIn(candidates, candidates.length);
+        assertEquals(3, kept);
+        assertEquals(1, candidates[0]);
+        assertEquals(7, candidates[1]);
+        assertEquals(9, candidates[2]);
+    }
+}
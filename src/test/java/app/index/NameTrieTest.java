@@ -0,0 +1,86 @@
+package app.index;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameTrieTest {
+
+    private static Recipe recipe(String name) {
+        return new Recipe(name, List.of("Salt"), List.of("Cook"), 10, 20, 2, "");
+    }
+
+    private static List<Recipe> complete(NameTrie trie, String prefix, int limit) {
+        Recipe[] out = new Recipe[limit];
+        int count = trie.complete(prefix, out);
+        return Arrays.asList(out).subList(0, count);
+    }
+
+    @Test
+    // completions ignore case and come back alphabetically, capped at the buffer size
+    void testComplete_matchesPrefixIgnoringCase() {
+        Recipe pasta = recipe("Garlic Pasta");
+        Recipe bread = recipe("garlic bread");
+        Recipe soup = recipe("Gazpacho");
+        Recipe toast = recipe("Toast");
+        NameTrie trie = new NameTrie(new Chef("Ana", List.of(pasta, bread, soup, toast)));
+
+        assertEquals(List.of(bread, pasta), complete(trie, "GARL", 8));
+        assertEquals(List.of(bread, pasta, soup), complete(trie, "ga", 8));
+        assertEquals(List.of(bread, pasta), complete(trie, "g", 2));
+        assertEquals(List.of(pasta), complete(trie, "garlic p", 8));
+        assertEquals(List.of(), complete(trie, "garlicky", 8));
+        assertEquals(List.of(), complete(trie, "x", 8));
+        assertEquals(4, complete(trie, "", 8).size());
+    }
+
+    @Test
+    // adds, renames and removals keep completions current
+    void testComplete_followsChefMutations() {
+        Recipe pasta = recipe("Pasta");
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(pasta)));
+        NameTrie trie = new NameTrie(chef);
+
+        Recipe pastaBake = recipe("Pasta Bake");
+        chef.addRecipe(pastaBake);
+        assertEquals(List.of(pasta, pastaBake), complete(trie, "pas", 8));
+
+        pasta.setName("Penne");
+        assertEquals(List.of(pastaBake), complete(trie, "pas", 8));
+        assertEquals(List.of(pasta), complete(trie, "pen", 8));
+
+        chef.updateRecipe(pastaBake, recipe("Pesto Bake"));
+        assertEquals(List.of(pasta, pastaBake), complete(trie, "pe", 8));
+
+        chef.removeRecipe(pasta);
+        assertEquals(List.of(pastaBake), complete(trie, "p", 8));
+        assertEquals(1, trie.size());
+
+        chef.setRecipes(List.of(pasta));
+        assertEquals(List.of(pasta), complete(trie, "p", 8));
+    }
+
+    @Test
+    // recipes sharing a name all complete, and removing one leaves the others
+    void testComplete_keepsDuplicateNames() {
+        Recipe first = recipe("Soup");
+        Recipe second = recipe("SOUP");
+        Recipe longer = recipe("Soup of the Day");
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(first, second, longer)));
+        NameTrie trie = new NameTrie(chef);
+
+        assertEquals(List.of(first, second, longer), complete(trie, "soup", 8));
+        chef.removeRecipe(first);
+        chef.removeRecipe(longer);
+        assertEquals(List.of(second), complete(trie, "so", 8));
+        chef.removeRecipe(second);
+        assertEquals(0, trie.size());
+        assertEquals(List.of(), complete(trie, "", 8));
+    }
+}
@@ -0,0 +1,81 @@
+package app.index;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PantryIndexTest {
+
+    private static Recipe recipe(String name, String... ingredients) {
+        return new Recipe(name, List.of(ingredients), List.of("Cook"), 10, 20, 2, "");
+    }
+
+    @Test
+    // quantities and measures are not part of an ingredient's identity
+    void testIngredientKey_dropsMeasures() {
+        assertEquals("garlic", PantryIndex.ingredientKey("2 cloves Garlic, minced"));
+        assertEquals("olive oil", PantryIndex.ingredientKey("1 tbsp olive oil"));
+        assertEquals("", PantryIndex.ingredientKey("1 cup"));
+        assertEquals("chickpeas", PantryIndex.ingredientKey("1 can chickpeas, drained and rinsed"));
+    }
+
+    @Test
+    // fully covered recipes come first, then those missing one item, each listing what is missing
+    void testMatch_ordersByMissingCount() {
+        Recipe toast = recipe("Avocado Toast", "2 slices bread", "1 avocado");
+        Recipe pasta = recipe("Garlic Pasta", "200 g spaghetti", "3 cloves garlic", "2 tbsp olive oil");
+        Recipe curry = recipe("Chickpea Curry", "1 can chickpeas", "curry paste", "rice", "spinach");
+        Chef chef = new Chef("Ana", List.of(toast, pasta, curry));
+        PantryIndex index = new PantryIndex(chef);
+
+        List<String> pantry = List.of("Bread", "avocado", "spaghetti", "Garlic", "rice");
+        assertEquals(List.of(toast), index.cookable(pantry));
+
+        List<PantryIndex.Match> matches = index.match(pantry, 1);
+        assertEquals(List.of(toast, pasta),
+                matches.stream().map(PantryIndex.Match::getRecipe).collect(Collectors.toList()));
+        assertEquals(List.of(), matches.get(0).getMissing());
+        assertEquals(List.of("olive oil"), matches.get(1).getMissing());
+
+        assertEquals(3, index.match(pantry, 3).size());
+        assertThrows(IllegalArgumentException.class, () -> index.match(pantry, -1));
+    }
+
+    @Test
+    // edits and removals on the chef change the answers
+    void testMatch_followsChefMutations() {
+        Recipe salad = recipe("Salad", "lettuce", "tomato");
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(salad)));
+        PantryIndex index = new PantryIndex(chef);
+        List<String> pantry = List.of("lettuce", "cucumber");
+
+        assertEquals(List.of(), index.cookable(pantry));
+        chef.updateRecipe(salad, recipe("Salad", "lettuce", "cucumber"));
+        assertEquals(List.of(salad), index.cookable(pantry));
+
+        Recipe soup = recipe("Soup", "cucumber");
+        chef.addRecipe(soup);
+        assertEquals(List.of(salad, soup), index.cookable(pantry));
+        chef.removeRecipe(salad);
+        assertEquals(List.of(soup), index.cookable(pantry));
+    }
+
+    @Test
+    // ingredient ids beyond the first 64-bit word are matched like any other
+    void testMatch_spansManyWords() {
+        Chef chef = new Chef();
+        PantryIndex index = new PantryIndex(chef);
+        for (int i = 0; i < 300; i++) {
+            chef.addRecipe(recipe("Dish " + i, "salt", "item" + i));
+        }
+        assertEquals(301, index.vocabularySize());
+        assertEquals(List.of(chef.getRecipes().get(250)), index.cookable(List.of("salt", "item250")));
+        assertEquals(300, index.match(List.of("salt"), 1).size());
+    }
+}
@@ -0,0 +1,108 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.editRandomly;
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeIndexTest {
+
+    @Test
+    // "under 30 minutes total, serves at least 4" keeps book order
+    void testQuery_combinesBounds() {
+        Recipe quick = recipe("Quick", 5, 10, 4);
+        Recipe slow = recipe("Slow", 20, 90, 6);
+        Recipe small = recipe("Small", 5, 5, 1);
+        Recipe exact = recipe("Exact", 10, 20, 4);
+        RangeIndex index = new RecipeTable(new Chef("Ana", List.of(quick, slow, small, exact))).rangeIndex();
+
+        RangeFilter filter = new RangeFilter()
+                .setAtMost(Field.TOTAL_TIME, 30)
+                .setAtLeast(Field.SERVINGS, 4);
+        assertEquals(List.of(quick, exact), index.query(filter));
+        assertEquals(List.of(slow), index.query(new RangeFilter().setAtLeast(Field.COOK_TIME, 21)));
+        assertEquals(List.of(), index.query(new RangeFilter().setAtLeast(Field.PREP_TIME, 10).setAtMost(Field.PREP_TIME, 5)));
+        assertEquals(4, index.query(new RangeFilter()).size());
+        assertEquals(2, index.count(Field.PREP_TIME, 5, 5));
+        assertTrue(new RangeFilter().isEmpty());
+        assertFalse(filter.isEmpty());
+        assertTrue(filter.clear(Field.TOTAL_TIME).clear(Field.SERVINGS).isEmpty());
+    }
+
+    @Test
+    // random adds, edits and removals give the same answers as filtering the book
+    void testQuery_matchesScanAfterMutations() {
+        Random random = new Random(11);
+        Chef chef = new Chef("Ana", new ArrayList<>());
+        RangeIndex index = new RecipeTable(chef).rangeIndex();
+        for (int round = 0; round < 40; round++) {
+            editRandomly(chef, random, 50,
+                    () -> recipe("r", random.nextInt(60), random.nextInt(60), 1 + random.nextInt(8)));
+            int low = random.nextInt(60);
+            RangeFilter filter = new RangeFilter()
+                    .setAtLeast(Field.TOTAL_TIME, low)
+                    .setAtMost(Field.TOTAL_TIME, low + random.nextInt(40));
+            if (random.nextBoolean()) {
+                filter.setAtLeast(Field.SERVINGS, 1 + random.nextInt(8));
+            }
+            List<Recipe> expected = chef.getRecipes().stream().filter(filter::test).collect(Collectors.toList());
+            assertEquals(expected, index.query(filter));
+        }
+        chef.setRecipes(List.of(recipe("only", 1, 1, 1)));
+        assertEquals(1, index.query(new RangeFilter().setAtMost(Field.SERVINGS, 1)).size());
+    }
+
+    @Test
+    // removals past the sweep threshold, and an edit back to an old value, keep counts and answers exact
+    void testCount_exactAcrossRemovalsAndEditsBack() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            recipes.add(recipe("r" + i, i % 10, 0, 1));
+        }
+        Chef chef = new Chef("Ana", recipes);
+        RangeIndex index = new RecipeTable(chef).rangeIndex();
+        for (int i = 0; i < 200; i++) {
+            chef.removeRecipe(recipes.get(i));
+        }
+        assertEquals(30, index.count(Field.PREP_TIME, 0, 0));
+        assertEquals(300, index.count(Field.PREP_TIME, 0, 9));
+
+        Recipe moved = recipes.get(300);
+        chef.updateRecipe(moved, recipe(moved.getName(), 7, 0, 1));
+        chef.updateRecipe(moved, recipe(moved.getName(), 0, 0, 1));
+        assertEquals(30, index.count(Field.PREP_TIME, 0, 0));
+        List<Recipe> expected = chef.getRecipes().stream()
+                .filter(r -> r.getPrepTime() == 0)
+                .collect(Collectors.toList());
+        assertEquals(expected, index.query(new RangeFilter().setAtMost(Field.PREP_TIME, 0)));
+    }
+
+    @Test
+    // once the table renumbers its rows, the index is refiled under the new row ids
+    void testQuery_followsTableRenumbering() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            recipes.add(recipe("r" + i, i % 60, 0, 1 + i % 4));
+        }
+        Chef chef = new Chef("Ana", recipes);
+        RecipeTable table = new RecipeTable(chef);
+        RangeIndex index = table.rangeIndex();
+        for (int i = 0; i < 2500; i++) {
+            chef.removeRecipe(recipes.get(i));
+        }
+        assertTrue(table.rowLimit() < 3000);
+        RangeFilter filter = new RangeFilter().setAtMost(Field.PREP_TIME, 2).setAtLeast(Field.SERVINGS, 2);
+        List<Recipe> expected = chef.getRecipes().stream().filter(filter::test).collect(Collectors.toList());
+        assertEquals(expected, index.query(filter));
+        assertEquals(24, index.count(Field.PREP_TIME, 0, 2));
+    }
+}
@@ -0,0 +1,144 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import app.index.SortedViews.SortKey;
+import entities.Chef;
+import entities.DietaryFlag;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.editRandomly;
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeTableTest {
+
+    private static final String[] NAMES = {"Soup", "soup", "Curry", "Bread", "apple pie"};
+    private static final String[] LABELS = {"", "Vegan", "Vegetarian", "Gluten-free", "Halal"};
+
+    private static List<Recipe> selected(RecipeTable table, RangeFilter range, int flags) {
+        int[] rows = new int[table.rowLimit()];
+        int count = table.select(range, flags, rows);
+        return table.recipes(rows, 0, count);
+    }
+
+    @Test
+    // bounds, flags and open ends pick the same rows a getter-based filter would, in book order
+    void testSelect_filtersColumns() {
+        Recipe quick = recipe("Quick", 5, 10, 4, "Vegan");
+        Recipe slow = recipe("Slow", 20, 90, 6, "");
+        Recipe small = recipe("Small", 5, 5, 1, "Vegetarian");
+        Recipe exact = recipe("Exact", 10, 20, 4, "Vegetarian");
+        RecipeTable table = new RecipeTable(new Chef("Ana", List.of(quick, slow, small, exact)));
+
+        RangeFilter range = new RangeFilter().setAtMost(Field.TOTAL_TIME, 30).setAtLeast(Field.SERVINGS, 4);
+        assertEquals(List.of(quick, exact), selected(table, range, 0));
+        assertEquals(List.of(quick, small, exact), selected(table, new RangeFilter(), DietaryFlag.VEGETARIAN.mask()));
+        assertEquals(List.of(quick), selected(table, range, DietaryFlag.VEGAN.mask()));
+        assertEquals(List.of(), selected(table, new RangeFilter().setAtLeast(Field.PREP_TIME, 10).setAtMost(Field.PREP_TIME, 5), 0));
+        assertEquals(4, selected(table, new RangeFilter(), 0).size());
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    // random adds, edits and removals give the same rows and orders as filtering and sorting the book
+    void testSelectAndSort_matchScanAfterMutations() {
+        Random random = new Random(23);
+        Chef chef = new Chef("Ana", new ArrayList<>());
+        RecipeTable table = new RecipeTable(chef);
+        for (int round = 0; round < 40; round++) {
+            editRandomly(chef, random, 60, () -> recipe(NAMES[random.nextInt(NAMES.length)], random.nextInt(60),
+                    random.nextInt(60), 1 + random.nextInt(8), LABELS[random.nextInt(LABELS.length)]));
+            RangeFilter range = new RangeFilter();
+            if (random.nextBoolean()) {
+                int low = random.nextInt(60);
+                range.setAtLeast(Field.TOTAL_TIME, low).setAtMost(Field.TOTAL_TIME, low + random.nextInt(40));
+            }
+            if (random.nextBoolean()) {
+                range.setAtLeast(Field.SERVINGS, 1 + random.nextInt(8));
+            }
+            int flags = random.nextBoolean() ? DietaryFlag.VEGETARIAN.mask() : 0;
+            SortKey key = SortKey.values()[random.nextInt(SortKey.values().length)];
+            boolean descending = random.nextBoolean();
+
+            List<Recipe> expected = chef.getRecipes().stream()
+                    .filter(range::test)
+                    .filter(recipe -> recipe.hasDietaryFlags(flags))
+                    .collect(Collectors.toList());
+            int[] rows = new int[table.rowLimit()];
+            int count = table.select(range, flags, rows);
+            assertEquals(expected, table.recipes(rows, 0, count));
+
+            Comparator<Recipe> order = key.recipeOrder();
+            expected.sort(descending ? order.reversed() : order);
+            table.sort(rows, count, key, descending);
+            assertEquals(expected, table.recipes(rows, 0, count), key + (descending ? " descending" : ""));
+        }
+        chef.setRecipes(List.of(recipe("only", 1, 1, 1, "")));
+        assertEquals(1, selected(table, new RangeFilter().setAtMost(Field.SERVINGS, 1), 0).size());
+    }
+
+    @Test
+    // chunked filtering and sorting on a pool give the sequential answer, and a cancelled run stops early
+    void testParallelSelectAndSort_matchSequential() {
+        Random random = new Random(29);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < RecipeTable.PARALLEL_CHUNK * 4 + 123; i++) {
+            recipes.add(recipe(NAMES[random.nextInt(NAMES.length)], random.nextInt(60), random.nextInt(60),
+                    1 + random.nextInt(8), LABELS[random.nextInt(LABELS.length)]));
+        }
+        Chef chef = new Chef("Ana", recipes);
+        RecipeTable table = new RecipeTable(chef);
+        RecipeTable copy = table.copy();
+        chef.removeRecipe(recipes.get(0));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RangeFilter range = new RangeFilter().setAtMost(Field.TOTAL_TIME, 70);
+            for (SortKey key : SortKey.values()) {
+                int[] expected = new int[copy.rowLimit()];
+                int expectedCount = copy.select(range, DietaryFlag.VEGETARIAN.mask(), expected);
+                copy.sort(expected, expectedCount, key, key == SortKey.SERVINGS);
+
+                int[] actual = new int[copy.rowLimit()];
+                int count = copy.parallelSelect(range, DietaryFlag.VEGETARIAN.mask(), actual, pool, () -> false);
+                copy.parallelSort(actual, count, key, key == SortKey.SERVINGS, pool, () -> false);
+                assertEquals(expectedCount, count);
+                assertEquals(copy.recipes(expected, 0, expectedCount), copy.recipes(actual, 0, count), key.toString());
+            }
+            assertEquals(recipes.size(), copy.size());
+            assertEquals(recipes.size() - 1, table.size());
+            assertEquals(0, copy.parallelSelect(new RangeFilter(), 0, new int[copy.rowLimit()], pool, () -> true));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    // a copy shares the columns, yet keeps answering as of when it was taken while the table changes
+    void testCopy_unaffectedByLaterChanges() {
+        Recipe soup = recipe("Soup", 10, 20, 4);
+        Recipe curry = recipe("Curry", 5, 40, 2);
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(soup, curry)));
+        RecipeTable table = new RecipeTable(chef);
+        RecipeTable copy = table.copy();
+
+        chef.addRecipe(recipe("Bread", 30, 30, 8));
+        chef.updateRecipe(soup, recipe("Soup", 90, 90, 1));
+        chef.removeRecipe(curry);
+        RecipeTable later = table.copy();
+        chef.updateRecipe(soup, recipe("Soup", 1, 1, 1));
+
+        RangeFilter quick = new RangeFilter().setAtMost(Field.TOTAL_TIME, 45);
+        assertEquals(List.of(soup, curry), selected(copy, quick, 0));
+        assertEquals(2, copy.size());
+        assertEquals(List.of(), selected(later, quick, 0));
+        assertEquals(List.of(soup), selected(table, quick, 0));
+    }
+}
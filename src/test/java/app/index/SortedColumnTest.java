@@ -0,0 +1,63 @@
+package app.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedColumnTest {
+
+    @Test
+    // random additions and removals, across many tombstone sweeps, match a plain sorted list
+    void testDocs_matchesSortedListAfterRandomChanges() {
+        Random random = new Random(3);
+        SortedColumn column = new SortedColumn();
+        List<long[]> model = new ArrayList<>();
+        for (int round = 0; round < 3000; round++) {
+            if (model.isEmpty() || random.nextInt(3) > 0) {
+                long[] entry = {random.nextInt(50) - 25, round};
+                model.add(entry);
+                column.add((int) entry[0], (int) entry[1]);
+            } else {
+                long[] entry = model.remove(random.nextInt(model.size()));
+                column.remove((int) entry[0], (int) entry[1]);
+            }
+            if (round % 97 == 0) {
+                int low = random.nextInt(60) - 30;
+                int high = low + random.nextInt(20);
+                int[] expected = model.stream()
+                        .filter(entry -> entry[0] >= low && entry[0] <= high)
+                        .sorted((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]))
+                        .mapToInt(entry -> (int) entry[1])
+                        .toArray();
+                assertEquals(expected.length, column.count(low, high));
+                int[] out = new int[expected.length + 1];
+                assertEquals(expected.length, column.docs(low, high, out, 1));
+                assertArrayEquals(expected, Arrays.copyOfRange(out, 1, out.length));
+            }
+        }
+        assertEquals(model.size(), column.size());
+    }
+
+    @Test
+    // a document filed under a key, moved away and back is counted once
+    void testRemove_thenAddBackCountsOnce() {
+        SortedColumn column = new SortedColumn();
+        column.add(5, 1);
+        column.add(5, 2);
+        assertEquals(2, column.count(5, 5));
+        column.remove(5, 1);
+        column.add(9, 1);
+        column.remove(9, 1);
+        column.add(5, 1);
+        assertEquals(2, column.count(5, 5));
+        assertEquals(0, column.count(Integer.MIN_VALUE, 4));
+        assertEquals(2, column.size());
+        assertEquals(5, SortedColumn.key(column.sortedEntries()[0]));
+        assertEquals(1, SortedColumn.doc(column.sortedEntries()[0]));
+    }
+}
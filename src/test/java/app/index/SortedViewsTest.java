@@ -0,0 +1,71 @@
+package app.index;
+
+import app.index.SortedViews.SortKey;
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.editRandomly;
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedViewsTest {
+
+    private static List<Recipe> stableSort(Chef chef, Comparator<Recipe> order) {
+        return chef.getRecipes().stream().sorted(order).collect(Collectors.toList());
+    }
+
+    @Test
+    // ties keep book order in both directions, like a stable sort of the book
+    void testSorted_matchesStableSort() {
+        Recipe a = recipe("b soup", 10, 5, 2);
+        Recipe b = recipe("A pasta", 20, 5, 4);
+        Recipe c = recipe("c curry", 10, 30, 2);
+        Chef chef = new Chef("Ana", List.of(a, b, c));
+        SortedViews views = new SortedViews(chef);
+
+        assertEquals(List.of(b, a, c), views.sorted(SortKey.NAME, false, r -> true));
+        assertEquals(List.of(a, c, b), views.sorted(SortKey.PREP_TIME, false, r -> true));
+        assertEquals(List.of(b, a, c), views.sorted(SortKey.PREP_TIME, true, r -> true));
+        assertEquals(List.of(c, a, b), views.sorted(SortKey.COOK_TIME, true, r -> true));
+        assertEquals(List.of(a, c), views.sorted(SortKey.SERVINGS, false, r -> r.getServings() == 2));
+        assertEquals(5, views.maintainedViews());
+    }
+
+    @Test
+    // random adds, edits, renames and removals leave every order equal to sorting from scratch
+    void testSorted_followsChefMutations() {
+        Random random = new Random(7);
+        Chef chef = new Chef("Ana", new ArrayList<>());
+        SortedViews views = new SortedViews(chef);
+        for (SortKey key : SortKey.values()) {
+            views.sorted(key, false, r -> true);
+            views.sorted(key, true, r -> true);
+        }
+        editRandomly(chef, random, 500,
+                () -> recipe("r" + random.nextInt(50), random.nextInt(5), random.nextInt(5), random.nextInt(5)));
+        Comparator<Recipe> byName = Comparator.comparing(Recipe::getName, String.CASE_INSENSITIVE_ORDER);
+        Comparator<Recipe> byPrep = Comparator.comparingInt(Recipe::getPrepTime);
+        Comparator<Recipe> byCook = Comparator.comparingInt(Recipe::getCookTime);
+        Comparator<Recipe> byServings = Comparator.comparingInt(Recipe::getServings);
+        assertEquals(stableSort(chef, byName), views.sorted(SortKey.NAME, false, r -> true));
+        assertEquals(stableSort(chef, byName.reversed()), views.sorted(SortKey.NAME, true, r -> true));
+        assertEquals(stableSort(chef, byPrep), views.sorted(SortKey.PREP_TIME, false, r -> true));
+        assertEquals(stableSort(chef, byPrep.reversed()), views.sorted(SortKey.PREP_TIME, true, r -> true));
+        assertEquals(stableSort(chef, byCook.reversed()), views.sorted(SortKey.COOK_TIME, true, r -> true));
+        assertEquals(stableSort(chef, byServings), views.sorted(SortKey.SERVINGS, false, r -> true));
+
+        Recipe renamed = chef.getRecipes().get(0);
+        renamed.setName("aaa first");
+        assertSame(renamed, views.sorted(SortKey.NAME, false, r -> true).get(0));
+
+        chef.setRecipes(List.of(renamed));
+        assertEquals(List.of(renamed), views.sorted(SortKey.COOK_TIME, true, r -> true));
+    }
+}
@@ -0,0 +1,87 @@
+package app.index;
+
+import app.index.RangeFilter.Field;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    // quickest and largest first, ties in book order, filter respected, output capped
+    void testSelect_smallestAndLargest() {
+        Recipe toast = recipe("Toast", 2, 3, 1, "Vegan");
+        Recipe stew = recipe("Stew", 20, 120, 8, "");
+        Recipe salad = recipe("Salad", 5, 0, 2, "Vegan");
+        Recipe soup = recipe("Soup", 10, 30, 8, "Vegan");
+        Recipe wrap = recipe("Wrap", 3, 2, 2, "");
+        List<Recipe> book = List.of(toast, stew, salad, soup, wrap);
+        TopK topK = new TopK(3);
+        Recipe[] out = new Recipe[4];
+
+        assertEquals(3, topK.select(book, Field.TOTAL_TIME, false, recipe -> true, out));
+        assertArrayEquals(new Recipe[]{toast, salad, wrap, null}, out);
+        assertEquals(3, topK.select(book, Field.SERVINGS, true, recipe -> true, out));
+        assertEquals(List.of(stew, soup, salad), Arrays.asList(out).subList(0, 3));
+        assertEquals(2, topK.select(book, Field.SERVINGS, true,
+                recipe -> "Vegan".equals(recipe.getDietaryRestrictions()) && recipe.getServings() < 8, out));
+        assertEquals(List.of(salad, toast), Arrays.asList(out).subList(0, 2));
+        assertEquals(1, topK.select(book, Field.PREP_TIME, false, recipe -> true, new Recipe[1]));
+        assertThrows(IllegalArgumentException.class, () -> new TopK(0));
+    }
+
+    @Test
+    // random books give the same picks as a stable sort
+    void testSelect_matchesSort() {
+        Random random = new Random(5);
+        TopK topK = new TopK(10);
+        Recipe[] out = new Recipe[10];
+        for (int round = 0; round < 50; round++) {
+            List<Recipe> book = new ArrayList<>();
+            int size = random.nextInt(200);
+            for (int i = 0; i < size; i++) {
+                book.add(recipe("r" + i, random.nextInt(30), random.nextInt(30), random.nextInt(6) - 1, ""));
+            }
+            Field field = Field.values()[random.nextInt(Field.values().length)];
+            boolean largest = random.nextBoolean();
+            Comparator<Recipe> order = Comparator.comparingInt(field::valueOf);
+            List<Recipe> expected = book.stream()
+                    .filter(recipe -> recipe.getPrepTime() % 3 != 0)
+                    .sorted(largest ? order.reversed() : order)
+                    .limit(10)
+                    .collect(Collectors.toList());
+            int count = topK.select(book, field, largest, recipe -> recipe.getPrepTime() % 3 != 0, out);
+            assertEquals(expected, Arrays.asList(out).subList(0, count));
+        }
+    }
+
+    @Test
+    // folding in appended batches gives the picks a fresh selection over the whole book would
+    void testSelectAppended_matchesSelect() {
+        Random random = new Random(8);
+        List<Recipe> book = new ArrayList<>();
+        TopK incremental = new TopK(5);
+        TopK fresh = new TopK(5);
+        Recipe[] out = new Recipe[5];
+        Recipe[] expected = new Recipe[5];
+        assertThrows(IllegalStateException.class, () -> incremental.selectAppended(book, out));
+        assertEquals(0, incremental.select(book, Field.TOTAL_TIME, false, recipe -> recipe.getServings() > 1, out));
+        for (int batch = 0; batch < 20; batch++) {
+            for (int i = random.nextInt(40); i > 0; i--) {
+                book.add(recipe("r" + book.size(), random.nextInt(30), random.nextInt(30), random.nextInt(6), ""));
+            }
+            int count = incremental.selectAppended(book, out);
+            assertEquals(fresh.select(book, Field.TOTAL_TIME, false, recipe -> recipe.getServings() > 1, expected), count);
+            assertEquals(Arrays.asList(expected).subList(0, count), Arrays.asList(out).subList(0, count));
+        }
+    }
+}
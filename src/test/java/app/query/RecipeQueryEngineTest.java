@@ -0,0 +1,209 @@
+package app.query;
+
+import app.index.RangeFilter;
+import app.index.RangeFilter.Field;
+import app.index.SortedViews.SortKey;
+import entities.Chef;
+import entities.DietaryFlag;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.editRandomly;
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeQueryEngineTest {
+
+    private static final String[] WORDS = {"chicken", "curry", "rice", "tofu", "lemon", "garlic", "basil", "pasta"};
+
+    @Test
+    // text, ingredient, dietary and range conditions all hold, sorted and paged
+    void testExecute_combinesConditions() {
+        Recipe curry = recipe("Veggie Curry", List.of("2 cups rice", "1 tbsp curry paste"), 10, 20, 4, "Vegan");
+        Recipe chicken = recipe("Chicken Curry", List.of("Chicken", "curry paste"), 15, 40, 4, "");
+        Recipe quick = recipe("Quick Curry", List.of("Tofu", "curry paste"), 5, 10, 2, "Vegan");
+        Recipe salad = recipe("Salad", List.of("Lettuce"), 5, 0, 2, "Vegan");
+        RecipeQueryEngine engine = new RecipeQueryEngine(new Chef("Ana", List.of(curry, chicken, quick, salad)));
+
+        assertEquals(List.of(curry, quick), engine.execute(new RecipeQuery()
+                .setText("curry")
+                .setDietaryFlags(DietaryFlag.VEGAN.mask())));
+        assertEquals(List.of(quick, curry), engine.execute(new RecipeQuery()
+                .addIngredient("curry paste")
+                .setRange(new RangeFilter().setAtMost(Field.TOTAL_TIME, 30))
+                .setSort(SortKey.PREP_TIME, false)));
+        assertEquals(List.of(chicken), engine.execute(new RecipeQuery().setNameContaining("chicken")));
+        assertEquals(List.of(curry), engine.execute(new RecipeQuery().addIngredient("rice")));
+        assertEquals(List.of(quick), engine.execute(new RecipeQuery()
+                .setSort(SortKey.NAME, false).setOffset(1).setLimit(1)));
+        assertEquals(4, engine.execute(new RecipeQuery()).size());
+        assertThrows(IllegalArgumentException.class, () -> new RecipeQuery().setLimit(-1));
+    }
+
+    @Test
+    // the planner drives from the most selective index and says so
+    void testExplain_namesChosenPlan() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            recipes.add(recipe("Dish " + i, List.of(i == 7 ? "saffron" : "salt"), i, 10, 2, ""));
+        }
+        RecipeQueryEngine engine = new RecipeQueryEngine(new Chef("Ana", recipes));
+
+        String rare = engine.explain(new RecipeQuery()
+                .setText("saffron")
+                .setRange(new RangeFilter().setAtLeast(Field.PREP_TIME, 0)));
+        assertTrue(rare.startsWith("driver: inverted index [saffron]"), rare);
+        assertTrue(rare.contains("probe: range index"), rare);
+
+        String narrow = engine.explain(new RecipeQuery()
+                .setText("salt")
+                .setRange(new RangeFilter().setAtMost(Field.PREP_TIME, 3)));
+        assertTrue(narrow.startsWith("driver: range index PREP_TIME<=3"), narrow);
+        assertTrue(narrow.endsWith("rows: 4"), narrow);
+
+        String scan = engine.explain(new RecipeQuery().setSort(SortKey.PREP_TIME, true).setLimit(5));
+        assertTrue(scan.contains("scan: sorted view by PREP_TIME descending"), scan);
+
+        String typo = engine.explain(new RecipeQuery().setText("safron").setTypoTolerant(true));
+        assertTrue(typo.contains("fuzzy search"), typo);
+        assertEquals(List.of(recipes.get(7)), engine.execute(new RecipeQuery().setText("safron").setTypoTolerant(true)));
+        assertEquals(List.of(), engine.execute(new RecipeQuery().setText("safron")));
+    }
+
+    @Test
+    // random queries over a changing book match filtering and sorting the book directly
+    void testExecute_matchesScan() {
+        Random random = new Random(17);
+        Chef chef = new Chef("Ana", new ArrayList<>());
+        RecipeQueryEngine engine = new RecipeQueryEngine(chef);
+        for (int round = 0; round < 60; round++) {
+            editRandomly(chef, random, 40, () -> recipe(WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(50),
+                    List.of(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)]),
+                    random.nextInt(40), random.nextInt(40), 1 + random.nextInt(6), random.nextBoolean() ? "Vegan" : ""));
+            RecipeQuery query = new RecipeQuery();
+            if (random.nextBoolean()) {
+                query.setText(WORDS[random.nextInt(WORDS.length)]);
+            }
+            if (random.nextBoolean()) {
+                query.addIngredient(WORDS[random.nextInt(WORDS.length)]);
+            }
+            if (random.nextBoolean()) {
+                int low = random.nextInt(60);
+                query.setRange(new RangeFilter().setAtLeast(Field.TOTAL_TIME, low).setAtMost(Field.TOTAL_TIME, low + 20));
+            }
+            if (random.nextBoolean()) {
+                query.setDietaryFlags(DietaryFlag.VEGAN.mask());
+            }
+            SortKey key = random.nextBoolean() ? SortKey.values()[random.nextInt(SortKey.values().length)] : null;
+            query.setSort(key, random.nextBoolean());
+            query.setOffset(random.nextInt(3)).setLimit(random.nextBoolean() ? Integer.MAX_VALUE : 1 + random.nextInt(10));
+
+            List<Recipe> expected = chef.getRecipes().stream()
+                    .filter(recipe -> query.getText().isEmpty()
+                            || recipe.getName().startsWith(query.getText())
+                            || recipe.getIngredients().contains(query.getText()))
+                    .filter(recipe -> query.getIngredients().stream().allMatch(recipe.getIngredients()::contains))
+                    .filter(query.getRange()::test)
+                    .filter(recipe -> recipe.hasDietaryFlags(query.getDietaryFlags()))
+                    .collect(Collectors.toList());
+            if (key != null) {
+                Comparator<Recipe> order = key.recipeOrder();
+                expected.sort(query.isDescending() ? order.reversed() : order);
+            }
+            expected = expected.stream().skip(query.getOffset()).limit(query.getLimit()).collect(Collectors.toList());
+            assertEquals(expected, engine.execute(query), engine.explain(query));
+        }
+    }
+
+    @Test
+    // large column queries run on the query pool and give what execute gives; others complete at once
+    void testSubmit_matchesExecute() throws Exception {
+        Random random = new Random(31);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            recipes.add(recipe(WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(500), List.of("salt"),
+                    random.nextInt(40), random.nextInt(40), 1 + random.nextInt(6), random.nextBoolean() ? "Vegan" : ""));
+        }
+        RecipeQueryEngine engine = new RecipeQueryEngine(new Chef("Ana", recipes), 1000);
+
+        RecipeQuery sorted = new RecipeQuery()
+                .setRange(new RangeFilter().setAtMost(Field.TOTAL_TIME, 30))
+                .setDietaryFlags(DietaryFlag.VEGAN.mask())
+                .setSort(SortKey.NAME, true)
+                .setOffset(10).setLimit(500);
+        assertEquals(engine.execute(sorted), engine.submit(sorted).get(10, TimeUnit.SECONDS));
+        RecipeQuery unsorted = new RecipeQuery().setRange(new RangeFilter().setAtLeast(Field.SERVINGS, 5));
+        assertEquals(engine.execute(unsorted), engine.submit(unsorted).get(10, TimeUnit.SECONDS));
+
+        RecipeQuery text = new RecipeQuery().setText("curry").setLimit(20);
+        assertTrue(engine.submit(text).isDone());
+        assertEquals(engine.execute(text), engine.submit(text).get());
+    }
+
+    @Test
+    // setters called on a recipe in the book move the generation on and reach the indexes, like updateRecipe
+    void testExecute_followsInPlaceEdits() {
+        Recipe curry = recipe("Veggie Curry", List.of("rice"), 10, 20, 4, "Vegan");
+        Recipe stew = recipe("Stew", List.of("beef"), 20, 90, 6, "");
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(curry, stew)));
+        RecipeQueryEngine engine = new RecipeQueryEngine(chef);
+        RecipeQuery quick = new RecipeQuery().setRange(new RangeFilter().setAtMost(Field.TOTAL_TIME, 30));
+        assertEquals(List.of(curry), engine.execute(quick));
+
+        long generation = chef.generation();
+        curry.setCookTime(40);
+        stew.setCookTime(5);
+        assertTrue(chef.generation() > generation);
+        assertEquals(List.of(stew), engine.execute(quick));
+        assertEquals(5, chef.snapshot().get(1).getCookTime());
+
+        stew.setDietaryRestrictions("Vegan");
+        stew.setIngredients(List.of("lentils"));
+        assertEquals(List.of(curry, stew), engine.execute(new RecipeQuery().setDietaryFlags(DietaryFlag.VEGAN.mask())));
+        assertEquals(List.of(stew), engine.execute(new RecipeQuery().addIngredient("lentils")));
+        assertEquals(List.of(), engine.execute(new RecipeQuery().setText("beef")));
+    }
+
+    @Test
+    // one core never splits a scan, and more cores split smaller books
+    void testParallelThreshold_fallsWithCores() {
+        assertEquals(Integer.MAX_VALUE, RecipeQueryEngine.parallelThreshold(1));
+        int two = RecipeQueryEngine.parallelThreshold(2);
+        int eight = RecipeQueryEngine.parallelThreshold(8);
+        assertTrue(two > eight && eight > 10_000, two + " " + eight);
+    }
+
+    @Test
+    // asking again returns the same list until the book changes, and the counters say which calls were served
+    void testExecute_cachesUntilBookChanges() {
+        Recipe curry = recipe("Veggie Curry", List.of("rice"), 10, 20, 4, "Vegan");
+        Recipe stew = recipe("Stew", List.of("beef"), 20, 90, 6, "");
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(curry, stew)));
+        RecipeQueryEngine engine = new RecipeQueryEngine(chef);
+
+        List<Recipe> first = engine.execute(new RecipeQuery().setSort(SortKey.PREP_TIME, true));
+        assertSame(first, engine.execute(new RecipeQuery().setSort(SortKey.PREP_TIME, true)));
+        assertEquals(List.of(curry), engine.execute(new RecipeQuery().setText("curry")));
+        assertEquals(1, engine.getCacheHitCount());
+        assertEquals(2, engine.getCacheMissCount());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(curry));
+
+        long generation = chef.generation();
+        Recipe quick = recipe("Quick Curry", List.of("tofu"), 5, 5, 2, "Vegan");
+        chef.addRecipe(quick);
+        assertTrue(chef.generation() > generation);
+        assertEquals(List.of(stew, curry, quick), engine.execute(new RecipeQuery().setSort(SortKey.PREP_TIME, true)));
+        assertEquals(List.of(curry, quick), engine.execute(new RecipeQuery().setText("curry")));
+        stew.setName("Beef Curry");
+        assertEquals(List.of(curry, stew, quick), engine.execute(new RecipeQuery().setText("curry")));
+        assertEquals(1, engine.getCacheHitCount());
+        assertEquals(5, engine.getCacheMissCount());
+    }
+}
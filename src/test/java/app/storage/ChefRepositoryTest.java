@@ -0,0 +1,585 @@
+package app.storage;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChefRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    // a saved chef loads back with the same name and recipe fields
+    void testSaveThenLoad_roundTripsChef() throws IOException {
+        ChefRepository repository = new ChefRepository(tempDir.resolve("chef.json"));
+        repository.saveChef(sampleChef(3));
+
+        Chef loaded = repository.loadChef();
+
+        assertEquals("Tester", loaded.getName());
+        assertEquals(3, loaded.getRecipes().size());
+        Recipe first = loaded.getRecipes().get(0);
+        assertEquals("Recipe 0", first.getName());
+        assertEquals(List.of("Flour", "Water 0"), first.getIngredients());
+        assertEquals(List.of("Mix", "Bake"), first.getSteps());
+        assertEquals(5, first.getPrepTime());
+        assertEquals(10, first.getCookTime());
+        assertEquals(2, first.getServings());
+        assertEquals("Vegan", first.getDietaryRestrictions());
+    }
+
+    @Test
+    // the chef's change counter stays out of saved and exported books, so loading one cannot set it
+    void testSaveThenLoad_leavesGenerationOut() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path);
+        repository.saveChef(sampleChef(2));
+        long freshlyLoaded = repository.loadChef().generation();
+        Chef edited = sampleChef(2);
+        for (int i = 0; i < 50; i++) {
+            edited.getRecipes().get(0).setName("Renamed " + i);
+        }
+        edited.getRecipes().get(0).setName("Recipe 0");
+        repository.saveChef(edited);
+        repository.exportJson(edited, tempDir.resolve("export.json"));
+
+        assertFalse(Files.readString(path).contains("generation"));
+        assertFalse(Files.readString(tempDir.resolve("export.json")).contains("generation"));
+        assertEquals(freshlyLoaded, repository.loadChef().generation());
+    }
+
+    @Test
+    // streaming hands recipes to the sink in file order and reports final progress
+    void testStreamChef_emitsRecipesInOrderWithProgress() throws IOException {
+        ChefRepository repository = new ChefRepository(tempDir.resolve("chef.json"));
+        repository.saveChef(sampleChef(StreamingChefLoader.PROGRESS_INTERVAL + 5));
+
+        List<String> names = new ArrayList<>();
+        List<Integer> progress = new ArrayList<>();
+        long[] lastBytes = new long[2];
+        String chefName = repository.streamChef(recipe -> names.add(recipe.getName()),
+                (loaded, bytesRead, totalBytes) -> {
+                    progress.add(loaded);
+                    lastBytes[0] = bytesRead;
+                    lastBytes[1] = totalBytes;
+                });
+
+        assertEquals("Tester", chefName);
+        assertEquals(StreamingChefLoader.PROGRESS_INTERVAL + 5, names.size());
+        assertEquals("Recipe 0", names.get(0));
+        assertEquals(List.of(StreamingChefLoader.PROGRESS_INTERVAL, StreamingChefLoader.PROGRESS_INTERVAL + 5), progress);
+        assertEquals(Files.size(tempDir.resolve("chef.json")), lastBytes[1]);
+        assertTrue(lastBytes[0] > 0 && lastBytes[0] <= lastBytes[1]);
+    }
+
+    @Test
+    // unknown fields and nulls in the stored file are tolerated
+    void testStreamChef_skipsUnknownFieldsAndNulls() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        Files.writeString(path, "{\"version\": {\"major\": 1}, \"name\": \"Odd\", \"recipes\": ["
+                + "{\"name\": \"Toast\", \"extra\": [1, 2], \"ingredients\": null, \"dietaryRestrictions\": null}]}");
+
+        Chef loaded = new ChefRepository(path).loadChef();
+
+        assertEquals("Odd", loaded.getName());
+        assertEquals(1, loaded.getRecipes().size());
+        assertEquals("Toast", loaded.getRecipes().get(0).getName());
+        assertTrue(loaded.getRecipes().get(0).getIngredients().isEmpty());
+        assertNull(loaded.getRecipes().get(0).getDietaryRestrictions());
+    }
+
+    @Test
+    // a truncated file is reported as an IOException rather than a partial chef
+    void testLoadChef_truncatedFileThrows() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        Files.writeString(path, "{\"name\": \"Cut\", \"recipes\": [{\"name\": \"Toa");
+
+        assertThrows(IOException.class, () -> new ChefRepository(path).loadChef());
+    }
+
+    @Test
+    // journaled saves append records instead of rewriting the snapshot, and reload replays them
+    void testJournaledSave_appendsAndReplays() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(3));
+        byte[] snapshot = Files.readAllBytes(path);
+
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setJournaled(true));
+        Chef chef = repository.loadChef();
+        chef.addRecipe(new Recipe("Added", List.of("Egg"), List.of("Fry"), 1, 2, 1, "Vegetarian"));
+        repository.saveChef(chef);
+        chef.updateRecipe(chef.getRecipes().get(0),
+                new Recipe("Renamed", List.of("Rice"), List.of("Steam"), 3, 4, 5, "Vegan"));
+        repository.saveChef(chef);
+        chef.removeRecipeByName("Recipe 1");
+        repository.saveChef(chef);
+
+        assertArrayEquals(snapshot, Files.readAllBytes(path));
+        List<String> journal = Files.readAllLines(tempDir.resolve("chef.json.journal"));
+        assertEquals(4, journal.size());
+        assertTrue(journal.get(0).startsWith("{\"op\":\"base\""));
+
+        Chef reloaded = new ChefRepository(path, new StorageOptions().setJournaled(true)).loadChef();
+        assertEquals(List.of("Renamed", "Recipe 2", "Added"), names(reloaded));
+        assertEquals(List.of("Rice"), reloaded.getRecipes().get(0).getIngredients());
+        assertEquals(5, reloaded.getRecipes().get(0).getServings());
+    }
+
+    @Test
+    // deleting and re-adding a name appends it at the end, as it did in memory
+    void testJournaledReplay_deleteThenReAddAppends() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(3));
+
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setJournaled(true));
+        Chef chef = repository.loadChef();
+        chef.removeRecipeByName("recipe 0");
+        chef.addRecipe(new Recipe("Recipe 0", List.of(), List.of(), 1, 1, 1, ""));
+        repository.saveChef(chef);
+
+        Chef reloaded = new ChefRepository(path, new StorageOptions().setJournaled(true)).loadChef();
+        assertEquals(names(chef), names(reloaded));
+    }
+
+    @Test
+    // replay finds recipes by position, so adding, editing and removing one of several same-named recipes
+    // leaves the others alone
+    void testJournaledReplay_keepsSameNamedRecipesApart() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        Chef original = new Chef("Chef", new ArrayList<>(List.of(
+                new Recipe("Cake", List.of("Flour"), List.of("Bake"), 1, 10, 1, ""),
+                new Recipe("Other", List.of("Rice"), List.of("Boil"), 1, 10, 1, ""),
+                new Recipe("cake", List.of("Sugar"), List.of("Bake"), 1, 10, 1, ""))));
+        new ChefRepository(path).saveChef(original);
+        StorageOptions options = new StorageOptions().setJournaled(true);
+
+        ChefRepository repository = new ChefRepository(path, options);
+        Chef chef = repository.loadChef();
+        chef.addRecipe(new Recipe("Cake", List.of("Cocoa"), List.of("Bake"), 1, 10, 1, ""));
+        repository.saveChef(chef);
+
+        Chef reloaded = new ChefRepository(path, options).loadChef();
+        assertEquals(List.of("Cake", "Other", "cake", "Cake"), names(reloaded));
+        assertEquals(List.of("Flour", "Rice", "Sugar", "Cocoa"), firstIngredients(reloaded));
+
+        repository = new ChefRepository(path, options);
+        chef = repository.loadChef();
+        chef.removeRecipe(chef.getRecipes().get(0));
+        chef.getRecipes().get(2).setCookTime(99);
+        repository.saveChef(chef);
+
+        reloaded = new ChefRepository(path, options).loadChef();
+        assertEquals(List.of("Other", "cake", "Cake"), names(reloaded));
+        assertEquals(List.of("Rice", "Sugar", "Cocoa"), firstIngredients(reloaded));
+        assertEquals(List.of(10, 10, 99), List.of(reloaded.getRecipes().get(0).getCookTime(),
+                reloaded.getRecipes().get(1).getCookTime(), reloaded.getRecipes().get(2).getCookTime()));
+    }
+
+    @Test
+    // a journal left beside the full snapshot that already holds its records names an older snapshot,
+    // so it is skipped rather than applied twice
+    void testJournaledReplay_skipsJournalOfOlderSnapshot() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(2));
+        StorageOptions options = new StorageOptions().setJournaled(true);
+        ChefRepository repository = new ChefRepository(path, options);
+        Chef chef = repository.loadChef();
+        chef.removeRecipe(chef.getRecipes().get(0));
+        chef.addRecipe(new Recipe("Added", List.of(), List.of(), 1, 1, 1, ""));
+        repository.saveChef(chef);
+        byte[] staleLog = Files.readAllBytes(tempDir.resolve("chef.json.journal"));
+
+        chef.setRecipes(new ArrayList<>(chef.getRecipes()));
+        repository.saveChef(chef);
+        assertFalse(Files.exists(tempDir.resolve("chef.json.journal")));
+        Files.write(tempDir.resolve("chef.json.journal"), staleLog);
+
+        assertEquals(List.of("Recipe 1", "Added"), names(new ChefRepository(path, options).loadChef()));
+        assertFalse(Files.exists(tempDir.resolve("chef.json.journal")));
+    }
+
+    @Test
+    // journals started while a compaction runs replay correctly however many compactions follow each other
+    void testCompaction_chainsJournalsAcrossCompactions() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(2));
+        StorageOptions options = new StorageOptions().setJournaled(true).setMinCompactionBytes(1);
+        ChefRepository repository = new ChefRepository(path, options);
+        Chef chef = repository.loadChef();
+        for (int i = 0; i < 4; i++) {
+            chef.addRecipe(new Recipe("Same", List.of("Step " + i), List.of(), 1, 1, 1, ""));
+            repository.saveChef(chef);
+            chef.removeRecipe(chef.getRecipes().get(1));
+            repository.saveChef(chef);
+        }
+        List<String> expected = firstIngredients(chef);
+
+        assertEquals(expected, firstIngredients(new ChefRepository(path, options).loadChef()));
+        repository.awaitCompaction();
+        assertEquals(expected, firstIngredients(new ChefRepository(path, options).loadChef()));
+    }
+
+    @Test
+    // compaction folds the journal into a new snapshot and replaying a stale log does not duplicate recipes
+    void testCompaction_foldsJournalIntoSnapshot() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(1));
+
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setJournaled(true));
+        Chef chef = repository.loadChef();
+        for (int i = 0; i < 4; i++) {
+            chef.addRecipe(new Recipe("Added " + i, List.of("Salt", "Pepper"), List.of("Season"), 1, 1, 1, ""));
+        }
+        repository.saveChef(chef);
+        byte[] staleLog = Files.readAllBytes(tempDir.resolve("chef.json.journal"));
+
+        StorageOptions options = new StorageOptions().setJournaled(true).setMinCompactionBytes(1);
+        ChefRepository compacting = new ChefRepository(path, options);
+        chef = compacting.loadChef();
+        chef.addRecipe(new Recipe("Last", List.of(), List.of(), 1, 1, 1, ""));
+        compacting.saveChef(chef);
+        compacting.awaitCompaction();
+
+        List<String> expected = List.of("Recipe 0", "Added 0", "Added 1", "Added 2", "Added 3", "Last");
+        assertFalse(Files.exists(tempDir.resolve("chef.json.compacting")));
+        assertFalse(Files.exists(tempDir.resolve("chef.json.journal")));
+        assertEquals(expected, names(new ChefRepository(path).loadChef()));
+
+        Files.write(tempDir.resolve("chef.json.compacting"), staleLog);
+        assertEquals(expected, names(new ChefRepository(path, options).loadChef()));
+    }
+
+    @Test
+    // a torn trailing record is skipped and later appends still replay
+    void testJournaledReplay_skipsTornRecord() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(1));
+        Files.writeString(tempDir.resolve("chef.json.journal"), "{\"op\":\"add\",\"recipe\":{\"name\":\"Tor");
+
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setJournaled(true));
+        Chef chef = repository.loadChef();
+        chef.addRecipe(new Recipe("After", List.of(), List.of(), 1, 1, 1, ""));
+        repository.saveChef(chef);
+
+        Chef reloaded = new ChefRepository(path, new StorageOptions().setJournaled(true)).loadChef();
+        assertEquals(List.of("Recipe 0", "After"), names(reloaded));
+    }
+
+    @Test
+    // atomic snapshots keep the configured number of older generations beside the current file
+    void testAtomicSnapshots_keepGenerations() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path,
+                new StorageOptions().setAtomicSnapshots(true).setSnapshotGenerations(2));
+        for (int count = 1; count <= 4; count++) {
+            repository.saveChef(sampleChef(count));
+        }
+
+        assertEquals(4, repository.loadChef().getRecipes().size());
+        assertTrue(Files.exists(tempDir.resolve("chef.json.1")));
+        assertTrue(Files.exists(tempDir.resolve("chef.json.2")));
+        assertFalse(Files.exists(tempDir.resolve("chef.json.3")));
+        assertTrue(SnapshotStore.verify(tempDir.resolve("chef.json.2")));
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    // a damaged current snapshot is skipped in favour of the newest intact generation
+    void testAtomicSnapshots_fallBackToNewestValidGeneration() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setAtomicSnapshots(true));
+        repository.saveChef(sampleChef(1));
+        repository.saveChef(sampleChef(2));
+
+        byte[] damaged = Files.readAllBytes(path);
+        damaged[damaged.length / 2] ^= 0x20;
+        Files.write(path, damaged);
+
+        assertFalse(SnapshotStore.verify(path));
+        assertEquals(1, repository.loadChef().getRecipes().size());
+    }
+
+    @Test
+    // when every generation is damaged the load fails instead of seeding a fresh book
+    void testAtomicSnapshots_allGenerationsDamagedThrows() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path,
+                new StorageOptions().setAtomicSnapshots(true).setSnapshotGenerations(0));
+        repository.saveChef(sampleChef(2));
+        byte[] damaged = Files.readAllBytes(path);
+        damaged[10] ^= 0x01;
+        Files.write(path, damaged);
+
+        assertThrows(IOException.class, repository::loadChef);
+    }
+
+    @Test
+    // a snapshot cut short loses its trailer, and is skipped once other generations are checksummed
+    void testAtomicSnapshots_skipTruncatedFileWithoutTrailer() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setAtomicSnapshots(true));
+        repository.saveChef(sampleChef(1));
+        repository.saveChef(sampleChef(2));
+
+        byte[] whole = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(whole, whole.length / 2));
+
+        assertEquals(1, repository.loadChef().getRecipes().size());
+    }
+
+    @Test
+    // temp files left by a crash mid-write are removed by the next save
+    void testAtomicSnapshots_deleteStaleTempFiles() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        Path stale = tempDir.resolve("chef.json123456.tmp");
+        Files.write(stale, new byte[]{1, 2, 3});
+        Path unrelated = tempDir.resolve("other.tmp");
+        Files.write(unrelated, new byte[]{1});
+
+        new ChefRepository(path, new StorageOptions().setAtomicSnapshots(true)).saveChef(sampleChef(1));
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(unrelated));
+    }
+
+    @Test
+    // files written before checksums existed still load
+    void testAtomicSnapshots_acceptLegacyFileWithoutTrailer() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(2));
+
+        Chef loaded = new ChefRepository(path, new StorageOptions().setAtomicSnapshots(true)).loadChef();
+
+        assertEquals(2, loaded.getRecipes().size());
+    }
+
+    @Test
+    // the binary codec keeps every field, including nulls and negative numbers, and shares repeated strings
+    void testBinaryCodec_roundTripsBook() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setCodec(new BinaryChefCodec()));
+        Chef chef = sampleChef(3);
+        chef.getRecipes().get(1).setDietaryRestrictions(null);
+        chef.getRecipes().get(2).setPrepTime(-1);
+        repository.saveChef(chef);
+
+        assertEquals('R', Files.readAllBytes(tempDir.resolve("chef.bin"))[0]);
+        assertFalse(Files.exists(path));
+        Chef loaded = repository.loadChef();
+        assertEquals("Tester", loaded.getName());
+        assertEquals(names(chef), names(loaded));
+        assertNull(loaded.getRecipes().get(1).getDietaryRestrictions());
+        assertEquals(-1, loaded.getRecipes().get(2).getPrepTime());
+        assertEquals(List.of("Flour", "Water 0"), loaded.getRecipes().get(0).getIngredients());
+        assertSame(loaded.getRecipes().get(0).getSteps().get(0), loaded.getRecipes().get(2).getSteps().get(0));
+    }
+
+    @Test
+    // a cut-off binary book, or one whose string table claims more entries than the file holds, fails to load
+    // with an IOException instead of allocating for the claimed size
+    void testBinaryCodec_rejectsTruncatedBook() throws IOException {
+        Path path = tempDir.resolve("chef.bin");
+        new ChefRepository(path, new StorageOptions().setCodec(new BinaryChefCodec())).saveChef(sampleChef(20));
+        byte[] saved = Files.readAllBytes(path);
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(saved, saved.length / 2));
+        // the header, then a string count of Integer.MAX_VALUE and nothing more
+        byte[] huge = Arrays.copyOf(saved, BinaryChefCodec.MAGIC.length + 6);
+        System.arraycopy(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}, 0,
+                huge, BinaryChefCodec.MAGIC.length + 1, 5);
+        Path corrupt = tempDir.resolve("corrupt.bin");
+        Files.write(corrupt, huge);
+        ChefRepository repository = new ChefRepository(tempDir.resolve("other.json"));
+
+        assertThrows(IOException.class, () -> repository.importChef(truncated));
+        assertThrows(IOException.class, () -> repository.importChef(corrupt));
+        assertThrows(IOException.class, () -> MappedChefFile.open(corrupt));
+    }
+
+    @Test
+    // a JSON book loads under the binary codec and is converted by the next save
+    void testBinaryCodec_detectsLegacyJson() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        new ChefRepository(path).saveChef(sampleChef(2));
+        ChefRepository repository = new ChefRepository(path,
+                new StorageOptions().setAtomicSnapshots(true).setCodec(new BinaryChefCodec()));
+
+        Chef loaded = repository.loadChef();
+        assertEquals(2, loaded.getRecipes().size());
+        repository.saveChef(loaded);
+
+        Path binary = tempDir.resolve("chef.bin");
+        assertEquals('R', Files.readAllBytes(binary)[0]);
+        assertFalse(Files.exists(path));
+        assertTrue(Files.exists(tempDir.resolve("chef.bin.1")));
+        assertEquals(names(loaded), names(repository.importChef(binary)));
+    }
+
+    @Test
+    // a binary book and its journal saved as chef.json move to chef.bin on first load
+    void testBinaryCodec_movesBookSavedUnderJsonName() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        StorageOptions options = new StorageOptions().setJournaled(true).setCodec(new BinaryChefCodec());
+        ChefRepository repository = new ChefRepository(path, options);
+        Chef chef = repository.loadChef();
+        chef.setRecipes(sampleChef(2).getRecipes());
+        repository.saveChef(chef);
+        chef.addRecipe(new Recipe("Journaled", List.of(), List.of(), 1, 1, 1, ""));
+        repository.saveChef(chef);
+        repository.close();
+        Files.move(tempDir.resolve("chef.bin"), path);
+        Files.move(tempDir.resolve("chef.bin.journal"), tempDir.resolve("chef.json.journal"));
+
+        Chef loaded = new ChefRepository(path, options).loadChef();
+
+        assertEquals(List.of("Recipe 0", "Recipe 1", "Journaled"), names(loaded));
+        assertTrue(Files.exists(tempDir.resolve("chef.bin")));
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(tempDir.resolve("chef.json.journal")));
+    }
+
+    @Test
+    // export writes plain JSON that import reads back, independent of the stored format
+    void testExportJson_importRoundTrip() throws IOException {
+        ChefRepository repository = new ChefRepository(tempDir.resolve("chef.json"),
+                new StorageOptions().setCodec(new BinaryChefCodec()));
+        Path export = tempDir.resolve("export.json");
+        repository.exportJson(sampleChef(2), export);
+
+        assertEquals('{', Files.readString(export).trim().charAt(0));
+        Chef imported = repository.importChef(export);
+        assertEquals("Tester", imported.getName());
+        assertEquals(List.of("Recipe 0", "Recipe 1"), names(imported));
+        assertFalse(Files.exists(tempDir.resolve("chef.json")));
+        assertFalse(Files.exists(tempDir.resolve("chef.bin")));
+    }
+
+    @Test
+    // mapped recipes decode their ingredients and steps from the file, and setters replace them
+    void testMemoryMapped_decodesBodiesOnDemand() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        StorageOptions options = new StorageOptions()
+                .setAtomicSnapshots(true).setCodec(new BinaryChefCodec()).setMemoryMapped(true);
+        new ChefRepository(path, options).saveChef(sampleChef(3));
+
+        Chef loaded = new ChefRepository(path, options).loadChef();
+        Recipe recipe = loaded.getRecipes().get(2);
+        assertInstanceOf(MappedRecipe.class, recipe);
+        assertEquals("Recipe 2", recipe.getName());
+        assertEquals("Vegan", recipe.getDietaryRestrictions());
+        assertEquals(List.of("Flour", "Water 2"), recipe.getIngredients());
+        assertEquals(List.of("Mix", "Bake"), recipe.getSteps());
+        assertThrows(UnsupportedOperationException.class, () -> recipe.getIngredients().add("Salt"));
+        assertThrows(UnsupportedOperationException.class, () -> recipe.getSteps().clear());
+        // parsed from the file each time rather than kept on the heap
+        assertEquals("water 2", recipe.parsedIngredients().get(1).getItem());
+        assertNotSame(recipe.parsedIngredients(), recipe.parsedIngredients());
+
+        recipe.setSteps(List.of("Stir"));
+        assertEquals(List.of("Stir"), recipe.getSteps());
+        assertEquals(List.of("Flour", "Water 2"), recipe.getIngredients());
+    }
+
+    @Test
+    // saving over a mapped snapshot leaves the recipes it backs readable
+    void testMemoryMapped_survivesSaveOverMappedFile() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        ChefRepository repository = new ChefRepository(path, new StorageOptions()
+                .setAtomicSnapshots(true).setSnapshotGenerations(0)
+                .setCodec(new BinaryChefCodec()).setMemoryMapped(true));
+        repository.saveChef(sampleChef(2));
+        Chef loaded = repository.loadChef();
+
+        loaded.removeRecipeByName("Recipe 0");
+        repository.saveChef(loaded);
+        repository.saveChef(sampleChef(5));
+
+        assertEquals(List.of("Flour", "Water 1"), loaded.getRecipes().get(0).getIngredients());
+        assertEquals(5, repository.loadChef().getRecipes().size());
+    }
+
+    @Test
+    // saves that splice cached and mapped recipes around changed ones read back like a full save
+    void testIncrementalSnapshot_splicesChangedRecipes() throws IOException {
+        Path path = tempDir.resolve("chef.json");
+        StorageOptions options = new StorageOptions()
+                .setAtomicSnapshots(true).setCodec(new BinaryChefCodec()).setMemoryMapped(true);
+        new ChefRepository(path, options).saveChef(sampleChef(4));
+        ChefRepository repository = new ChefRepository(path, options);
+        Chef chef = repository.loadChef();
+
+        chef.updateRecipe(chef.getRecipes().get(1),
+                new Recipe("Edited", List.of("Salt"), List.of("Stir"), 1, 2, 3, "Keto"));
+        chef.removeRecipeByName("Recipe 2");
+        chef.addRecipe(new Recipe("Added", List.of("Flour"), List.of("Bake"), 4, 5, 6, "Vegan"));
+        repository.saveChef(chef);
+        chef.setName("Renamed");
+        repository.saveChef(chef);
+
+        Chef reloaded = new ChefRepository(path, new StorageOptions()
+                .setAtomicSnapshots(true).setCodec(new BinaryChefCodec())).loadChef();
+        assertEquals("Renamed", reloaded.getName());
+        assertEquals(List.of("Recipe 0", "Edited", "Recipe 3", "Added"), names(reloaded));
+        assertEquals(List.of("Salt"), reloaded.getRecipes().get(1).getIngredients());
+        assertEquals("Keto", reloaded.getRecipes().get(1).getDietaryRestrictions());
+        assertEquals(List.of("Flour", "Water 3"), reloaded.getRecipes().get(2).getIngredients());
+    }
+
+    @Test
+    // strings left behind by edits are dropped once they outweigh the live book
+    void testIncrementalSnapshot_rebuildsStaleStringTable() throws IOException {
+        Path path = tempDir.resolve("chef.bin");
+        ChefRepository repository = new ChefRepository(path, new StorageOptions().setCodec(new BinaryChefCodec()));
+        Chef chef = repository.loadChef();
+        chef.setRecipes(sampleChef(10).getRecipes());
+        repository.saveChef(chef);
+        long initialSize = Files.size(path);
+
+        for (int i = 0; i < 200; i++) {
+            chef.updateRecipe(chef.getRecipes().get(0),
+                    new Recipe("Recipe 0", List.of("Flour", "Edit " + i), List.of("Mix"), 1, 1, 1, "Vegan"));
+            repository.saveChef(chef);
+        }
+
+        assertTrue(Files.size(path) < initialSize * 2);
+        assertEquals(List.of("Flour", "Edit 199"), repository.importChef(path).getRecipes().get(0).getIngredients());
+    }
+
+    private static List<String> firstIngredients(Chef chef) {
+        List<String> ingredients = new ArrayList<>();
+        for (Recipe recipe : chef.getRecipes()) {
+            ingredients.add(recipe.getIngredients().isEmpty() ? "" : recipe.getIngredients().get(0));
+        }
+        return ingredients;
+    }
+
+    private static List<String> names(Chef chef) {
+        List<String> names = new ArrayList<>();
+        chef.getRecipes().forEach(recipe -> names.add(recipe.getName()));
+        return names;
+    }
+
+    static Chef sampleChef(int recipeCount) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < recipeCount; i++) {
+            recipes.add(new Recipe("Recipe " + i,
+                    List.of("Flour", "Water " + i),
+                    List.of("Mix", "Bake"),
+                    5, 10, 2, "Vegan"));
+        }
+        return new Chef("Tester", recipes);
+    }
+}
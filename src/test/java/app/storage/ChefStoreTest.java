@@ -0,0 +1,77 @@
+package app.storage;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChefStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    // the least recently used chef is evicted once too many are loaded, and counters track it
+    void testGet_evictsLeastRecentlyUsed() throws IOException {
+        ChefStore store = new ChefStore(tempDir, new StorageOptions(), 2, Long.MAX_VALUE);
+
+        store.get("alice");
+        store.get("bob");
+        store.get("alice");
+        store.get("carol");
+
+        assertTrue(store.isLoaded("alice"));
+        assertFalse(store.isLoaded("bob"));
+        assertTrue(store.isLoaded("carol"));
+        assertEquals(1, store.getHitCount());
+        assertEquals(3, store.getMissCount());
+        assertEquals(1, store.getEvictionCount());
+        assertEquals(List.of("alice", "bob", "carol"), store.chefIds());
+    }
+
+    @Test
+    // an evicted chef's changes are saved and come back on the next load
+    void testEviction_persistsChanges() throws IOException {
+        ChefStore store = new ChefStore(tempDir, new StorageOptions().setJournaled(true), 1, Long.MAX_VALUE);
+        Chef alice = store.get("alice");
+        int count = alice.getRecipes().size();
+        alice.addRecipe(new Recipe("Alice's Soup", List.of("Water"), List.of("Boil"), 1, 2, 3, ""));
+
+        store.get("bob");
+        Chef reloaded = store.get("alice");
+
+        assertNotSame(alice, reloaded);
+        assertEquals(count + 1, reloaded.getRecipes().size());
+        assertEquals(2, store.getEvictionCount());
+        store.close();
+        assertFalse(store.isLoaded("alice"));
+    }
+
+    @Test
+    // the memory budget evicts older chefs but always keeps the one just requested
+    void testGet_respectsMemoryBudget() throws IOException {
+        ChefStore store = new ChefStore(tempDir, new StorageOptions(), 100, 1);
+
+        store.get("alice");
+        store.get("bob");
+
+        assertFalse(store.isLoaded("alice"));
+        assertTrue(store.isLoaded("bob"));
+        assertTrue(store.getLoadedBytes() > 1);
+    }
+
+    @Test
+    // ids that could escape the store's directory are rejected
+    void testGet_rejectsInvalidId() {
+        ChefStore store = new ChefStore(tempDir, new StorageOptions(), 1, Long.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class, () -> store.get("../escape"));
+        assertThrows(IllegalArgumentException.class, () -> store.get(""));
+    }
+}
@@ -0,0 +1,95 @@
+package app.storage;
+
+import entities.Chef;
+import entities.Recipe;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindPersisterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    // changes marked while a write is in flight are merged into one follow-up write
+    void testMarkDirty_coalescesBurstIntoSingleWrite() throws Exception {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        AtomicInteger writes = new AtomicInteger();
+        ChefRepository repository = new ChefRepository(tempDir.resolve("chef.json"),
+                new StorageOptions().setJournaled(true)) {
+            @Override
+            synchronized void write(PendingSave save) throws IOException {
+                if (writes.incrementAndGet() == 1) {
+                    firstWriteStarted.countDown();
+                    await(releaseFirstWrite);
+                }
+                super.write(save);
+            }
+        };
+        Chef chef = repository.loadChef();
+        WriteBehindPersister persister = new WriteBehindPersister(repository, chef, e -> fail(e.getMessage()));
+
+        chef.addRecipe(recipe("First"));
+        persister.markDirty();
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            chef.addRecipe(recipe("Burst " + i));
+            persister.markDirty();
+        }
+        releaseFirstWrite.countDown();
+        persister.close();
+
+        assertEquals(2, writes.get());
+        Chef reloaded = new ChefRepository(tempDir.resolve("chef.json"),
+                new StorageOptions().setJournaled(true)).loadChef();
+        assertEquals(chef.getRecipes().size(), reloaded.getRecipes().size());
+        assertEquals("Burst 9", reloaded.getRecipes().get(reloaded.getRecipes().size() - 1).getName());
+    }
+
+    @Test
+    // a failed write is reported to the failure handler and the next save rewrites the whole book
+    void testWriteFailure_reachesHandlerAndNextSaveIsFull() throws Exception {
+        ChefRepository repository = new ChefRepository(tempDir.resolve("chef.json"),
+                new StorageOptions().setJournaled(true));
+        Chef chef = repository.loadChef();
+        // a directory where the journal file should be makes the append fail
+        Files.createDirectory(tempDir.resolve("chef.json.journal"));
+        List<IOException> failures = new CopyOnWriteArrayList<>();
+        WriteBehindPersister persister = new WriteBehindPersister(repository, chef, failures::add);
+
+        chef.addRecipe(recipe("Lost"));
+        persister.markDirty();
+        persister.flush();
+        chef.addRecipe(recipe("Kept"));
+        persister.markDirty();
+        assertTrue(persister.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, failures.size());
+        Chef reloaded = new ChefRepository(tempDir.resolve("chef.json")).loadChef();
+        assertEquals(chef.getRecipes().size(), reloaded.getRecipes().size());
+    }
+
+    private static Recipe recipe(String name) {
+        return new Recipe(name, List.of("Salt"), List.of("Cook"), 1, 2, 3, "");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static entities.RecipeFixtures.editRandomly;
+import static entities.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSnapshotTest {
+
+    private static List<String> describe(List<Recipe> recipes) {
+        return recipes.stream().map(r -> r.getName() + "/" + r.getPrepTime()).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(BookSnapshot snapshot) {
+        return snapshot.recipes().stream().map(r -> r.getName() + "/" + r.getPrepTime()).collect(Collectors.toList());
+    }
+
+    @Test
+    // every snapshot matches the book when it was taken, however the book is edited afterwards
+    void testSnapshot_keepsItsBookAcrossEdits() {
+        Random random = new Random(37);
+        List<Recipe> initial = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            initial.add(recipe("r" + i, i, 0, 2));
+        }
+        Chef chef = new Chef("Ana", initial);
+        List<BookSnapshot> taken = new ArrayList<>();
+        List<List<String>> expected = new ArrayList<>();
+        for (int round = 0; round < 30; round++) {
+            editRandomly(chef, random, 100, () -> recipe("e" + random.nextInt(10_000), random.nextInt(100), 0, 2));
+            taken.add(chef.snapshot());
+            expected.add(describe(chef.getRecipes()));
+        }
+        assertEquals(describe(chef.getRecipes()), describe(chef.snapshot()));
+        assertEquals(chef.generation(), chef.snapshot().getGeneration());
+        for (int i = 0; i < taken.size(); i++) {
+            assertEquals(expected.get(i), describe(taken.get(i)), "snapshot " + i);
+        }
+
+        BookSnapshot before = chef.snapshot();
+        chef.setName("Bo");
+        chef.setRecipes(List.of(recipe("only", 1, 1, 2)));
+        assertEquals("Ana", before.getChefName());
+        assertEquals(List.of("only/1"), describe(chef.snapshot()));
+        assertEquals("Bo", chef.snapshot().toChef().getName());
+        assertThrows(IndexOutOfBoundsException.class, () -> chef.snapshot().get(1));
+    }
+
+    @Test
+    // a reader thread only ever sees whole edits while the book is being changed
+    void testSnapshot_readsConsistentlyDuringEdits() throws InterruptedException {
+        List<Recipe> initial = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            initial.add(recipe("r" + i, 50, 50, 2));
+        }
+        Chef chef = new Chef("Ana", initial);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure.get() == null) {
+                BookSnapshot snapshot = chef.snapshot();
+                for (RecipeSnapshot recipe : snapshot.recipes()) {
+                    if (recipe.getPrepTime() + recipe.getCookTime() != 100) {
+                        failure.set(recipe.getName() + " was read mid-edit");
+                    }
+                }
+            }
+        });
+        reader.start();
+        Random random = new Random(41);
+        for (int step = 0; step < 20000; step++) {
+            List<Recipe> book = chef.getRecipes();
+            int prep = random.nextInt(101);
+            if (step % 3 == 0) {
+                chef.removeRecipe(book.get(random.nextInt(book.size())));
+                chef.addRecipe(recipe("a" + step, prep, 100 - prep, 2));
+            } else {
+                chef.updateRecipe(book.get(random.nextInt(book.size())), recipe("u" + step, prep, 100 - prep, 2));
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get(), failure.get());
+        assertEquals(500, chef.snapshot().size());
+    }
+
+    @Test
+    // removals anywhere in the book, past the point where the emptied slots are compacted, keep every snapshot
+    // in step with its book
+    void testSnapshot_followsRemovalsThroughCompaction() {
+        Random random = new Random(43);
+        List<Recipe> initial = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            initial.add(recipe("r" + i, i, 0, 2));
+        }
+        Chef chef = new Chef("Ana", initial);
+        BookSnapshot first = chef.snapshot();
+        List<String> firstBook = describe(chef.getRecipes());
+        for (int step = 0; step < 2500; step++) {
+            List<Recipe> book = chef.getRecipes();
+            int place = step % 3 == 0 ? random.nextInt(40) : random.nextInt(book.size());
+            chef.removeRecipe(book.get(place));
+            if (step % 4 == 0) {
+                chef.addRecipe(recipe("a" + step, step, 0, 2));
+            }
+            if (step % 5 == 0) {
+                book.get(random.nextInt(book.size())).setName("n" + step);
+            }
+            if (step % 250 == 0) {
+                assertEquals(describe(chef.getRecipes()), describe(chef.snapshot()), "step " + step);
+            }
+        }
+        assertEquals(describe(chef.getRecipes()), describe(chef.snapshot()));
+        assertEquals(firstBook, describe(first));
+    }
+
+    @Test
+    // a recipe object in the book twice is found at its first place, as before
+    void testSnapshot_removesFirstOfRepeatedRecipe() {
+        Recipe repeated = recipe("twice", 1, 0, 2);
+        Chef chef = new Chef("Ana", new ArrayList<>(List.of(recipe("a", 2, 0, 2), repeated, recipe("b", 3, 0, 2))));
+        chef.addRecipe(repeated);
+        chef.addRecipe(recipe("c", 4, 0, 2));
+
+        assertTrue(chef.removeRecipe(repeated));
+        assertEquals(List.of("a/2", "b/3", "twice/1", "c/4"), describe(chef.getRecipes()));
+        repeated.setName("renamed");
+        assertEquals(describe(chef.getRecipes()), describe(chef.snapshot()));
+    }
+}
@@ -0,0 +1,61 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientTest {
+
+    @Test
+    // quantities, fractions, glued and spelled-out units, and trailing notes
+    void testParse_splitsQuantityUnitItem() {
+        Ingredient pancetta = Ingredient.parse("100g pancetta");
+        assertEquals(100, pancetta.getQuantity(), 0.0);
+        assertEquals("g", pancetta.getUnit());
+        assertEquals("pancetta", pancetta.getItem());
+
+        Ingredient onion = Ingredient.parse("1/2 red onion");
+        assertEquals(0.5, onion.getQuantity(), 0.0);
+        assertEquals("", onion.getUnit());
+        assertEquals("red onion", onion.getItem());
+
+        Ingredient flour = Ingredient.parse("1 1/2 Cups of plain  flour, sifted");
+        assertEquals(1.5, flour.getQuantity(), 0.0);
+        assertEquals("cup", flour.getUnit());
+        assertEquals("plain flour", flour.getItem());
+
+        Ingredient garlic = Ingredient.parse("2-3 cloves Garlic (minced)");
+        assertEquals(2, garlic.getQuantity(), 0.0);
+        assertEquals("clove", garlic.getUnit());
+        assertEquals("garlic", garlic.getItem());
+
+        assertEquals(1.5, Ingredient.parse("1½ tbsp. butter").getQuantity(), 0.0);
+        assertEquals("butter", Ingredient.parse("1½ tbsp. butter").getItem());
+        assertEquals("offal", Ingredient.parse("2 kg offal").getItem());
+
+        Ingredient salt = Ingredient.parse("Salt");
+        assertFalse(salt.hasQuantity());
+        assertEquals(0, salt.getQuantity(), 0.0);
+        assertEquals("salt", salt.getItem());
+        assertEquals("Salt", salt.getOriginal());
+    }
+
+    @Test
+    // identical lines and items across recipes are one shared object
+    void testParse_internsLinesAndItems() {
+        Recipe first = new Recipe("A", List.of(new String("Olive oil"), "2 eggs"), List.of(), 1, 1, 1, "");
+        Recipe second = new Recipe("B", List.of(new String("Olive oil"), "3 Eggs"), List.of(), 1, 1, 1, "");
+
+        assertSame(first.getIngredients().get(0), second.getIngredients().get(0));
+        assertSame(first.parsedIngredients().get(0), second.parsedIngredients().get(0));
+        assertSame(first.parsedIngredients().get(1).getItem(), second.parsedIngredients().get(1).getItem());
+        assertEquals(List.of("Olive oil", "3 Eggs"), second.getIngredients());
+
+        second.setIngredients(List.of("1 can chickpeas"));
+        assertEquals("chickpeas", second.parsedIngredients().get(0).getItem());
+        assertEquals("can", second.parsedIngredients().get(0).getUnit());
+        assertThrows(UnsupportedOperationException.class, () -> second.parsedIngredients().clear());
+    }
+}
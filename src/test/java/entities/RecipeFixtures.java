@@ -0,0 +1,49 @@
+package entities;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Recipes and random book edits shared by the index, query and snapshot tests, which check their structures
+ * against a plain scan of the book after the edits.
+ */
+public final class RecipeFixtures {
+
+    private RecipeFixtures() {
+    }
+
+    public static Recipe recipe(String name, List<String> ingredients, int prep, int cook, int servings,
+                                String dietary) {
+        return new Recipe(name, ingredients, List.of("Cook"), prep, cook, servings, dietary);
+    }
+
+    public static Recipe recipe(String name, int prep, int cook, int servings, String dietary) {
+        return recipe(name, List.of("Salt"), prep, cook, servings, dietary);
+    }
+
+    public static Recipe recipe(String name, int prep, int cook, int servings) {
+        return recipe(name, prep, cook, servings, "");
+    }
+
+    /**
+     * Makes {@code edits} random changes to {@code chef}: half of them adds, the rest updates, renames and
+     * removals of random recipes. Added recipes and update contents come from {@code next}, renames take its
+     * name.
+     */
+    public static void editRandomly(Chef chef, Random random, int edits, Supplier<Recipe> next) {
+        for (int i = 0; i < edits; i++) {
+            int action = random.nextInt(10);
+            List<Recipe> book = chef.getRecipes();
+            if (action < 5 || book.isEmpty()) {
+                chef.addRecipe(next.get());
+            } else if (action < 7) {
+                chef.updateRecipe(book.get(random.nextInt(book.size())), next.get());
+            } else if (action < 8) {
+                book.get(random.nextInt(book.size())).setName(next.get().getName());
+            } else {
+                chef.removeRecipe(book.get(random.nextInt(book.size())));
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package entities;
 
 import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -208,4 +209,46 @@ class RecipeTest {
         assertTrue(recipe.getSteps().isEmpty());
     }
 
+    @Test
+    // a mixed label keeps its categories and ignores the rest, while the text stays for display
+    void testDietaryFlags_parsedFromLabel() {
+        Recipe recipe = new Recipe();
+        recipe.setDietaryRestrictions("Vegetarian, contains dairy");
+
+        assertEquals("Vegetarian, contains dairy", recipe.getDietaryRestrictions());
+        assertEquals(EnumSet.of(DietaryFlag.VEGETARIAN), recipe.dietaryFlags());
+        assertTrue(recipe.hasDietaryFlags(DietaryFlag.VEGETARIAN.mask()));
+        assertFalse(recipe.hasDietaryFlags(DietaryFlag.DAIRY_FREE.mask()));
+    }
+
+    @Test
+    // several labels, vegan implications, negations and the None/Other buckets
+    void testDietaryFlags_variants() {
+        assertEquals(EnumSet.of(DietaryFlag.VEGAN, DietaryFlag.VEGETARIAN, DietaryFlag.DAIRY_FREE,
+                        DietaryFlag.GLUTEN_FREE, DietaryFlag.NUT_FREE),
+                DietaryFlag.fromMask(DietaryFlag.parse("Vegan, Gluten-free, Nut-free")));
+        assertEquals(EnumSet.of(DietaryFlag.GLUTEN_FREE, DietaryFlag.DAIRY_FREE),
+                DietaryFlag.fromMask(DietaryFlag.parse("gluten free, dairy free")));
+        assertEquals(EnumSet.of(DietaryFlag.OTHER), DietaryFlag.fromMask(DietaryFlag.parse("Non-vegetarian")));
+        assertEquals(EnumSet.of(DietaryFlag.OTHER),
+                DietaryFlag.fromMask(DietaryFlag.parse("Contains dairy, eggs, pork, and gluten")));
+        assertEquals(EnumSet.of(DietaryFlag.NONE), DietaryFlag.fromMask(DietaryFlag.parse("")));
+        assertEquals(EnumSet.of(DietaryFlag.NONE), DietaryFlag.fromMask(DietaryFlag.parse("None")));
+        assertEquals(EnumSet.of(DietaryFlag.NONE), new Recipe().dietaryFlags());
+    }
+
+    @Test
+    // filtering on several categories needs all of them
+    void testHasDietaryFlags_combinesRestrictions() {
+        Recipe curry = new Recipe("Curry", List.of(), List.of(), 1, 1, 1, "Vegan, Gluten-free");
+        Recipe pasta = new Recipe("Pasta", List.of(), List.of(), 1, 1, 1, "Vegetarian");
+        int vegetarianAndGlutenFree = DietaryFlag.mask(List.of(DietaryFlag.VEGETARIAN, DietaryFlag.GLUTEN_FREE));
+
+        assertTrue(curry.hasDietaryFlags(vegetarianAndGlutenFree));
+        assertFalse(pasta.hasDietaryFlags(vegetarianAndGlutenFree));
+        assertTrue(pasta.hasDietaryFlags(0));
+
+        pasta.setDietaryRestrictions("Vegetarian, gluten-free");
+        assertTrue(pasta.hasDietaryFlags(vegetarianAndGlutenFree));
+    }
 }
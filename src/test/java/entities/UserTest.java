@@ -500,5 +500,94 @@ class UserTest {
         assertEquals("Later", chef.getRecipes().get(0).getName());
     }
 
+    @Test
+        // name lookups ignore case and return every recipe sharing the name
+    void testFindRecipesByName_ignoresCase() {
+        Recipe a = new Recipe("Pasta", List.of(), List.of(), 1, 1, 1, "");
+        Recipe b = new Recipe("PASTA", List.of(), List.of(), 1, 1, 1, "");
+        Chef chef = new Chef("Indexed", List.of(a, b));
+
+        assertEquals(List.of(a, b), chef.findRecipesByName("pasta"));
+        assertTrue(chef.hasRecipeNamed("pAsTa"));
+        assertFalse(chef.hasRecipeNamed("Pizza"));
+        assertFalse(chef.hasRecipeNamed(null));
+    }
 
+    @Test
+        // renaming a recipe through setName moves it in the index and tells listeners
+    void testSetName_keepsIndexInSync() {
+        Recipe recipe = new Recipe("Soup", List.of(), List.of(), 1, 1, 1, "");
+        Chef chef = new Chef();
+        chef.addRecipe(recipe);
+        List<String> renames = new ArrayList<>();
+        chef.addListener(new ChefListener() {
+            @Override
+            public void recipeUpdated(String previousName, Recipe updated) {
+                renames.add(previousName + "->" + updated.getName());
+            }
+        });
+
+        recipe.setName("Stew");
+
+        assertFalse(chef.hasRecipeNamed("Soup"));
+        assertEquals(List.of(recipe), chef.findRecipesByName("stew"));
+        assertEquals(List.of("Soup->Stew"), renames);
+    }
+
+    @Test
+        // removed and replaced recipes leave the index and stop reporting renames to the chef
+    void testRemoveAndSetRecipes_keepIndexInSync() {
+        Recipe a = new Recipe("A", List.of(), List.of(), 1, 1, 1, "");
+        Recipe b = new Recipe("B", List.of(), List.of(), 1, 1, 1, "");
+        Chef chef = new Chef();
+        chef.addRecipe(a);
+        chef.addRecipe(b);
+
+        chef.removeRecipeByName("a");
+        a.setName("B");
+        assertEquals(List.of(b), chef.findRecipesByName("B"));
+
+        chef.setRecipes(List.of(a));
+        b.setName("A");
+        assertEquals(List.of(a), chef.findRecipesByName("b"));
+        assertFalse(chef.hasRecipeNamed("A"));
+    }
+
+    @Test
+        // updateRecipe re-indexes a renamed recipe and the duplicate check sees the new name
+    void testUpdateRecipe_reindexesName() {
+        Recipe existing = new Recipe("Toast", List.of(), List.of(), 1, 1, 1, "");
+        Chef chef = new Chef();
+        chef.addRecipe(existing);
+
+        chef.updateRecipe(existing, new Recipe("French Toast", List.of("Egg"), List.of(), 1, 1, 1, ""));
+
+        assertFalse(chef.hasRecipeNamed("toast"));
+        assertSame(existing, chef.findRecipesByName("FRENCH TOAST").get(0));
+    }
+
+    @Test
+        // the recipe list cannot be changed behind the index's back
+    void testGetRecipes_isReadOnly() {
+        Chef chef = new Chef();
+        assertThrows(UnsupportedOperationException.class,
+                () -> chef.getRecipes().add(new Recipe("X", List.of(), List.of(), 1, 1, 1, "")));
+    }
+
+    @Test
+        // deleting the first match by name leaves the other same-named recipes, unlike the chef's removeRecipeByName
+    void testDeleteFirstByName_keepsOtherMatches() {
+        Recipe a = new Recipe("Cake", List.of(), List.of(), 1, 1, 1, "");
+        Recipe b = new Recipe("cake", List.of(), List.of(), 1, 1, 1, "");
+        Chef chef = new Chef("Baker", List.of(a, b));
+
+        assertTrue(Delete_Recipe.deleteFirstByName(chef, "CAKE"));
+        assertEquals(List.of(b), chef.getRecipes());
+        assertEquals(List.of(b), chef.findRecipesByName("cake"));
+        assertFalse(Delete_Recipe.deleteFirstByName(chef, "Pie"));
+
+        Chef other = new Chef("Baker", List.of(a, b));
+        assertTrue(other.removeRecipeByName("CAKE"));
+        assertTrue(other.getRecipes().isEmpty());
+    }
 }